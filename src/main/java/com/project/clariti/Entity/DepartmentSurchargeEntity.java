@@ -0,0 +1,36 @@
+package com.project.clariti.Entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "department_surcharge_tbl")
+public class DepartmentSurchargeEntity {
+
+	@Id
+	private String department;
+	// fraction of the base fee added to it, negative for a discount
+	private Float surcharge;
+
+	public DepartmentSurchargeEntity() {
+	}
+
+	public DepartmentSurchargeEntity(String department, Float surcharge) {
+		this.department = department;
+		this.surcharge = surcharge;
+	}
+
+	public String getDepartment() {
+		return department;
+	}
+	public void setDepartment(String department) {
+		this.department = department;
+	}
+	public Float getSurcharge() {
+		return surcharge;
+	}
+	public void setSurcharge(Float surcharge) {
+		this.surcharge = surcharge;
+	}
+}
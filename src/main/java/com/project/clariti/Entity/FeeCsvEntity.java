@@ -1,23 +1,48 @@
 package com.project.clariti.Entity;
 
+import java.math.BigDecimal;
+
+import com.project.clariti.Repo.FeeDimensionConverter;
+import com.project.clariti.Repo.FeeDimensionListener;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "fee_csv_tbl")
+@EntityListeners(FeeDimensionListener.class)
+@Table(name = "fee_csv_tbl", indexes = {
+		// serves every filter of getDepartmentDetails, department is always present
+		@Index(name = "idx_fee_csv_dimensions", columnList = "department_id, category_id, sub_category_id, type_id")
+})
 public class FeeCsvEntity {
 
 	@Id
     private String id;
 	private String name;
     private String description;
+    // dimensions are stored as fee_dimension_tbl codes
+    @Convert(converter = FeeDimensionConverter.Department.class)
+    @Column(name = "department_id")
     private String department;
+    @Convert(converter = FeeDimensionConverter.Category.class)
+    @Column(name = "category_id")
     private String category;
+    @Convert(converter = FeeDimensionConverter.SubCategory.class)
+    @Column(name = "sub_category_id")
     private String subCategory;
+    @Convert(converter = FeeDimensionConverter.Type.class)
+    @Column(name = "type_id")
     private String type;
-    private String quantity;
-    private String price;
+    private Integer quantity;
+    @Column(precision = 12, scale = 2)
+    private BigDecimal price;
+    // hash of the row content, compared by delta uploads to skip unchanged rows
+    private Long contentHash;
     
 	public String getId() {
 		return id;
@@ -61,16 +86,22 @@ public class FeeCsvEntity {
 	public void setType(String type) {
 		this.type = type;
 	}
-	public String getQuantity() {
+	public Integer getQuantity() {
 		return quantity;
 	}
-	public void setQuantity(String quantity) {
+	public void setQuantity(Integer quantity) {
 		this.quantity = quantity;
 	}
-	public String getPrice() {
+	public BigDecimal getPrice() {
 		return price;
 	}
-	public void setPrice(String price) {
+	public void setPrice(BigDecimal price) {
 		this.price = price;
 	}
+	public Long getContentHash() {
+		return contentHash;
+	}
+	public void setContentHash(Long contentHash) {
+		this.contentHash = contentHash;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.project.clariti.Repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.project.clariti.Entity.DepartmentSurchargeEntity;
+
+@Repository
+public interface DepartmentSurchargeRepository extends JpaRepository<DepartmentSurchargeEntity, String> {
+
+}
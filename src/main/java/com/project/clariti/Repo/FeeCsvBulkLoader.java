@@ -0,0 +1,272 @@
+package com.project.clariti.Repo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.Repo.FeeDimensionDictionary.Dimension;
+import com.project.clariti.dto.CsvRowError;
+
+/**
+ * FeeCsvBulkLoader writes uploaded fee rows with JDBC batch MERGE statements
+ * instead of a JPA merge per entity, so no SELECT is issued before each insert.
+ * An upload is first staged under its own generation in fee_csv_staging_tbl and then
+ * published into fee_csv_tbl in one transaction, so readers see all of it or none of it.
+ * Department, category, subCategory and type are written as their FeeDimensionDictionary codes,
+ * new values are added to the dictionary before the transaction writing the rows.
+ * Rows an upload rejects are kept in fee_csv_quarantine_tbl under the generation of the upload
+ */
+@Repository
+public class FeeCsvBulkLoader {
+
+	private static final String COLUMNS =
+			"id, name, description, department_id, category_id, sub_category_id, type_id, quantity, price, content_hash";
+	private static final String STAGE_SQL = "MERGE INTO fee_csv_staging_tbl (generation, " + COLUMNS + ") "
+			+ "KEY (generation, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String PUBLISH_SQL = "MERGE INTO fee_csv_tbl (" + COLUMNS + ") KEY (id) "
+			+ "SELECT " + COLUMNS + " FROM fee_csv_staging_tbl WHERE generation = ?";
+	private static final String DISCARD_SQL = "DELETE FROM fee_csv_staging_tbl WHERE generation = ?";
+	private static final String NEXT_GENERATION_SQL = "SELECT NEXT VALUE FOR fee_dataset_generation_seq";
+	private static final String SET_PUBLISHED_GENERATION_SQL =
+			"MERGE INTO fee_dataset_tbl (id, generation) KEY (id) VALUES (1, ?)";
+	private static final String PUBLISHED_GENERATION_SQL = "SELECT COALESCE(MAX(generation), 0) FROM fee_dataset_tbl";
+	private static final String COUNT_ROWS_SQL = "SELECT COUNT(*) FROM fee_csv_tbl";
+	private static final String QUARANTINE_SQL = "INSERT INTO fee_csv_quarantine_tbl "
+			+ "(generation, csv_row, id, column_name, error, record) VALUES (?, ?, ?, ?, ?, ?)";
+	private static final String SELECT_HASHES_SQL = "SELECT id, content_hash FROM fee_csv_tbl";
+	private static final String SELECT_FEE_COLUMNS_SQL =
+			"SELECT department_id, category_id, sub_category_id, type_id, quantity, price FROM fee_csv_tbl";
+	private static final String DELETE_SQL = "DELETE FROM fee_csv_tbl WHERE id = ?";
+	private static final String SELECT_ROWS_SQL = "SELECT id, name, description, department_id, category_id, "
+			+ "sub_category_id, type_id, quantity, price FROM fee_csv_tbl";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private FeeDimensionDictionary dictionary;
+
+	@Value("${csv.ingest.batch-size:500}")
+	private int batchSize;
+
+	@Value("${fee.export.fetch-size:1000}")
+	private int exportFetchSize;
+
+	/**
+	 * newGeneration method allocates the generation an upload is staged under,
+	 * unique across restarts
+	 */
+	public long newGeneration() {
+		return jdbcTemplate.queryForObject(NEXT_GENERATION_SQL, Long.class);
+	}
+
+	/**
+	 * stageChunk method upserts the chunk into the staging rows of the generation,
+	 * fee queries do not see them until the generation is published
+	 * @param generation, chunk
+	 */
+	public void stageChunk(long generation, List<FeeCsvEntity> chunk) {
+		encodeDimensions(chunk);
+		transactionTemplate.executeWithoutResult(status ->
+			jdbcTemplate.batchUpdate(STAGE_SQL, chunk, batchSize, (ps, entity) -> {
+				ps.setLong(1, generation);
+				setRow(ps, 2, entity);
+			}));
+	}
+
+	/**
+	 * publish method merges the staged rows of the generation into fee_csv_tbl and deletes the
+	 * rows with the deleted ids in one transaction, recording it as the published generation,
+	 * then drops the staging rows. Readers keep seeing the previous table until the commit,
+	 * and the whole generation after it
+	 * @param generation, deletedIds
+	 * @return number of rows deleted
+	 */
+	public int publish(long generation, Collection<String> deletedIds) {
+		return transactionTemplate.execute(status -> {
+			jdbcTemplate.update(PUBLISH_SQL, generation);
+			int deleted = sum(jdbcTemplate.batchUpdate(DELETE_SQL, deletedIds, batchSize,
+					(ps, id) -> ps.setString(1, id)));
+			jdbcTemplate.update(SET_PUBLISHED_GENERATION_SQL, generation);
+			jdbcTemplate.update(DISCARD_SQL, generation);
+			return deleted;
+		});
+	}
+
+	/**
+	 * quarantine method saves rows rejected by an upload to fee_csv_quarantine_tbl under the
+	 * generation of the upload, with their error and the rows as they were read
+	 * @param generation, errors
+	 */
+	public void quarantine(long generation, List<CsvRowError> errors) {
+		transactionTemplate.executeWithoutResult(status ->
+			jdbcTemplate.batchUpdate(QUARANTINE_SQL, errors, batchSize, (ps, error) -> {
+				ps.setLong(1, generation);
+				ps.setLong(2, error.getRowNumber());
+				ps.setString(3, error.getId());
+				ps.setString(4, error.getColumn());
+				ps.setString(5, error.getMessage());
+				ps.setString(6, error.getRecord());
+			}));
+	}
+
+	/**
+	 * publishedGeneration method returns the generation fee_csv_tbl was last published as,
+	 * 0 when nothing was published since generations were recorded
+	 */
+	public long publishedGeneration() {
+		return jdbcTemplate.queryForObject(PUBLISHED_GENERATION_SQL, Long.class);
+	}
+
+	/**
+	 * countRows method returns the number of rows in fee_csv_tbl
+	 */
+	public long countRows() {
+		return jdbcTemplate.queryForObject(COUNT_ROWS_SQL, Long.class);
+	}
+
+	/**
+	 * discard method drops the staging rows of a generation that will not be published
+	 */
+	public void discard(long generation) {
+		jdbcTemplate.update(DISCARD_SQL, generation);
+	}
+
+	/**
+	 * findContentHashes method returns the content hash of every stored row by id,
+	 * null for rows loaded before content hashes were stored
+	 */
+	public Map<String, Long> findContentHashes() {
+		Map<String, Long> hashes = new HashMap<>();
+		jdbcTemplate.query(SELECT_HASHES_SQL, rs -> {
+			long hash = rs.getLong(2);
+			hashes.put(rs.getString(1), rs.wasNull() ? null : hash);
+		});
+		return hashes;
+	}
+
+	/**
+	 * queryFeeColumns method streams the department, category, sub_category and type codes,
+	 * quantity and price of every row to the handler, without mapping the rows to entities
+	 */
+	public void queryFeeColumns(RowCallbackHandler handler) {
+		jdbcTemplate.query(SELECT_FEE_COLUMNS_SQL, handler);
+	}
+
+	/**
+	 * queryRows method streams the rows matching the filters to the consumer while they are read,
+	 * empty filters match every value as in getDepartmentDetails. The query runs with H2 lazy
+	 * execution and a fetch size of {@code fee.export.fetch-size}, so the first rows arrive before
+	 * the query has finished and only one fetch of rows is held at a time
+	 * @param department, category, subCategory, type, consumer
+	 * @return number of rows read
+	 */
+	public long queryRows(String department, String category, String subCategory, String type,
+			Consumer<FeeCsvEntity> consumer) {
+		Map<String, String> filters = FeeCsvRepositoryImpl.filters(department, category, subCategory, type);
+		StringBuilder sql = new StringBuilder(SELECT_ROWS_SQL);
+		for (String attribute : filters.keySet()) {
+			sql.append(sql.length() == SELECT_ROWS_SQL.length() ? " WHERE " : " AND ")
+					.append(Dimension.ofAttribute(attribute).getColumn()).append(" = ?");
+		}
+		return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+			setLazyQueryExecution(connection, true);
+			try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+				ps.setFetchSize(exportFetchSize);
+				int index = 1;
+				for (Map.Entry<String, String> filter : filters.entrySet()) {
+					ps.setObject(index++, dictionary.find(Dimension.ofAttribute(filter.getKey()), filter.getValue()),
+							Types.INTEGER);
+				}
+				long rows = 0;
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						consumer.accept(toEntity(rs));
+						rows++;
+					}
+				}
+				return rows;
+			} finally {
+				setLazyQueryExecution(connection, false);
+			}
+		});
+	}
+
+	private FeeCsvEntity toEntity(ResultSet rs) throws SQLException {
+		FeeCsvEntity entity = new FeeCsvEntity();
+		entity.setId(rs.getString(1));
+		entity.setName(rs.getString(2));
+		entity.setDescription(rs.getString(3));
+		entity.setDepartment(dictionary.decode(Dimension.DEPARTMENT, rs.getObject(4, Integer.class)));
+		entity.setCategory(dictionary.decode(Dimension.CATEGORY, rs.getObject(5, Integer.class)));
+		entity.setSubCategory(dictionary.decode(Dimension.SUB_CATEGORY, rs.getObject(6, Integer.class)));
+		entity.setType(dictionary.decode(Dimension.TYPE, rs.getObject(7, Integer.class)));
+		entity.setQuantity(rs.getObject(8, Integer.class));
+		entity.setPrice(rs.getBigDecimal(9));
+		return entity;
+	}
+
+	// the setting belongs to the pooled connection, so it is switched back off after the query
+	private static void setLazyQueryExecution(Connection connection, boolean lazy) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("SET LAZY_QUERY_EXECUTION " + lazy);
+		}
+	}
+
+	/**
+	 * encodeDimensions method adds the new dimension values of the chunk to the dictionary,
+	 * each in its own transaction, so setRow finds a code for every value
+	 */
+	private void encodeDimensions(List<FeeCsvEntity> chunk) {
+		for (FeeCsvEntity entity : chunk) {
+			dictionary.encode(Dimension.DEPARTMENT, entity.getDepartment());
+			dictionary.encode(Dimension.CATEGORY, entity.getCategory());
+			dictionary.encode(Dimension.SUB_CATEGORY, entity.getSubCategory());
+			dictionary.encode(Dimension.TYPE, entity.getType());
+		}
+	}
+
+	private void setRow(PreparedStatement ps, int first, FeeCsvEntity entity) throws SQLException {
+		ps.setString(first, entity.getId());
+		ps.setString(first + 1, entity.getName());
+		ps.setString(first + 2, entity.getDescription());
+		ps.setObject(first + 3, dictionary.find(Dimension.DEPARTMENT, entity.getDepartment()), Types.INTEGER);
+		ps.setObject(first + 4, dictionary.find(Dimension.CATEGORY, entity.getCategory()), Types.INTEGER);
+		ps.setObject(first + 5, dictionary.find(Dimension.SUB_CATEGORY, entity.getSubCategory()), Types.INTEGER);
+		ps.setObject(first + 6, dictionary.find(Dimension.TYPE, entity.getType()), Types.INTEGER);
+		ps.setInt(first + 7, entity.getQuantity());
+		ps.setBigDecimal(first + 8, entity.getPrice());
+		ps.setObject(first + 9, entity.getContentHash(), Types.BIGINT);
+	}
+
+	private static int sum(int[][] counts) {
+		int total = 0;
+		for (int[] batchCounts : counts) {
+			for (int count : batchCounts) {
+				total += count;
+			}
+		}
+		return total;
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.project.clariti.Repo;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.dto.FeeGroupSummary;
+import com.project.clariti.dto.FeeSummary;
+
+/**
+ * FeeCsvRepositoryCustom holds the filter queries that are built per request,
+ * implemented by FeeCsvRepositoryImpl
+ */
+public interface FeeCsvRepositoryCustom {
+
+	/**
+	 * getDepartmentDetails method returns the rows of the department matching the filters,
+	 * an empty category, subCategory or type matches any value
+	 */
+	public List<FeeCsvEntity> getDepartmentDetails(String department, String category, String subCategory, String type);
+
+	/**
+	 * getFeeSummary method returns SUM(quantity * price) and the row count of the rows
+	 * matching the same filters as getDepartmentDetails, computed by the database
+	 */
+	public FeeSummary getFeeSummary(String department, String category, String subCategory, String type);
+
+	/**
+	 * getGroupedFeeSummaries method returns SUM(quantity * price) and the row count
+	 * of every department/category/subCategory/type group
+	 */
+	public List<FeeGroupSummary> getGroupedFeeSummaries();
+
+	/**
+	 * getGroupedFeeSummaries method returns the group summaries of the given departments only
+	 */
+	public List<FeeGroupSummary> getGroupedFeeSummaries(Collection<String> departments);
+
+}
@@ -0,0 +1,122 @@
+package com.project.clariti.Repo;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.dto.FeeGroupSummary;
+import com.project.clariti.dto.FeeSummary;
+import com.project.clariti.utils.FixedPointFees;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * FeeCsvRepositoryImpl builds the filter query with a predicate only for the filters
+ * that are present, so each present/absent combination is its own statement and
+ * can use the (department, category, sub_category, type) index
+ */
+public class FeeCsvRepositoryImpl implements FeeCsvRepositoryCustom {
+
+	private static final String GROUPED_SELECT = "SELECT f.department, f.category, f.subCategory, f.type, "
+			+ "SUM(f.quantity * f.price), COUNT(f) FROM FeeCsvEntity f";
+	private static final String GROUP_BY = " GROUP BY f.department, f.category, f.subCategory, f.type";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<FeeCsvEntity> getDepartmentDetails(String department, String category, String subCategory,
+			String type) {
+		Map<String, String> filters = filters(department, category, subCategory, type);
+		TypedQuery<FeeCsvEntity> query = entityManager.createQuery(
+				"SELECT f FROM FeeCsvEntity f" + whereClause(filters), FeeCsvEntity.class);
+		filters.forEach(query::setParameter);
+		return query.getResultList();
+	}
+
+	@Override
+	public FeeSummary getFeeSummary(String department, String category, String subCategory, String type) {
+		Map<String, String> filters = filters(department, category, subCategory, type);
+		TypedQuery<Object[]> query = entityManager.createQuery(
+				"SELECT SUM(f.quantity * f.price), COUNT(f) FROM FeeCsvEntity f"
+						+ whereClause(filters), Object[].class);
+		filters.forEach(query::setParameter);
+		Object[] result = query.getSingleResult();
+		return FeeSummary.ofCents(sumCents(result[0]), ((Number) result[1]).longValue());
+	}
+
+	@Override
+	public List<FeeGroupSummary> getGroupedFeeSummaries() {
+		return entityManager.createQuery(GROUPED_SELECT + GROUP_BY, Object[].class)
+				.getResultList()
+				.stream()
+				.map(FeeCsvRepositoryImpl::toGroupSummary)
+				.toList();
+	}
+
+	@Override
+	public List<FeeGroupSummary> getGroupedFeeSummaries(Collection<String> departments) {
+		return entityManager.createQuery(GROUPED_SELECT + " WHERE f.department IN :departments" + GROUP_BY,
+				Object[].class)
+				.setParameter("departments", departments)
+				.getResultList()
+				.stream()
+				.map(FeeCsvRepositoryImpl::toGroupSummary)
+				.toList();
+	}
+
+	private static FeeGroupSummary toGroupSummary(Object[] row) {
+		return FeeGroupSummary.ofCents((String) row[0], (String) row[1], (String) row[2], (String) row[3],
+				sumCents(row[4]), ((Number) row[5]).longValue());
+	}
+
+	/**
+	 * sumCents method converts SUM(quantity * price), an exact decimal, to cents,
+	 * SUM is null when no row matches
+	 */
+	private static long sumCents(Object sum) {
+		if (sum == null) {
+			return 0;
+		}
+		return sum instanceof BigDecimal decimal ? FixedPointFees.toCents(decimal)
+				: FixedPointFees.toCents(((Number) sum).doubleValue());
+	}
+
+	/**
+	 * filters method returns the filter values that are present, keyed by entity attribute,
+	 * in index column order
+	 */
+	static Map<String, String> filters(String department, String category, String subCategory, String type) {
+		Map<String, String> filters = new LinkedHashMap<>();
+		filters.put("department", department);
+		if (category != null && !category.isEmpty()) {
+			filters.put("category", category);
+		}
+		if (subCategory != null && !subCategory.isEmpty()) {
+			filters.put("subCategory", subCategory);
+		}
+		if (type != null && !type.isEmpty()) {
+			filters.put("type", type);
+		}
+		return filters;
+	}
+
+	/**
+	 * whereClause method returns the JPQL where clause for the filters,
+	 * binding each filter to a parameter of the same name
+	 */
+	static String whereClause(Map<String, String> filters) {
+		StringBuilder where = new StringBuilder();
+		for (String attribute : filters.keySet()) {
+			where.append(where.length() == 0 ? " WHERE " : " AND ")
+					.append("f.").append(attribute).append(" = :").append(attribute);
+		}
+		return where.toString();
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.project.clariti.Repo;
+
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.project.clariti.Repo.FeeDimensionDictionary.Dimension;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * FeeCsvSchemaMigrator upgrades fee_csv_tbl columns that ddl-auto=update does not alter,
+ * creates the dimension dictionary, the staging table uploads are written to before they
+ * are published, the table recording the published generation and the quarantine table
+ * of rejected upload rows.
+ * It runs after Hibernate has updated the schema and before the application serves requests
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class FeeCsvSchemaMigrator {
+
+	private static final Logger logger = LogManager.getLogger(FeeCsvSchemaMigrator.class);
+
+	private static final String COLUMN_TYPE_SQL = "SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS "
+			+ "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = 'FEE_CSV_TBL' AND COLUMN_NAME = ?";
+
+	private static final List<String> DIMENSION_COLUMNS = List.of("DEPARTMENT", "CATEGORY", "SUB_CATEGORY", "TYPE");
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@PostConstruct
+	public void migrate() {
+		// quantity and price were stored as strings before they were parsed at ingest
+		convertColumn("QUANTITY", "INTEGER");
+		convertColumn("PRICE", "NUMERIC(12, 2)");
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS fee_dimension_tbl ("
+				+ "dimension INTEGER NOT NULL, code INTEGER NOT NULL, name VARCHAR(255) NOT NULL, "
+				+ "PRIMARY KEY (dimension, code), UNIQUE (dimension, name))");
+		// dimensions were stored as strings before they were dictionary encoded
+		jdbcTemplate.execute("DROP INDEX IF EXISTS idx_fee_csv_filter");
+		for (Dimension dimension : Dimension.values()) {
+			encodeColumn(dimension, DIMENSION_COLUMNS.get(dimension.ordinal()));
+		}
+		createStagingTable();
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS fee_csv_quarantine_tbl ("
+				+ "generation BIGINT NOT NULL, csv_row BIGINT NOT NULL, id VARCHAR(255), column_name VARCHAR(255), "
+				+ "error VARCHAR NOT NULL, record VARCHAR, quarantined_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+				+ "PRIMARY KEY (generation, csv_row))");
+	}
+
+	/**
+	 * createStagingTable method creates fee_csv_staging_tbl, the rows of fee_csv_tbl keyed by
+	 * upload generation, and fee_dataset_tbl holding the generation last published. The staging
+	 * table is recreated at startup, dropping rows of uploads that never finished
+	 */
+	private void createStagingTable() {
+		jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS fee_dataset_generation_seq");
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS fee_dataset_tbl ("
+				+ "id INTEGER PRIMARY KEY, generation BIGINT NOT NULL)");
+		jdbcTemplate.execute("DROP TABLE IF EXISTS fee_csv_staging_tbl");
+		jdbcTemplate.execute("CREATE TABLE fee_csv_staging_tbl ("
+				+ "generation BIGINT NOT NULL, id VARCHAR(255) NOT NULL, name VARCHAR(255), "
+				+ "description VARCHAR(255), department_id INTEGER, category_id INTEGER, "
+				+ "sub_category_id INTEGER, type_id INTEGER, quantity INTEGER, price NUMERIC(12, 2), "
+				+ "content_hash BIGINT, PRIMARY KEY (generation, id))");
+	}
+
+	/**
+	 * encodeColumn method adds the values of a string dimension column to fee_dimension_tbl,
+	 * stores their codes in the column_id column ddl-auto=update added and drops the string column
+	 */
+	private void encodeColumn(Dimension dimension, String column) {
+		if (jdbcTemplate.queryForList(COLUMN_TYPE_SQL, String.class, column).isEmpty()) {
+			return;
+		}
+		logger.info("Encoding fee_csv_tbl.{} as {}_ID dictionary codes", column, column);
+		int lastCode = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(code), 0) FROM fee_dimension_tbl "
+				+ "WHERE dimension = ?", Integer.class, dimension.ordinal());
+		jdbcTemplate.update("INSERT INTO fee_dimension_tbl (dimension, code, name) "
+				+ "SELECT ?, ? + ROW_NUMBER() OVER (ORDER BY v), v FROM (SELECT DISTINCT " + column + " v "
+				+ "FROM fee_csv_tbl WHERE " + column + " IS NOT NULL) "
+				+ "WHERE v NOT IN (SELECT name FROM fee_dimension_tbl WHERE dimension = ?)",
+				dimension.ordinal(), lastCode, dimension.ordinal());
+		jdbcTemplate.update("UPDATE fee_csv_tbl f SET " + column + "_ID = (SELECT code FROM fee_dimension_tbl d "
+				+ "WHERE d.dimension = ? AND d.name = f." + column + ")", dimension.ordinal());
+		jdbcTemplate.execute("ALTER TABLE fee_csv_tbl DROP COLUMN " + column);
+	}
+
+	/**
+	 * convertColumn method converts a character column and its existing data to the given type,
+	 * failing startup if a stored value cannot be converted
+	 */
+	private void convertColumn(String column, String sqlType) {
+		List<String> dataTypes = jdbcTemplate.queryForList(COLUMN_TYPE_SQL, String.class, column);
+		if (!dataTypes.isEmpty() && dataTypes.get(0).startsWith("CHARACTER")) {
+			logger.info("Converting fee_csv_tbl.{} from {} to {}", column, dataTypes.get(0), sqlType);
+			jdbcTemplate.execute("ALTER TABLE fee_csv_tbl ALTER COLUMN " + column + " SET DATA TYPE " + sqlType);
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.project.clariti.Repo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.project.clariti.Repo.FeeDimensionDictionary.Dimension;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * FeeDimensionConverter stores a dimension attribute of FeeCsvEntity as its dictionary code.
+ * Filter values are looked up without being added, so an unknown filter value matches no row,
+ * the values of a written entity are added beforehand by FeeDimensionListener
+ */
+public abstract class FeeDimensionConverter implements AttributeConverter<String, Integer> {
+
+	private final Dimension dimension;
+
+	@Autowired
+	private FeeDimensionDictionary dictionary;
+
+	protected FeeDimensionConverter(Dimension dimension) {
+		this.dimension = dimension;
+	}
+
+	@Override
+	public Integer convertToDatabaseColumn(String value) {
+		return dictionary.find(dimension, value);
+	}
+
+	@Override
+	public String convertToEntityAttribute(Integer code) {
+		return dictionary.decode(dimension, code);
+	}
+
+	@Converter
+	public static class Department extends FeeDimensionConverter {
+		public Department() {
+			super(Dimension.DEPARTMENT);
+		}
+	}
+
+	@Converter
+	public static class Category extends FeeDimensionConverter {
+		public Category() {
+			super(Dimension.CATEGORY);
+		}
+	}
+
+	@Converter
+	public static class SubCategory extends FeeDimensionConverter {
+		public SubCategory() {
+			super(Dimension.SUB_CATEGORY);
+		}
+	}
+
+	@Converter
+	public static class Type extends FeeDimensionConverter {
+		public Type() {
+			super(Dimension.TYPE);
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package com.project.clariti.Repo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * FeeDimensionDictionary maps the department, category, subCategory and type values of the fee
+ * rows to small integer codes kept in fee_dimension_tbl, so fee_csv_tbl stores four integers per
+ * row and every row read back shares one String per value. Lookups go to concurrent in-memory
+ * maps loaded on first use, a new value is added to the table in its own transaction so its code
+ * is committed before any row that uses it
+ */
+@Repository
+public class FeeDimensionDictionary {
+
+	public enum Dimension {
+		DEPARTMENT("department", "department_id"),
+		CATEGORY("category", "category_id"),
+		SUB_CATEGORY("subCategory", "sub_category_id"),
+		TYPE("type", "type_id");
+
+		private final String attribute;
+		private final String column;
+
+		Dimension(String attribute, String column) {
+			this.attribute = attribute;
+			this.column = column;
+		}
+
+		/** FeeCsvEntity attribute holding the value */
+		public String getAttribute() {
+			return attribute;
+		}
+
+		/** fee_csv_tbl column holding the code */
+		public String getColumn() {
+			return column;
+		}
+
+		/**
+		 * ofAttribute method returns the dimension of the FeeCsvEntity attribute
+		 * @throws IllegalArgumentException if the attribute is not a dimension
+		 */
+		public static Dimension ofAttribute(String attribute) {
+			for (Dimension dimension : values()) {
+				if (dimension.attribute.equals(attribute)) {
+					return dimension;
+				}
+			}
+			throw new IllegalArgumentException("Not a dimension: " + attribute);
+		}
+	}
+
+	/** code find returns for a value that is not in the dictionary, no row has it */
+	public static final int UNKNOWN = -1;
+
+	private static final String SELECT_SQL = "SELECT code, name FROM fee_dimension_tbl WHERE dimension = ?";
+	private static final String INSERT_SQL = "INSERT INTO fee_dimension_tbl (dimension, code, name) VALUES (?, ?, ?)";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// resolved on first use, the transaction manager needs the entity manager factory this is injected into
+	@Autowired
+	private ObjectProvider<PlatformTransactionManager> transactionManager;
+
+	private volatile List<Values> dimensions;
+
+	/**
+	 * encode method returns the code of the value, adding the value to the dictionary
+	 * when it is new, null for a null value
+	 */
+	public Integer encode(Dimension dimension, String value) {
+		if (value == null) {
+			return null;
+		}
+		Values values = values(dimension);
+		Integer code = values.codes.get(value);
+		return code != null ? code : values.add(dimension, value);
+	}
+
+	/**
+	 * find method returns the code of the value without adding it, UNKNOWN when the value is
+	 * not in the dictionary and null for a null value. Used for filter values
+	 */
+	public Integer find(Dimension dimension, String value) {
+		if (value == null) {
+			return null;
+		}
+		return values(dimension).codes.getOrDefault(value, UNKNOWN);
+	}
+
+	/**
+	 * decode method returns the shared value of the code, null for a null code
+	 * @throws IllegalStateException if the code is not in fee_dimension_tbl
+	 */
+	public String decode(Dimension dimension, Integer code) {
+		if (code == null) {
+			return null;
+		}
+		Values values = values(dimension);
+		String value = values.get(code);
+		if (value == null) {
+			// added by another writer of the table, read it again once
+			values.reload(dimension);
+			value = values.get(code);
+		}
+		if (value == null) {
+			throw new IllegalStateException("No " + dimension + " with code " + code);
+		}
+		return value;
+	}
+
+	/**
+	 * preload method loads every dimension now instead of on first use,
+	 * for callers that must not wait on the database later
+	 */
+	public void preload() {
+		values(Dimension.DEPARTMENT);
+	}
+
+	/**
+	 * isLoaded method returns whether the dictionary has been read, find then answers
+	 * every value from memory
+	 */
+	public boolean isLoaded() {
+		return dimensions != null;
+	}
+
+	/**
+	 * isKnown method returns whether decode answers the code from memory,
+	 * false when the code has to be read from fee_dimension_tbl first
+	 */
+	public boolean isKnown(Dimension dimension, Integer code) {
+		List<Values> loaded = dimensions;
+		return code == null || loaded != null && loaded.get(dimension.ordinal()).get(code) != null;
+	}
+
+	private Values values(Dimension dimension) {
+		List<Values> loaded = dimensions;
+		if (loaded == null) {
+			synchronized (this) {
+				if (dimensions == null) {
+					List<Values> all = new ArrayList<>();
+					for (Dimension each : Dimension.values()) {
+						Values values = new Values();
+						values.reload(each);
+						all.add(values);
+					}
+					dimensions = List.copyOf(all);
+				}
+				loaded = dimensions;
+			}
+		}
+		return loaded.get(dimension.ordinal());
+	}
+
+	/**
+	 * Values holds the codes of one dimension by value and the values by code,
+	 * codes start at 1 and the values array is replaced as a whole when a value is added
+	 */
+	private final class Values {
+		private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+		private volatile String[] names = new String[1];
+
+		private String get(int code) {
+			String[] current = names;
+			return code > 0 && code < current.length ? current[code] : null;
+		}
+
+		private synchronized Integer add(Dimension dimension, String value) {
+			Integer code = codes.get(value);
+			if (code != null) {
+				return code;
+			}
+			int next = names.length;
+			TransactionTemplate newTransaction = new TransactionTemplate(transactionManager.getObject());
+			newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+			newTransaction.executeWithoutResult(status ->
+				jdbcTemplate.update(INSERT_SQL, dimension.ordinal(), next, value));
+			String[] grown = Arrays.copyOf(names, next + 1);
+			grown[next] = value;
+			names = grown;
+			codes.put(value, next);
+			return next;
+		}
+
+		private synchronized void reload(Dimension dimension) {
+			String[][] loaded = { names.clone() };
+			jdbcTemplate.query(SELECT_SQL, rs -> {
+				int code = rs.getInt(1);
+				String value = rs.getString(2);
+				if (code >= loaded[0].length) {
+					loaded[0] = Arrays.copyOf(loaded[0], code + 1);
+				}
+				loaded[0][code] = value;
+			}, dimension.ordinal());
+			for (int code = 1; code < loaded[0].length; code++) {
+				if (loaded[0][code] != null) {
+					codes.putIfAbsent(loaded[0][code], code);
+				}
+			}
+			names = loaded[0];
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package com.project.clariti.Repo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.Repo.FeeDimensionDictionary.Dimension;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * FeeDimensionListener adds the dimension values of a FeeCsvEntity written through JPA
+ * to the dictionary, so FeeDimensionConverter finds a code for each of them
+ */
+public class FeeDimensionListener {
+
+	@Autowired
+	private FeeDimensionDictionary dictionary;
+
+	@PrePersist
+	@PreUpdate
+	public void encodeDimensions(FeeCsvEntity entity) {
+		dictionary.encode(Dimension.DEPARTMENT, entity.getDepartment());
+		dictionary.encode(Dimension.CATEGORY, entity.getCategory());
+		dictionary.encode(Dimension.SUB_CATEGORY, entity.getSubCategory());
+		dictionary.encode(Dimension.TYPE, entity.getType());
+	}
+}
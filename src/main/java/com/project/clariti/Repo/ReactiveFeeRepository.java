@@ -0,0 +1,155 @@
+package com.project.clariti.Repo;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.Repo.FeeDimensionDictionary.Dimension;
+import com.project.clariti.dto.FeeSummary;
+import com.project.clariti.utils.FixedPointFees;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * ReactiveFeeRepository reads fee_csv_tbl through R2DBC for the reactive profile, with the filter
+ * semantics of getDepartmentDetails: department always filters, an empty category, subCategory or
+ * type matches any value and a value no row has matches nothing. Filter values are looked up in
+ * the FeeDimensionDictionary, which is loaded at startup so no request waits for it. The dictionary
+ * reads fee_dimension_tbl through JDBC, so a lookup that has to read it, before the dictionary is
+ * loaded or for a code another writer added since, runs on a boundedElastic thread instead of
+ * the event loop
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveFeeRepository {
+
+	private static final String SUMMARY_SQL = "SELECT SUM(quantity * price) AS fee, COUNT(*) AS row_count "
+			+ "FROM fee_csv_tbl";
+	private static final String ROWS_SQL = "SELECT id, name, description, department_id, category_id, "
+			+ "sub_category_id, type_id, quantity, price FROM fee_csv_tbl";
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@Autowired
+	private FeeDimensionDictionary dictionary;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void preloadDictionary() {
+		dictionary.preload();
+	}
+
+	/**
+	 * getFeeSummary method aggregates the base fee in cents and the row count of the filters
+	 * in the database
+	 * @param department, category, subCategory, type
+	 * @return FeeSummary, zero when no row matches
+	 */
+	public Mono<FeeSummary> getFeeSummary(String department, String category, String subCategory, String type) {
+		return filterCodes(department, category, subCategory, type)
+				.flatMap(codes -> query(SUMMARY_SQL, codes)
+						.map(row -> {
+							BigDecimal fee = row.get("fee", BigDecimal.class);
+							return FeeSummary.ofCents(fee == null ? 0 : FixedPointFees.toCents(fee),
+									row.get("row_count", Long.class));
+						})
+						.one());
+	}
+
+	/**
+	 * findRows method streams the rows matching the filters, read from the database
+	 * as the subscriber requests them
+	 * @param department, category, subCategory, type
+	 * @return Flux of FeeCsvEntity without content hash
+	 */
+	public Flux<FeeCsvEntity> findRows(String department, String category, String subCategory, String type) {
+		return filterCodes(department, category, subCategory, type)
+				.flatMapMany(codes -> query(ROWS_SQL, codes).map(EncodedRow::new).all())
+				.concatMap(this::decode);
+	}
+
+	/**
+	 * filterCodes method returns the dictionary codes of the filters that are present, keyed by entity
+	 * attribute. A value the dictionary does not have is UNKNOWN without reading the table
+	 */
+	private Mono<Map<String, Integer>> filterCodes(String department, String category, String subCategory,
+			String type) {
+		Mono<Map<String, Integer>> codes = Mono.fromCallable(() -> {
+			Map<String, Integer> found = new LinkedHashMap<>();
+			FeeCsvRepositoryImpl.filters(department, category, subCategory, type).forEach((attribute, value) ->
+					found.put(attribute, dictionary.find(Dimension.ofAttribute(attribute), value)));
+			return found;
+		});
+		return dictionary.isLoaded() ? codes : codes.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	private DatabaseClient.GenericExecuteSpec query(String select, Map<String, Integer> codes) {
+		StringBuilder sql = new StringBuilder(select);
+		String separator = " WHERE ";
+		for (String attribute : codes.keySet()) {
+			sql.append(separator).append(Dimension.ofAttribute(attribute).getColumn())
+					.append(" = :").append(attribute);
+			separator = " AND ";
+		}
+		DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+		for (Map.Entry<String, Integer> code : codes.entrySet()) {
+			spec = spec.bind(code.getKey(), code.getValue());
+		}
+		return spec;
+	}
+
+	/**
+	 * decode method returns the entity of the row, decoded in place when the dictionary has every code
+	 */
+	private Mono<FeeCsvEntity> decode(EncodedRow row) {
+		Mono<FeeCsvEntity> entity = Mono.fromCallable(() -> row.decode(dictionary));
+		return row.isKnown(dictionary) ? entity : entity.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	/**
+	 * EncodedRow holds a fee_csv_tbl row as read, with the dimension codes not yet decoded
+	 */
+	private static final class EncodedRow {
+		private final FeeCsvEntity entity = new FeeCsvEntity();
+		private final Integer[] codes = new Integer[Dimension.values().length];
+
+		private EncodedRow(Readable row) {
+			entity.setId(row.get("id", String.class));
+			entity.setName(row.get("name", String.class));
+			entity.setDescription(row.get("description", String.class));
+			entity.setQuantity(row.get("quantity", Integer.class));
+			entity.setPrice(row.get("price", BigDecimal.class));
+			for (Dimension dimension : Dimension.values()) {
+				codes[dimension.ordinal()] = row.get(dimension.getColumn(), Integer.class);
+			}
+		}
+
+		private boolean isKnown(FeeDimensionDictionary dictionary) {
+			for (Dimension dimension : Dimension.values()) {
+				if (!dictionary.isKnown(dimension, codes[dimension.ordinal()])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private FeeCsvEntity decode(FeeDimensionDictionary dictionary) {
+			entity.setDepartment(dictionary.decode(Dimension.DEPARTMENT, codes[Dimension.DEPARTMENT.ordinal()]));
+			entity.setCategory(dictionary.decode(Dimension.CATEGORY, codes[Dimension.CATEGORY.ordinal()]));
+			entity.setSubCategory(dictionary.decode(Dimension.SUB_CATEGORY, codes[Dimension.SUB_CATEGORY.ordinal()]));
+			entity.setType(dictionary.decode(Dimension.TYPE, codes[Dimension.TYPE.ordinal()]));
+			return entity;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.project.clariti.aggregate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.project.clariti.Repo.FeeCsvBulkLoader;
+import com.project.clariti.Repo.FeeDimensionDictionary;
+import com.project.clariti.Repo.FeeDimensionDictionary.Dimension;
+import com.project.clariti.dto.FeeSummary;
+
+/**
+ * ColumnarFeeService keeps the FeeColumns used to answer fee queries when
+ * {@code fee.query.engine=columnar}. The columns are loaded from fee_csv_tbl after every upload
+ * and saved as a snapshot, at startup they are loaded from the snapshot unless that is stale or
+ * corrupt. They are swapped in as a whole so readers never see a partially loaded store
+ */
+@Service
+public class ColumnarFeeService implements FeeQueryEngine {
+
+	private static final Logger logger = LogManager.getLogger(ColumnarFeeService.class);
+
+	@Autowired
+	private FeeCsvBulkLoader bulkLoader;
+
+	@Autowired
+	private FeeDimensionDictionary dictionary;
+
+	@Autowired
+	private FeeSnapshotStore snapshots;
+
+	@Value("${fee.query.engine:cube}")
+	private FeeQueryEngine.Type engine;
+
+	private volatile FeeColumns columns;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void onApplicationReady() {
+		if (engine != FeeQueryEngine.Type.COLUMNAR) {
+			return;
+		}
+		FeeColumns loaded = snapshots.load(FeeSnapshotStore.Kind.COLUMNS, FeeColumns::readFrom);
+		if (loaded != null) {
+			columns = loaded;
+			logger.info("Fee columns loaded from snapshot with {} rows", loaded.size());
+			return;
+		}
+		rebuild();
+	}
+
+	/**
+	 * rebuild method reloads the columns from fee_csv_tbl when the columnar engine is selected,
+	 * and replaces their snapshot, on failure the columns are dropped so queries go to the database
+	 */
+	public synchronized void rebuild() {
+		if (engine != FeeQueryEngine.Type.COLUMNAR) {
+			return;
+		}
+		FeeColumns loaded;
+		FeeSnapshotStore.Fingerprint fingerprint;
+		try {
+			// taken before reading the rows, a publish in between leaves a snapshot that is stale
+			fingerprint = snapshots.fingerprint();
+			loaded = load();
+			columns = loaded;
+			logger.info("Fee columns loaded with {} rows", loaded.size());
+		} catch (RuntimeException e) {
+			columns = null;
+			logger.error("Error loading the fee columns, fee queries will use the database: {}", e.getMessage(), e);
+			return;
+		}
+		snapshots.save(FeeSnapshotStore.Kind.COLUMNS, fingerprint, loaded::writeTo);
+	}
+
+	/**
+	 * load method reads every fee row into a new FeeColumns
+	 */
+	public FeeColumns load() {
+		FeeColumns.Builder builder = new FeeColumns.Builder();
+		bulkLoader.queryFeeColumns(rs -> builder.add(
+				dictionary.decode(Dimension.DEPARTMENT, rs.getObject(1, Integer.class)),
+				dictionary.decode(Dimension.CATEGORY, rs.getObject(2, Integer.class)),
+				dictionary.decode(Dimension.SUB_CATEGORY, rs.getObject(3, Integer.class)),
+				dictionary.decode(Dimension.TYPE, rs.getObject(4, Integer.class)),
+				rs.getObject(5, Integer.class), rs.getBigDecimal(6)));
+		return builder.build();
+	}
+
+	/**
+	 * lookup method returns the fee summary for the filters from the columns,
+	 * or null when no columns are loaded
+	 */
+	@Override
+	public FeeSummary lookup(String department, String category, String subCategory, String type) {
+		FeeColumns current = columns;
+		return current == null ? null : current.lookup(department, category, subCategory, type);
+	}
+}
@@ -0,0 +1,236 @@
+package com.project.clariti.aggregate;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.project.clariti.dto.FeeSummary;
+import com.project.clariti.utils.FixedPointFees;
+
+/**
+ * FeeColumns is an immutable column store of the fee rows. Department, category, subCategory and
+ * type are dictionary encoded to 16 bit codes, quantity and price (in cents) are kept in primitive
+ * arrays and the rows are sorted by department, so a query scans only the rows of its department
+ * comparing codes in one loop. Sums are exact, the same as the database SUM of quantity * price
+ */
+public final class FeeColumns {
+
+	/** code used for an empty filter, which matches any value */
+	static final int ANY = 0;
+
+	static final int DIMENSIONS = 4;
+	private static final int MAX_CODE = (1 << 16) - 1;
+
+	private final List<Map<String, Integer>> dictionaries;
+	// rows of department code d are departmentStarts[d] until departmentStarts[d + 1]
+	private final int[] departmentStarts;
+	private final short[] categories;
+	private final short[] subCategories;
+	private final short[] types;
+	private final int[] quantities;
+	private final long[] priceCents;
+
+	private FeeColumns(List<Map<String, Integer>> dictionaries, int[] departmentStarts, short[] categories,
+			short[] subCategories, short[] types, int[] quantities, long[] priceCents) {
+		this.dictionaries = dictionaries;
+		this.departmentStarts = departmentStarts;
+		this.categories = categories;
+		this.subCategories = subCategories;
+		this.types = types;
+		this.quantities = quantities;
+		this.priceCents = priceCents;
+	}
+
+	/**
+	 * lookup method returns the base fee and row count of the rows matching the filters, department
+	 * must be equal and an empty category, subCategory or type matches any value, as in
+	 * getDepartmentDetails
+	 */
+	public FeeSummary lookup(String department, String category, String subCategory, String type) {
+		if (department == null) {
+			return FeeSummary.EMPTY;
+		}
+		int departmentCode = code(0, department, false);
+		int categoryCode = code(1, category, true);
+		int subCategoryCode = code(2, subCategory, true);
+		int typeCode = code(3, type, true);
+		if (departmentCode < 0 || categoryCode < 0 || subCategoryCode < 0 || typeCode < 0) {
+			return FeeSummary.EMPTY;
+		}
+		boolean anyCategory = categoryCode == ANY;
+		boolean anySubCategory = subCategoryCode == ANY;
+		boolean anyType = typeCode == ANY;
+		short categoryValue = (short) categoryCode;
+		short subCategoryValue = (short) subCategoryCode;
+		short typeValue = (short) typeCode;
+		long cents = 0;
+		long rowCount = 0;
+		for (int i = departmentStarts[departmentCode], end = departmentStarts[departmentCode + 1]; i < end; i++) {
+			if ((anyCategory | categories[i] == categoryValue)
+					& (anySubCategory | subCategories[i] == subCategoryValue)
+					& (anyType | types[i] == typeValue)) {
+				cents = Math.addExact(cents, FixedPointFees.lineCents(quantities[i], priceCents[i]));
+				rowCount++;
+			}
+		}
+		return rowCount == 0 ? FeeSummary.EMPTY : FeeSummary.ofCents(cents, rowCount);
+	}
+
+	/**
+	 * size method returns the number of rows held
+	 */
+	public int size() {
+		return quantities.length;
+	}
+
+	/**
+	 * writeTo method writes the dictionaries and the columns as a snapshot payload
+	 */
+	void writeTo(DataOutputStream out) throws IOException {
+		FeeSnapshotStore.writeDictionaries(out, dictionaries);
+		FeeSnapshotStore.writeInts(out, departmentStarts);
+		FeeSnapshotStore.writeShorts(out, categories);
+		FeeSnapshotStore.writeShorts(out, subCategories);
+		FeeSnapshotStore.writeShorts(out, types);
+		FeeSnapshotStore.writeInts(out, quantities);
+		FeeSnapshotStore.writeLongs(out, priceCents);
+	}
+
+	/**
+	 * readFrom method reads columns written by writeTo
+	 * @throws IllegalStateException if the payload is not a valid column store
+	 */
+	static FeeColumns readFrom(ByteBuffer in) {
+		List<Map<String, Integer>> dictionaries = FeeSnapshotStore.readDictionaries(in);
+		int[] departmentStarts = FeeSnapshotStore.readInts(in);
+		short[] categories = FeeSnapshotStore.readShorts(in);
+		short[] subCategories = FeeSnapshotStore.readShorts(in);
+		short[] types = FeeSnapshotStore.readShorts(in);
+		int[] quantities = FeeSnapshotStore.readInts(in);
+		long[] priceCents = FeeSnapshotStore.readLongs(in);
+		int rows = quantities.length;
+		if (dictionaries.size() != DIMENSIONS || departmentStarts.length != dictionaries.get(0).size() + 2
+				|| departmentStarts[departmentStarts.length - 1] != rows || categories.length != rows
+				|| subCategories.length != rows || types.length != rows || priceCents.length != rows) {
+			throw new IllegalStateException("Invalid fee columns snapshot");
+		}
+		return new FeeColumns(dictionaries, departmentStarts, categories, subCategories, types, quantities,
+				priceCents);
+	}
+
+	/**
+	 * code method returns the dictionary code of a filter value, ANY for an empty wildcard
+	 * filter or -1 when the value is not present in the data
+	 */
+	private int code(int dimension, String value, boolean wildcard) {
+		if (wildcard && (value == null || value.isEmpty())) {
+			return ANY;
+		}
+		Integer code = dictionaries.get(dimension).get(value);
+		return code == null ? -1 : code;
+	}
+
+	/**
+	 * Builder appends fee rows in any order, build sorts them by department
+	 */
+	public static final class Builder {
+
+		private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+		private int[] departments = new int[1024];
+		private short[] categories = new short[1024];
+		private short[] subCategories = new short[1024];
+		private short[] types = new short[1024];
+		private int[] quantities = new int[1024];
+		private long[] priceCents = new long[1024];
+		private int size;
+
+		public Builder() {
+			for (int i = 0; i < DIMENSIONS; i++) {
+				dictionaries.add(new HashMap<>());
+			}
+		}
+
+		/**
+		 * add method adds one fee row, a missing quantity or price adds nothing to the fee
+		 * but the row is still counted, as in the database
+		 * @throws IllegalStateException if a dimension has more distinct values than fit in its code
+		 */
+		public Builder add(String department, String category, String subCategory, String type, Integer quantity,
+				BigDecimal price) {
+			if (size == quantities.length) {
+				grow();
+			}
+			departments[size] = encode(0, department);
+			categories[size] = (short) encode(1, category);
+			subCategories[size] = (short) encode(2, subCategory);
+			types[size] = (short) encode(3, type);
+			boolean missing = quantity == null || price == null;
+			quantities[size] = missing ? 0 : quantity;
+			priceCents[size] = missing ? 0 : FixedPointFees.toCents(price);
+			size++;
+			return this;
+		}
+
+		public FeeColumns build() {
+			int departmentCount = dictionaries.get(0).size();
+			// counting sort by department code
+			int[] starts = new int[departmentCount + 2];
+			for (int i = 0; i < size; i++) {
+				starts[departments[i] + 1]++;
+			}
+			for (int d = 1; d < starts.length; d++) {
+				starts[d] += starts[d - 1];
+			}
+			int[] next = Arrays.copyOf(starts, starts.length);
+			short[] sortedCategories = new short[size];
+			short[] sortedSubCategories = new short[size];
+			short[] sortedTypes = new short[size];
+			int[] sortedQuantities = new int[size];
+			long[] sortedPriceCents = new long[size];
+			for (int i = 0; i < size; i++) {
+				int row = next[departments[i]]++;
+				sortedCategories[row] = categories[i];
+				sortedSubCategories[row] = subCategories[i];
+				sortedTypes[row] = types[i];
+				sortedQuantities[row] = quantities[i];
+				sortedPriceCents[row] = priceCents[i];
+			}
+			List<Map<String, Integer>> frozen = new ArrayList<>();
+			for (Map<String, Integer> dictionary : dictionaries) {
+				// HashMap keeps a null value, which a row can have for an unset column
+				frozen.add(new HashMap<>(dictionary));
+			}
+			return new FeeColumns(List.copyOf(frozen), starts, sortedCategories, sortedSubCategories, sortedTypes,
+					sortedQuantities, sortedPriceCents);
+		}
+
+		private int encode(int dimension, String value) {
+			Map<String, Integer> dictionary = dictionaries.get(dimension);
+			Integer code = dictionary.get(value);
+			if (code == null) {
+				if (dictionary.size() >= MAX_CODE) {
+					throw new IllegalStateException("Too many distinct values to encode for dimension " + dimension);
+				}
+				code = dictionary.size() + 1;
+				dictionary.put(value, code);
+			}
+			return code;
+		}
+
+		private void grow() {
+			int capacity = quantities.length * 2;
+			departments = Arrays.copyOf(departments, capacity);
+			categories = Arrays.copyOf(categories, capacity);
+			subCategories = Arrays.copyOf(subCategories, capacity);
+			types = Arrays.copyOf(types, capacity);
+			quantities = Arrays.copyOf(quantities, capacity);
+			priceCents = Arrays.copyOf(priceCents, capacity);
+		}
+	}
+}
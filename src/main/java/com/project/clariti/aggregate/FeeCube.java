@@ -0,0 +1,232 @@
+package com.project.clariti.aggregate;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.project.clariti.dto.FeeGroupSummary;
+import com.project.clariti.dto.FeeSummary;
+import com.project.clariti.utils.FixedPointFees;
+
+/**
+ * FeeCube is an immutable pre-aggregated index of base fees for every combination of
+ * department with a value or "any" for category, subCategory and type.
+ * Each dimension value is dictionary encoded to a 16 bit code, the four codes are packed
+ * into one long key and the sums are kept in cents in primitive open addressing arrays
+ */
+public final class FeeCube {
+
+	/** code used for an empty filter, which matches any value */
+	static final int ANY = 0;
+
+	static final int DIMENSIONS = 4;
+	private static final int CODE_BITS = 16;
+	private static final int MAX_CODE = (1 << CODE_BITS) - 1;
+
+	private final List<Map<String, Integer>> dictionaries;
+	private final long[] keys;
+	private final long[] baseFeeCents;
+	private final long[] rowCounts;
+	private final int size;
+
+	private FeeCube(List<Map<String, Integer>> dictionaries, long[] keys, long[] baseFeeCents, long[] rowCounts,
+			int size) {
+		this.dictionaries = dictionaries;
+		this.keys = keys;
+		this.baseFeeCents = baseFeeCents;
+		this.rowCounts = rowCounts;
+		this.size = size;
+	}
+
+	/**
+	 * of method builds a cube from department/category/subCategory/type group summaries
+	 */
+	public static FeeCube of(List<FeeGroupSummary> groups) {
+		Builder builder = new Builder();
+		for (FeeGroupSummary group : groups) {
+			builder.addCents(group.getDepartment(), group.getCategory(), group.getSubCategory(), group.getType(),
+					group.getBaseFeeCents(), group.getRowCount());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * lookup method returns the base fee and row count matching the filters,
+	 * an empty category, subCategory or type matches any value
+	 */
+	public FeeSummary lookup(String department, String category, String subCategory, String type) {
+		int departmentCode = code(0, department, false);
+		int categoryCode = code(1, category, true);
+		int subCategoryCode = code(2, subCategory, true);
+		int typeCode = code(3, type, true);
+		if (departmentCode < 0 || categoryCode < 0 || subCategoryCode < 0 || typeCode < 0) {
+			return FeeSummary.EMPTY;
+		}
+		int slot = find(keys, pack(departmentCode, categoryCode, subCategoryCode, typeCode));
+		return keys[slot] == 0 ? FeeSummary.EMPTY : FeeSummary.ofCents(baseFeeCents[slot], rowCounts[slot]);
+	}
+
+	/**
+	 * size method returns the number of aggregated combinations held by the cube
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * writeTo method writes the dictionaries and the hash table of the cube as a snapshot payload
+	 */
+	void writeTo(DataOutputStream out) throws IOException {
+		FeeSnapshotStore.writeDictionaries(out, dictionaries);
+		out.writeInt(size);
+		FeeSnapshotStore.writeLongs(out, keys);
+		FeeSnapshotStore.writeLongs(out, baseFeeCents);
+		FeeSnapshotStore.writeLongs(out, rowCounts);
+	}
+
+	/**
+	 * readFrom method reads a cube written by writeTo
+	 * @throws IllegalStateException if the payload is not a valid cube
+	 */
+	static FeeCube readFrom(ByteBuffer in) {
+		List<Map<String, Integer>> dictionaries = FeeSnapshotStore.readDictionaries(in);
+		int size = in.getInt();
+		long[] keys = FeeSnapshotStore.readLongs(in);
+		long[] baseFeeCents = FeeSnapshotStore.readLongs(in);
+		long[] rowCounts = FeeSnapshotStore.readLongs(in);
+		if (dictionaries.size() != DIMENSIONS || Integer.bitCount(keys.length) != 1
+				|| baseFeeCents.length != keys.length || rowCounts.length != keys.length || size > keys.length / 2) {
+			throw new IllegalStateException("Invalid fee cube snapshot");
+		}
+		return new FeeCube(dictionaries, keys, baseFeeCents, rowCounts, size);
+	}
+
+	/**
+	 * code method returns the dictionary code of a filter value, ANY for an empty wildcard
+	 * filter or -1 when the value is not present in the data
+	 */
+	private int code(int dimension, String value, boolean wildcard) {
+		if (wildcard && (value == null || value.isEmpty())) {
+			return ANY;
+		}
+		Integer code = dictionaries.get(dimension).get(value);
+		return code == null ? -1 : code;
+	}
+
+	static long pack(int department, int category, int subCategory, int type) {
+		return ((long) department << 48) | ((long) category << 32) | ((long) subCategory << 16) | type;
+	}
+
+	/**
+	 * find method returns the slot holding the key or the empty slot where it belongs,
+	 * 0 marks an empty slot since department is never ANY
+	 */
+	private static int find(long[] keys, long key) {
+		int mask = keys.length - 1;
+		int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+		while (keys[slot] != 0 && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Builder accumulates group summaries into every wildcard combination of their dimensions
+	 */
+	public static final class Builder {
+
+		private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+		private long[] keys = new long[64];
+		private long[] baseFeeCents = new long[64];
+		private long[] rowCounts = new long[64];
+		private int size;
+
+		public Builder() {
+			for (int i = 0; i < DIMENSIONS; i++) {
+				dictionaries.add(new HashMap<>());
+			}
+		}
+
+		/**
+		 * add method adds one department/category/subCategory/type group with its base fee in units
+		 */
+		public Builder add(String department, String category, String subCategory, String type, double baseFee,
+				long rowCount) {
+			return addCents(department, category, subCategory, type, FixedPointFees.toCents(baseFee), rowCount);
+		}
+
+		/**
+		 * addCents method adds one department/category/subCategory/type group with its base fee in cents
+		 * @throws IllegalStateException if a dimension has more distinct values than fit in its code
+		 */
+		public Builder addCents(String department, String category, String subCategory, String type,
+				long baseFeeCents, long rowCount) {
+			int[] codes = { encode(0, department), encode(1, category), encode(2, subCategory), encode(3, type) };
+			for (int wildcards = 0; wildcards < 8; wildcards++) {
+				long key = pack(codes[0],
+						(wildcards & 1) != 0 ? ANY : codes[1],
+						(wildcards & 2) != 0 ? ANY : codes[2],
+						(wildcards & 4) != 0 ? ANY : codes[3]);
+				accumulate(key, baseFeeCents, rowCount);
+			}
+			return this;
+		}
+
+		public FeeCube build() {
+			List<Map<String, Integer>> frozen = new ArrayList<>();
+			for (Map<String, Integer> dictionary : dictionaries) {
+				// HashMap keeps a null value, which a group can have for an unset column
+				frozen.add(new HashMap<>(dictionary));
+			}
+			return new FeeCube(List.copyOf(frozen), keys.clone(), baseFeeCents.clone(), rowCounts.clone(), size);
+		}
+
+		private int encode(int dimension, String value) {
+			Map<String, Integer> dictionary = dictionaries.get(dimension);
+			Integer code = dictionary.get(value);
+			if (code == null) {
+				if (dictionary.size() >= MAX_CODE) {
+					throw new IllegalStateException("Too many distinct values to encode for dimension " + dimension);
+				}
+				code = dictionary.size() + 1;
+				dictionary.put(value, code);
+			}
+			return code;
+		}
+
+		private void accumulate(long key, long cents, long rowCount) {
+			int slot = find(keys, key);
+			if (keys[slot] == 0) {
+				keys[slot] = key;
+				size++;
+				if (size * 2 > keys.length) {
+					resize();
+					slot = find(keys, key);
+				}
+			}
+			baseFeeCents[slot] = Math.addExact(baseFeeCents[slot], cents);
+			rowCounts[slot] += rowCount;
+		}
+
+		private void resize() {
+			long[] oldKeys = keys;
+			long[] oldBaseFeeCents = baseFeeCents;
+			long[] oldRowCounts = rowCounts;
+			keys = new long[oldKeys.length * 2];
+			baseFeeCents = new long[keys.length];
+			rowCounts = new long[keys.length];
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0) {
+					int slot = find(keys, oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					baseFeeCents[slot] = oldBaseFeeCents[i];
+					rowCounts[slot] = oldRowCounts[i];
+				}
+			}
+		}
+	}
+}
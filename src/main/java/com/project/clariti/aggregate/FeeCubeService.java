@@ -0,0 +1,91 @@
+package com.project.clariti.aggregate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.project.clariti.Repo.FeeCsvRepository;
+import com.project.clariti.dto.FeeSummary;
+
+/**
+ * FeeCubeService keeps the FeeCube used to answer fee queries without the database.
+ * The cube is built from the grouped fee summaries after every upload and saved as a snapshot,
+ * at startup it is loaded from the snapshot unless that is stale or corrupt.
+ * It is swapped in as a whole so readers never see a partially built cube
+ */
+@Service
+public class FeeCubeService implements FeeQueryEngine {
+
+	private static final Logger logger = LogManager.getLogger(FeeCubeService.class);
+
+	@Autowired
+	private FeeCsvRepository repo;
+
+	@Autowired
+	private FeeSnapshotStore snapshots;
+
+	@Value("${fee.cube.enabled:true}")
+	private boolean enabled;
+
+	private volatile FeeCube cube;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void onApplicationReady() {
+		if (!enabled) {
+			return;
+		}
+		FeeCube loaded = snapshots.load(FeeSnapshotStore.Kind.CUBE, FeeCube::readFrom);
+		if (loaded != null) {
+			cube = loaded;
+			logger.info("Fee cube loaded from snapshot with {} combinations", loaded.size());
+			return;
+		}
+		rebuild();
+	}
+
+	/**
+	 * rebuild method aggregates fee_csv_tbl by department/category/subCategory/type and
+	 * replaces the cube and its snapshot, on failure the cube is dropped so queries go to the database
+	 */
+	public synchronized void rebuild() {
+		if (!enabled) {
+			return;
+		}
+		FeeCube built;
+		FeeSnapshotStore.Fingerprint fingerprint;
+		try {
+			// taken before reading the rows, a publish in between leaves a snapshot that is stale
+			fingerprint = snapshots.fingerprint();
+			built = FeeCube.of(repo.getGroupedFeeSummaries());
+			cube = built;
+			logger.info("Fee cube rebuilt with {} combinations", built.size());
+		} catch (RuntimeException e) {
+			cube = null;
+			logger.error("Error building the fee cube, fee queries will use the database: {}", e.getMessage(), e);
+			return;
+		}
+		snapshots.save(FeeSnapshotStore.Kind.CUBE, fingerprint, built::writeTo);
+	}
+
+	/**
+	 * getCube method returns the loaded cube, or null when no cube is loaded
+	 */
+	public FeeCube getCube() {
+		return cube;
+	}
+
+	/**
+	 * lookup method returns the fee summary for the filters from the cube,
+	 * or null when no cube is loaded
+	 */
+	@Override
+	public FeeSummary lookup(String department, String category, String subCategory, String type) {
+		FeeCube current = cube;
+		return current == null ? null : current.lookup(department, category, subCategory, type);
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.project.clariti.aggregate;
+
+import com.project.clariti.dto.FeeSummary;
+
+/**
+ * FeeQueryEngine answers the base fee of a filter combination in place of the database,
+ * the engine getBaseFee uses is chosen with {@code fee.query.engine}
+ */
+public interface FeeQueryEngine {
+
+	enum Type {
+		/** aggregate every query in the database */
+		JPA,
+		/** look the filters up in the pre-aggregated FeeCube */
+		CUBE,
+		/** scan the in-memory FeeColumns */
+		COLUMNAR
+	}
+
+	/**
+	 * lookup method returns the base fee and row count matching the filters, an empty category,
+	 * subCategory or type matches any value, or null when the engine has no data loaded
+	 * and the database has to answer
+	 */
+	FeeSummary lookup(String department, String category, String subCategory, String type);
+}
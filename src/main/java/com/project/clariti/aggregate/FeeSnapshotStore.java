@@ -0,0 +1,362 @@
+package com.project.clariti.aggregate;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.project.clariti.Repo.FeeCsvBulkLoader;
+
+/**
+ * FeeSnapshotStore saves the in-memory query engines to binary snapshot files after they are
+ * built from fee_csv_tbl and loads them back at startup, so fee queries are answered without
+ * first reading the whole table. A snapshot file is a fixed header followed by the payload:
+ * <pre>
+ * int magic, int version, int kind, int source, long generation, long rowCount,
+ * long payloadLength, int payloadCrc32c, then payloadLength bytes
+ * </pre>
+ * big endian. The fingerprint (source, generation, rowCount) identifies the database, the last
+ * published dataset generation and the number of rows, a snapshot whose fingerprint differs from
+ * the database, or whose header or checksum does not match, is not used and the engine is
+ * rebuilt from the database instead. Files are written to a temporary file and moved into place,
+ * so a crash while writing leaves the previous snapshot
+ */
+@Component
+public class FeeSnapshotStore {
+
+	private static final Logger logger = LogManager.getLogger(FeeSnapshotStore.class);
+
+	static final int MAGIC = 0x46454553; // "FEES"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 44;
+
+	/**
+	 * Kind of engine a snapshot file holds, the tag is written to the header
+	 */
+	public enum Kind {
+		CUBE(1, "fee-cube.snapshot"),
+		COLUMNS(2, "fee-columns.snapshot");
+
+		private final int tag;
+		private final String fileName;
+
+		Kind(int tag, String fileName) {
+			this.tag = tag;
+			this.fileName = fileName;
+		}
+
+		public String getFileName() {
+			return fileName;
+		}
+	}
+
+	/**
+	 * Fingerprint of the fee data a snapshot was built from
+	 */
+	public static final class Fingerprint {
+		private final int source;
+		private final long generation;
+		private final long rowCount;
+
+		public Fingerprint(int source, long generation, long rowCount) {
+			this.source = source;
+			this.generation = generation;
+			this.rowCount = rowCount;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Fingerprint)) {
+				return false;
+			}
+			Fingerprint other = (Fingerprint) o;
+			return source == other.source && generation == other.generation && rowCount == other.rowCount;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * source + Long.hashCode(generation)) + Long.hashCode(rowCount);
+		}
+
+		@Override
+		public String toString() {
+			return "generation " + generation + " with " + rowCount + " rows";
+		}
+	}
+
+	/**
+	 * Encoder writes the payload of a snapshot
+	 */
+	@FunctionalInterface
+	interface Encoder {
+		void encode(DataOutputStream out) throws IOException;
+	}
+
+	/**
+	 * Decoder reads the payload of a snapshot from a read-only buffer over the mapped file
+	 */
+	@FunctionalInterface
+	interface Decoder<T> {
+		T decode(ByteBuffer payload);
+	}
+
+	@Autowired
+	private FeeCsvBulkLoader bulkLoader;
+
+	@Value("${fee.snapshot.enabled:true}")
+	private boolean enabled;
+
+	@Value("${fee.snapshot.dir:snapshots}")
+	private Path dir;
+
+	@Value("${spring.datasource.url}")
+	private String datasourceUrl;
+
+	/**
+	 * fingerprint method returns the fingerprint of the fee data currently in the database,
+	 * or null when snapshots are disabled
+	 */
+	public Fingerprint fingerprint() {
+		if (!enabled) {
+			return null;
+		}
+		return new Fingerprint(datasourceUrl.hashCode(), bulkLoader.publishedGeneration(), bulkLoader.countRows());
+	}
+
+	/**
+	 * load method returns the engine decoded from its snapshot when the snapshot matches the
+	 * data in the database, or null when snapshots are disabled or the snapshot is missing,
+	 * stale or corrupt
+	 */
+	<T> T load(Kind kind, Decoder<T> decoder) {
+		if (!enabled) {
+			return null;
+		}
+		Path file = dir.resolve(kind.getFileName());
+		try {
+			long start = System.nanoTime();
+			T engine = read(file, kind, fingerprint(), decoder);
+			logger.info("Loaded {} in {} ms", file, (System.nanoTime() - start) / 1_000_000);
+			return engine;
+		} catch (NoSuchFileException e) {
+			logger.info("No {} snapshot at {}, building it from the database", kind, file);
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Snapshot {} not used, building it from the database: {}", file, e.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * save method writes the snapshot of an engine built from the data of the fingerprint,
+	 * a failure is logged and leaves the previous snapshot, the engine is still used
+	 */
+	void save(Kind kind, Fingerprint fingerprint, Encoder encoder) {
+		if (!enabled || fingerprint == null) {
+			return;
+		}
+		Path file = dir.resolve(kind.getFileName());
+		try {
+			Files.createDirectories(dir);
+			write(file, kind, fingerprint, encoder);
+			logger.info("Saved {} snapshot of {} to {}", kind, fingerprint, file);
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Error saving snapshot {}: {}", file, e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * write method writes the snapshot to a temporary file next to the file, forces it to disk
+	 * and moves it over the file
+	 */
+	static void write(Path file, Kind kind, Fingerprint fingerprint, Encoder encoder) throws IOException {
+		Path dir = file.toAbsolutePath().getParent();
+		Path temp = Files.createTempFile(dir, kind.getFileName(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				channel.position(HEADER_SIZE);
+				CRC32C crc = new CRC32C();
+				// the channel is closed by the outer try, so the stream is only flushed
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+						new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+				encoder.encode(out);
+				out.flush();
+				long payloadLength = channel.position() - HEADER_SIZE;
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+						.putInt(MAGIC)
+						.putInt(VERSION)
+						.putInt(kind.tag)
+						.putInt(fingerprint.source)
+						.putLong(fingerprint.generation)
+						.putLong(fingerprint.rowCount)
+						.putLong(payloadLength)
+						.putInt((int) crc.getValue())
+						.flip();
+				while (header.hasRemaining()) {
+					channel.write(header, header.position());
+				}
+				channel.force(true);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * read method maps the snapshot file, checks its header against the kind and fingerprint
+	 * and the checksum of its payload, and decodes the payload
+	 * @throws IOException if the file cannot be read, is stale or corrupt
+	 */
+	static <T> T read(Path file, Kind kind, Fingerprint fingerprint, Decoder<T> decoder) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE) {
+				throw new IOException("file is shorter than the snapshot header");
+			}
+			// the mapping stays valid after the channel is closed
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.getInt() != MAGIC) {
+			throw new IOException("not a fee snapshot file");
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException("snapshot version " + version + " is not supported, expected " + VERSION);
+		}
+		if (buffer.getInt() != kind.tag) {
+			throw new IOException("file is not a " + kind + " snapshot");
+		}
+		Fingerprint saved = new Fingerprint(buffer.getInt(), buffer.getLong(), buffer.getLong());
+		if (saved.source != fingerprint.source) {
+			throw new IOException("snapshot was saved for another database");
+		}
+		if (!saved.equals(fingerprint)) {
+			throw new IOException("snapshot of " + saved + " is stale, the database has " + fingerprint);
+		}
+		long payloadLength = buffer.getLong();
+		int payloadCrc = buffer.getInt();
+		if (payloadLength != buffer.capacity() - HEADER_SIZE) {
+			throw new IOException("payload is " + (buffer.capacity() - HEADER_SIZE) + " bytes, expected "
+					+ payloadLength);
+		}
+		ByteBuffer payload = buffer.slice(HEADER_SIZE, (int) payloadLength);
+		CRC32C crc = new CRC32C();
+		crc.update(payload.duplicate());
+		if ((int) crc.getValue() != payloadCrc) {
+			throw new IOException("payload checksum does not match");
+		}
+		try {
+			return decoder.decode(payload);
+		} catch (RuntimeException e) {
+			throw new IOException("payload cannot be decoded: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * writeDictionaries method writes the value to code dictionaries of the dimensions,
+	 * null values included
+	 */
+	static void writeDictionaries(DataOutputStream out, List<Map<String, Integer>> dictionaries) throws IOException {
+		out.writeInt(dictionaries.size());
+		for (Map<String, Integer> dictionary : dictionaries) {
+			out.writeInt(dictionary.size());
+			for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+				if (entry.getKey() == null) {
+					out.writeInt(-1);
+				} else {
+					byte[] bytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+				}
+				out.writeInt(entry.getValue());
+			}
+		}
+	}
+
+	static List<Map<String, Integer>> readDictionaries(ByteBuffer in) {
+		int count = in.getInt();
+		List<Map<String, Integer>> dictionaries = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int size = in.getInt();
+			// HashMap keeps a null value, which a row can have for an unset column
+			Map<String, Integer> dictionary = new HashMap<>(size * 2);
+			for (int j = 0; j < size; j++) {
+				int length = in.getInt();
+				String value = null;
+				if (length >= 0) {
+					byte[] bytes = new byte[length];
+					in.get(bytes);
+					value = new String(bytes, StandardCharsets.UTF_8);
+				}
+				dictionary.put(value, in.getInt());
+			}
+			dictionaries.add(dictionary);
+		}
+		return List.copyOf(dictionaries);
+	}
+
+	static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+		out.writeInt(values.length);
+		for (long value : values) {
+			out.writeLong(value);
+		}
+	}
+
+	static long[] readLongs(ByteBuffer in) {
+		long[] values = new long[in.getInt()];
+		in.asLongBuffer().get(values);
+		in.position(in.position() + values.length * Long.BYTES);
+		return values;
+	}
+
+	static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		out.writeInt(values.length);
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	static int[] readInts(ByteBuffer in) {
+		int[] values = new int[in.getInt()];
+		in.asIntBuffer().get(values);
+		in.position(in.position() + values.length * Integer.BYTES);
+		return values;
+	}
+
+	static void writeShorts(DataOutputStream out, short[] values) throws IOException {
+		out.writeInt(values.length);
+		for (short value : values) {
+			out.writeShort(value);
+		}
+	}
+
+	static short[] readShorts(ByteBuffer in) {
+		short[] values = new short[in.getInt()];
+		in.asShortBuffer().get(values);
+		in.position(in.position() + values.length * Short.BYTES);
+		return values;
+	}
+}
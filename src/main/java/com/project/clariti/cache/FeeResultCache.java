@@ -0,0 +1,177 @@
+package com.project.clariti.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.project.clariti.dto.FeeCacheStats;
+import com.project.clariti.dto.FeeSummary;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * FeeResultCache is a bounded LRU cache of fee summaries keyed on the four filter values,
+ * entries expire after {@code fee.cache.ttl} and the whole cache is invalidated when an
+ * upload commits new data. The entries are split over up to MAX_STRIPES stripes by key hash,
+ * each an LRU map with its own lock, so concurrent lookups of different keys rarely wait on
+ * each other. A stripe holds at least MIN_STRIPE_SIZE entries, small caches have one stripe and
+ * stay an exact LRU. The hit, miss and eviction counts and the size are published as
+ * fee.cache.* meters
+ */
+@Component
+public class FeeResultCache implements MeterBinder {
+
+	private static final int MAX_STRIPES = 16;
+	private static final int MIN_STRIPE_SIZE = 256;
+
+	private final boolean enabled;
+	private final int maxSize;
+	private final long ttlNanos;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	private final Stripe[] stripes;
+
+	// bumped on every invalidation so a value computed from older data is not cached
+	private final AtomicLong generation = new AtomicLong();
+
+	public FeeResultCache(@Value("${fee.cache.enabled:true}") boolean enabled,
+			@Value("${fee.cache.max-size:10000}") int maxSize,
+			@Value("${fee.cache.ttl:10m}") Duration ttl) {
+		this.enabled = enabled;
+		this.maxSize = maxSize;
+		this.ttlNanos = ttl.toNanos();
+		int stripeCount = Math.min(MAX_STRIPES, Math.max(1, Integer.highestOneBit(maxSize / MIN_STRIPE_SIZE)));
+		this.stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			// the first stripes take the remainder so the capacities add up to maxSize
+			stripes[i] = new Stripe(maxSize / stripeCount + (i < maxSize % stripeCount ? 1 : 0));
+		}
+	}
+
+	/**
+	 * get method returns the cached summary for the filters or computes it with the loader
+	 * and caches it, an empty and a null filter value are the same key
+	 */
+	public FeeSummary get(String department, String category, String subCategory, String type,
+			Supplier<FeeSummary> loader) {
+		if (!enabled) {
+			return loader.get();
+		}
+		List<String> key = List.of(normalize(department), normalize(category), normalize(subCategory),
+				normalize(type));
+		Stripe stripe = stripe(key);
+		long loadGeneration;
+		synchronized (stripe) {
+			Entry entry = stripe.get(key);
+			if (entry != null) {
+				if (System.nanoTime() - entry.createdAt < ttlNanos) {
+					hits.increment();
+					return entry.summary;
+				}
+				stripe.remove(key);
+				evictions.increment();
+			}
+			misses.increment();
+			loadGeneration = generation.get();
+		}
+		// computed outside the lock so one slow query does not block other keys
+		FeeSummary summary = loader.get();
+		synchronized (stripe) {
+			// invalidateAll bumps the generation before it clears the stripes
+			if (loadGeneration == generation.get()) {
+				stripe.put(key, new Entry(summary, System.nanoTime()));
+			}
+		}
+		return summary;
+	}
+
+	/**
+	 * invalidateAll method drops every cached summary, called after an upload commits
+	 */
+	public void invalidateAll() {
+		generation.incrementAndGet();
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				stripe.clear();
+			}
+		}
+	}
+
+	public FeeCacheStats getStats() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return new FeeCacheStats(hits.sum(), misses.sum(), evictions.sum(), size, maxSize);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("fee.cache.requests", hits, LongAdder::sum)
+				.description("Fee result cache lookups").tag("result", "hit").register(registry);
+		FunctionCounter.builder("fee.cache.requests", misses, LongAdder::sum)
+				.description("Fee result cache lookups").tag("result", "miss").register(registry);
+		FunctionCounter.builder("fee.cache.evictions", evictions, LongAdder::sum)
+				.description("Fee result cache entries evicted or expired").register(registry);
+		Gauge.builder("fee.cache.size", this, cache -> cache.getStats().getSize())
+				.description("Fee result cache entries").register(registry);
+	}
+
+	private static String normalize(String value) {
+		return value == null ? "" : value;
+	}
+
+	private Stripe stripe(List<String> key) {
+		int hash = key.hashCode();
+		return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+	}
+
+	/**
+	 * Stripe is an access ordered map dropping its least recently used entry beyond its capacity,
+	 * guarded by its own monitor
+	 */
+	private final class Stripe extends LinkedHashMap<List<String>, Entry> {
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		private Stripe(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<String>, Entry> eldest) {
+			if (size() > capacity) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private static final class Entry {
+		private final FeeSummary summary;
+		private final long createdAt;
+
+		private Entry(FeeSummary summary, long createdAt) {
+			this.summary = summary;
+			this.createdAt = createdAt;
+		}
+	}
+}
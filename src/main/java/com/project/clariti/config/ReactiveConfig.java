@@ -0,0 +1,69 @@
+package com.project.clariti.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import reactor.core.publisher.Mono;
+
+/**
+ * ReactiveConfig sets up the R2DBC reads of the reactive profile: a pool of R2DBC H2 connections
+ * to the database of {@code spring.datasource.url}, opened in the same process so both drivers see
+ * the same data, and the DatabaseClient over it. The connections run queries lazily so rows
+ * are produced as they are requested instead of the whole result first.
+ * The pool is not a bean, a ConnectionFactory bean would switch off the JDBC DataSource
+ * auto-configuration the rest of the application uses. Requests are served by Netty,
+ * Spring Boot would otherwise pick the Tomcat the servlet stack brings
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig implements DisposableBean {
+
+	private static final String JDBC_H2_PREFIX = "jdbc:h2:";
+
+	private ConnectionPool connectionPool;
+
+	@Bean
+	public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
+
+	@Bean
+	public DatabaseClient databaseClient(@Value("${spring.datasource.url}") String url,
+			@Value("${spring.datasource.username:sa}") String username,
+			@Value("${spring.datasource.password:}") String password,
+			@Value("${fee.reactive.db-pool-size:20}") int poolSize) {
+		if (!url.startsWith(JDBC_H2_PREFIX)) {
+			throw new IllegalStateException("The reactive profile needs an H2 spring.datasource.url, not " + url);
+		}
+		// H2ConnectionFactory adds the jdbc:h2: prefix back
+		H2ConnectionFactory connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+				.url(url.substring(JDBC_H2_PREFIX.length()))
+				.username(username)
+				.password(password)
+				.build());
+		connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+				.initialSize(Math.min(poolSize, 10))
+				.maxSize(poolSize)
+				.postAllocate(connection -> Mono.from(connection.createStatement("SET LAZY_QUERY_EXECUTION TRUE").execute())
+						.flatMap(result -> Mono.from(result.getRowsUpdated()))
+						.then())
+				.build());
+		return DatabaseClient.create(connectionPool);
+	}
+
+	@Override
+	public void destroy() {
+		if (connectionPool != null) {
+			connectionPool.dispose();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.project.clariti.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.coyote.ProtocolHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * VirtualThreadConfig runs every request, and the repository calls it makes, on its own virtual
+ * thread instead of a Tomcat pool thread when {@code fee.web.virtual-threads.enabled} is set.
+ * Concurrency is then capped by the JDBC pool, so the Hikari pool is resized to
+ * {@code fee.web.virtual-threads.db-pool-size} and requests wait for a free connection instead of
+ * a free thread. Virtual threads need Java 21, on an older runtime startup fails instead of
+ * running on the Tomcat pool with only a resized JDBC pool
+ */
+@Configuration
+@ConditionalOnProperty(name = "fee.web.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+	private static final Logger logger = LogManager.getLogger(VirtualThreadConfig.class);
+
+	/**
+	 * @throws IllegalStateException if the runtime has no virtual threads
+	 */
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+		if (!isAvailable()) {
+			throw new IllegalStateException("fee.web.virtual-threads.enabled needs Java 21 or later, this runtime is Java "
+					+ Runtime.version().feature());
+		}
+		return protocolHandler -> {
+			protocolHandler.setExecutor(newVirtualThreadPerTaskExecutor());
+			logger.info("Tomcat requests run on virtual threads");
+		};
+	}
+
+	@Bean
+	public static BeanPostProcessor virtualThreadPoolSizer(
+			@Value("${fee.web.virtual-threads.db-pool-size:50}") int dbPoolSize) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+				if (bean instanceof HikariDataSource dataSource) {
+					dataSource.setMaximumPoolSize(dbPoolSize);
+					dataSource.setMinimumIdle(dbPoolSize);
+				}
+				return bean;
+			}
+		};
+	}
+
+	/**
+	 * isAvailable method returns whether the runtime has virtual threads
+	 */
+	public static boolean isAvailable() {
+		return newVirtualThreadPerTaskExecutorMethod() != null;
+	}
+
+	/**
+	 * newVirtualThreadPerTaskExecutor method returns an executor starting a virtual thread per task.
+	 * Looked up reflectively so the application still builds on Java 17
+	 * @throws IllegalStateException if the runtime has no virtual threads
+	 */
+	static ExecutorService newVirtualThreadPerTaskExecutor() {
+		Method factory = newVirtualThreadPerTaskExecutorMethod();
+		if (factory == null) {
+			throw new IllegalStateException("Virtual threads are not available on Java " + Runtime.version().feature());
+		}
+		try {
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Virtual threads could not be started: " + e.getMessage(), e);
+		}
+	}
+
+	private static Method newVirtualThreadPerTaskExecutorMethod() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+}
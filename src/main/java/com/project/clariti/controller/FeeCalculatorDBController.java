@@ -1,24 +1,48 @@
 package com.project.clariti.controller;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.project.clariti.dto.FeeCacheStats;
+import com.project.clariti.dto.FeeFilter;
+import com.project.clariti.dto.UploadJobStatus;
 import com.project.clariti.service.FeeCalculatorDBService;
+import com.project.clariti.service.UploadJobService;
+import com.project.clariti.utils.FeeExportWriter;
 
+// the reactive profile serves the fee API from ReactiveFeeController instead
 @RestController
 @RequestMapping("/")
+@Profile("!reactive")
 public class FeeCalculatorDBController {
 	
 	@Autowired
 	public FeeCalculatorDBService service;
 	
+	@Autowired
+	private UploadJobService uploadJobs;
+	
+	@Value("${fee.batch.max-size:50000}")
+	private int maxBatchSize;
+	
 	@GetMapping(value = "calculateFeeFromDB")
 	public ResponseEntity<Object> getDepartmentFee(
 			@RequestParam(name="department") String department,
@@ -28,15 +52,133 @@ public class FeeCalculatorDBController {
 		return service.getDepartmentFeeFromDb(department,category,subCategory,type);
 	}
 	
+	@GetMapping(value = "feeBreakdown")
+	public ResponseEntity<Object> getDepartmentFeeBreakdown(
+			@RequestParam(name="department") String department){
+		return service.getDepartmentFeeBreakdown(department);
+	}
+	
+	@PostMapping(value = "calculateFeeFromDB/batch")
+	public ResponseEntity<Object> getDepartmentFees(@RequestBody List<FeeFilter> filters){
+		if(filters.size() > maxBatchSize) {
+			return new ResponseEntity<>("Batch has " + filters.size() + " filters, the maximum is " + maxBatchSize,
+					HttpStatus.BAD_REQUEST);
+		}
+		return ResponseEntity.ok(service.getDepartmentFeesFromDb(filters));
+	}
+	
+	/**
+	 * exportFees method streams every row matching the filters as csv or ndjson, written to the
+	 * response with chunked transfer while the rows are read, the full result is never held
+	 */
+	@GetMapping(value = "exportFees")
+	public ResponseEntity<StreamingResponseBody> exportFees(
+			@RequestParam(name="department") String department,
+			@RequestParam(name="category",required = false, defaultValue = "") String category,
+			@RequestParam(name="subCategory",required = false, defaultValue = "") String subCategory,
+			@RequestParam(name="type",required = false, defaultValue = "") String type,
+			@RequestParam(name="format",required = false, defaultValue = "csv") String format){
+		if(department.isBlank()) {
+			return badRequest("Department is empty");
+		}
+		FeeExportWriter.Format exportFormat;
+		try {
+			exportFormat = FeeExportWriter.Format.of(format);
+		} catch (IllegalArgumentException e) {
+			return badRequest(e.getMessage());
+		}
+		StreamingResponseBody body = out ->
+			service.exportDepartmentDetails(department, category, subCategory, type, exportFormat, out);
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						"attachment; filename=\"fees." + exportFormat.getExtension() + "\"")
+				.body(body);
+	}
+	
+	private static ResponseEntity<StreamingResponseBody> badRequest(String message) {
+		return ResponseEntity.badRequest()
+				.contentType(MediaType.TEXT_PLAIN)
+				.body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+	}
+	
+	@GetMapping(value = "feeCacheStats")
+	public ResponseEntity<FeeCacheStats> getFeeCacheStats(){
+		return ResponseEntity.ok(service.getFeeCacheStats());
+	}
+	
+	/**
+	 * uploadCsv method loads the valid rows of the csv file and returns the upload report,
+	 * rows that fail validation are quarantined and listed in the report
+	 */
 	@PostMapping("/uploadCsv")
-    public ResponseEntity<String> uploadCsv(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Object> uploadCsv(@RequestParam("file") MultipartFile file) {
         try {
-            service.loadCsvDataIntoDatabase(file);
-            return ResponseEntity.status(HttpStatus.OK).body("CSV file uploaded and data processed successfully.");
+            return ResponseEntity.status(HttpStatus.OK).body(service.loadCsvDataIntoDatabase(file));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error processing CSV file: " + e.getMessage());
         }
     }
+	
+	/**
+	 * importCsv method loads a csv file from the server import directory,
+	 * path is relative to {@code csv.import.dir}. Not found when the import is disabled
+	 */
+	@PostMapping("/importCsv")
+	public ResponseEntity<Object> importCsv(@RequestParam("path") String path) {
+		if(!service.isCsvImportEnabled()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Server-side csv import is disabled");
+		}
+		try {
+			return ResponseEntity.ok(service.importCsvFile(path));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body("Error processing CSV file: " + e.getMessage());
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body("Error processing CSV file: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * uploadCsvDelta method writes only the new and changed rows of the csv file,
+	 * with deleteMissing=true the rows whose Id is not in the file are deleted
+	 */
+	@PostMapping("/uploadCsv/delta")
+	public ResponseEntity<Object> uploadCsvDelta(@RequestParam("file") MultipartFile file,
+			@RequestParam(name="deleteMissing", required = false, defaultValue = "false") boolean deleteMissing) {
+		try {
+			return ResponseEntity.ok(service.loadCsvDeltaIntoDatabase(file, deleteMissing));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body("Error processing CSV file: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * submitUploadJob method queues the csv file for loading in the background and returns
+	 * the job at once, its progress is read from GET /uploadJobs/{jobId}
+	 */
+	@PostMapping("/uploadJobs")
+	public ResponseEntity<Object> submitUploadJob(@RequestParam("file") MultipartFile file) {
+		try {
+			return ResponseEntity.status(HttpStatus.ACCEPTED).body(uploadJobs.submit(file));
+		} catch (RejectedExecutionException e) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+					.body("Too many uploads are queued, try again later");
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body("Error processing CSV file: " + e.getMessage());
+		}
+	}
+	
+	@GetMapping("/uploadJobs/{jobId}")
+	public ResponseEntity<Object> getUploadJob(@PathVariable("jobId") String jobId) {
+		UploadJobStatus status = uploadJobs.getStatus(jobId);
+		if(status == null) {
+			return new ResponseEntity<>("No upload job with id " + jobId, HttpStatus.NOT_FOUND);
+		}
+		return ResponseEntity.ok(status);
+	}
 
 }
\ No newline at end of file
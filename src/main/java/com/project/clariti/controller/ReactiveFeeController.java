@@ -0,0 +1,77 @@
+package com.project.clariti.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.project.clariti.dto.FeeCacheStats;
+import com.project.clariti.service.FeeCalculatorDBService;
+import com.project.clariti.service.ReactiveFeeService;
+import com.project.clariti.utils.FeeExportWriter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ReactiveFeeController serves the fee queries and the row export of FeeCalculatorDBController
+ * on WebFlux when the reactive profile is active. Uploads and the other endpoints are only
+ * served by the servlet stack
+ */
+@RestController
+@RequestMapping("/")
+@Profile("reactive")
+public class ReactiveFeeController {
+
+	@Autowired
+	private ReactiveFeeService service;
+
+	@Autowired
+	private FeeCalculatorDBService feeService;
+
+	@GetMapping(value = "calculateFeeFromDB")
+	public Mono<ResponseEntity<Object>> getDepartmentFee(
+			@RequestParam(name="department") String department,
+			@RequestParam(name="category",required = false, defaultValue = "") String category,
+			@RequestParam(name="subCategory",required = false, defaultValue = "") String subCategory,
+			@RequestParam(name="type",required = false, defaultValue = "") String type){
+		return service.getDepartmentFeeFromDb(department,category,subCategory,type);
+	}
+
+	/**
+	 * exportFees method streams every row matching the filters as csv or ndjson,
+	 * rows are read from the database only as fast as the client takes them
+	 */
+	@GetMapping(value = "exportFees")
+	public ResponseEntity<Flux<String>> exportFees(
+			@RequestParam(name="department") String department,
+			@RequestParam(name="category",required = false, defaultValue = "") String category,
+			@RequestParam(name="subCategory",required = false, defaultValue = "") String subCategory,
+			@RequestParam(name="type",required = false, defaultValue = "") String type,
+			@RequestParam(name="format",required = false, defaultValue = "csv") String format){
+		if(department.isBlank()) {
+			return ResponseEntity.badRequest().body(Flux.just("Department is empty"));
+		}
+		FeeExportWriter.Format exportFormat;
+		try {
+			exportFormat = FeeExportWriter.Format.of(format);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Flux.just(e.getMessage()));
+		}
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						"attachment; filename=\"fees." + exportFormat.getExtension() + "\"")
+				.body(service.exportDepartmentDetails(department, category, subCategory, type, exportFormat));
+	}
+
+	@GetMapping(value = "feeCacheStats")
+	public ResponseEntity<FeeCacheStats> getFeeCacheStats(){
+		return ResponseEntity.ok(feeService.getFeeCacheStats());
+	}
+}
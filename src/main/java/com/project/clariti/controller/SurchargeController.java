@@ -0,0 +1,61 @@
+package com.project.clariti.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.project.clariti.service.SurchargeService;
+
+/**
+ * SurchargeController is the admin API of the department surcharges, every change
+ * applies to the next fee request without a restart
+ */
+@RestController
+@RequestMapping("/surcharges")
+public class SurchargeController {
+
+	@Autowired
+	private SurchargeService service;
+
+	@GetMapping
+	public ResponseEntity<Map<String, Float>> getSurcharges() {
+		return ResponseEntity.ok(service.getSurcharges());
+	}
+
+	@PutMapping("/{department}")
+	public ResponseEntity<Object> setSurcharge(@PathVariable("department") String department,
+			@RequestParam("surcharge") float surcharge) {
+		try {
+			return ResponseEntity.ok(service.setSurcharge(department, surcharge));
+		} catch (IllegalArgumentException e) {
+			return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+		}
+	}
+
+	@DeleteMapping("/{department}")
+	public ResponseEntity<Object> removeSurcharge(@PathVariable("department") String department) {
+		if (!service.removeSurcharge(department)) {
+			return new ResponseEntity<>("No surcharge found for department: " + department, HttpStatus.NOT_FOUND);
+		}
+		return ResponseEntity.ok(service.getSurcharges());
+	}
+
+	/**
+	 * reload method reads the surcharges again from department_surcharge_tbl,
+	 * for changes made to the table outside this API
+	 */
+	@PostMapping("/reload")
+	public ResponseEntity<Map<String, Float>> reload() {
+		return ResponseEntity.ok(service.reload());
+	}
+}
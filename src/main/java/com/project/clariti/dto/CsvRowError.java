@@ -0,0 +1,45 @@
+package com.project.clariti.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * CsvRowError is one csv row rejected by an upload: its 1-based data row number, its Id when
+ * it has one, the column holding the bad value, the error and the row as it was read
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CsvRowError {
+
+	private final long rowNumber;
+	private final String id;
+	private final String column;
+	private final String message;
+	private final String record;
+
+	public CsvRowError(long rowNumber, String id, String column, String message, String record) {
+		this.rowNumber = rowNumber;
+		this.id = id;
+		this.column = column;
+		this.message = message;
+		this.record = record;
+	}
+
+	public long getRowNumber() {
+		return rowNumber;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getColumn() {
+		return column;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public String getRecord() {
+		return record;
+	}
+}
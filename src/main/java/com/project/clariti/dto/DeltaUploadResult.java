@@ -0,0 +1,57 @@
+package com.project.clariti.dto;
+
+import java.util.List;
+
+/**
+ * DeltaUploadResult holds the row counts of a delta upload and the errors of the first
+ * rejected rows
+ */
+public class DeltaUploadResult {
+
+	private final long rowsRead;
+	private final long inserted;
+	private final long updated;
+	private final long unchanged;
+	private final long deleted;
+	private final long rejected;
+	private final List<CsvRowError> errors;
+
+	public DeltaUploadResult(long rowsRead, long inserted, long updated, long unchanged, long deleted,
+			long rejected, List<CsvRowError> errors) {
+		this.rowsRead = rowsRead;
+		this.inserted = inserted;
+		this.updated = updated;
+		this.unchanged = unchanged;
+		this.deleted = deleted;
+		this.rejected = rejected;
+		this.errors = errors;
+	}
+
+	public long getRowsRead() {
+		return rowsRead;
+	}
+
+	public long getInserted() {
+		return inserted;
+	}
+
+	public long getUpdated() {
+		return updated;
+	}
+
+	public long getUnchanged() {
+		return unchanged;
+	}
+
+	public long getDeleted() {
+		return deleted;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+
+	public List<CsvRowError> getErrors() {
+		return errors;
+	}
+}
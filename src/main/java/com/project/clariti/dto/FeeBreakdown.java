@@ -0,0 +1,70 @@
+package com.project.clariti.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * FeeBreakdown holds the subtotal of one level of the department fee hierarchy
+ * (department, category, subCategory or type) and the breakdown of its children
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class FeeBreakdown {
+
+	private final String level;
+	private final String name;
+	private final long rowCount;
+	private final double baseFee;
+	private final int fee;
+	private final Float surcharge;
+	private final List<FeeBreakdown> children;
+
+	public FeeBreakdown(String level, String name, long rowCount, double baseFee, int fee, Float surcharge,
+			List<FeeBreakdown> children) {
+		this.level = level;
+		this.name = name;
+		this.rowCount = rowCount;
+		this.baseFee = baseFee;
+		this.fee = fee;
+		this.surcharge = surcharge;
+		this.children = children;
+	}
+
+	public String getLevel() {
+		return level;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * getBaseFee method returns the sum of quantity * price of this level
+	 */
+	public double getBaseFee() {
+		return baseFee;
+	}
+
+	/**
+	 * getFee method returns the rounded base fee with the department surcharge applied,
+	 * or the rounded base fee when the department has no surcharge
+	 */
+	public int getFee() {
+		return fee;
+	}
+
+	/**
+	 * getSurcharge method returns the department surcharge, null when there is none
+	 */
+	public Float getSurcharge() {
+		return surcharge;
+	}
+
+	public List<FeeBreakdown> getChildren() {
+		return children;
+	}
+}
@@ -0,0 +1,68 @@
+package com.project.clariti.dto;
+
+import com.project.clariti.utils.FixedPointFees;
+
+/**
+ * FeeGroupSummary holds the aggregated base fee in exact cents and row count of one
+ * department/category/subCategory/type group
+ */
+public class FeeGroupSummary {
+
+	private final String department;
+	private final String category;
+	private final String subCategory;
+	private final String type;
+	private final long baseFeeCents;
+	private final long rowCount;
+
+	/**
+	 * @param baseFee in units, rounded to the nearest cent
+	 */
+	public FeeGroupSummary(String department, String category, String subCategory, String type,
+			double baseFee, long rowCount) {
+		this(department, category, subCategory, type, FixedPointFees.toCents(baseFee), rowCount);
+	}
+
+	private FeeGroupSummary(String department, String category, String subCategory, String type,
+			long baseFeeCents, long rowCount) {
+		this.department = department;
+		this.category = category;
+		this.subCategory = subCategory;
+		this.type = type;
+		this.baseFeeCents = baseFeeCents;
+		this.rowCount = rowCount;
+	}
+
+	public static FeeGroupSummary ofCents(String department, String category, String subCategory, String type,
+			long baseFeeCents, long rowCount) {
+		return new FeeGroupSummary(department, category, subCategory, type, baseFeeCents, rowCount);
+	}
+
+	public String getDepartment() {
+		return department;
+	}
+
+	public String getCategory() {
+		return category;
+	}
+
+	public String getSubCategory() {
+		return subCategory;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public double getBaseFee() {
+		return FixedPointFees.toUnits(baseFeeCents);
+	}
+
+	public long getBaseFeeCents() {
+		return baseFeeCents;
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+}
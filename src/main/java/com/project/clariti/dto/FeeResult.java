@@ -0,0 +1,71 @@
+package com.project.clariti.dto;
+
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * FeeResult holds the outcome of one filter of a batch fee request: the status and either
+ * the fee or the message that /calculateFeeFromDB would return for the same filter
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FeeResult {
+
+	private final String department;
+	private final String category;
+	private final String subCategory;
+	private final String type;
+	private final int status;
+	private final Object fee;
+	private final String message;
+
+	private FeeResult(FeeFilter filter, int status, Object fee, String message) {
+		this.department = filter.getDepartment();
+		this.category = filter.getCategory();
+		this.subCategory = filter.getSubCategory();
+		this.type = filter.getType();
+		this.status = status;
+		this.fee = fee;
+		this.message = message;
+	}
+
+	/**
+	 * of method builds the result from the single filter response, a numeric body is the fee
+	 * and any other body is reported as the message
+	 */
+	public static FeeResult of(FeeFilter filter, ResponseEntity<Object> response) {
+		Object body = response.getBody();
+		int status = response.getStatusCode().value();
+		return body instanceof Number
+				? new FeeResult(filter, status, body, null)
+				: new FeeResult(filter, status, null, String.valueOf(body));
+	}
+
+	public String getDepartment() {
+		return department;
+	}
+
+	public String getCategory() {
+		return category;
+	}
+
+	public String getSubCategory() {
+		return subCategory;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public Object getFee() {
+		return fee;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+}
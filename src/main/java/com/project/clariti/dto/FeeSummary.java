@@ -0,0 +1,43 @@
+package com.project.clariti.dto;
+
+import com.project.clariti.utils.FixedPointFees;
+
+/**
+ * FeeSummary holds the aggregated base fee (sum of quantity * price) in exact cents
+ * and the number of rows matching a fee filter
+ */
+public class FeeSummary {
+
+	public static final FeeSummary EMPTY = new FeeSummary(0, 0);
+
+	private final long baseFeeCents;
+	private final long rowCount;
+
+	/**
+	 * @param baseFee in units, rounded to the nearest cent
+	 */
+	public FeeSummary(double baseFee, long rowCount) {
+		this(FixedPointFees.toCents(baseFee), rowCount);
+	}
+
+	private FeeSummary(long baseFeeCents, long rowCount) {
+		this.baseFeeCents = baseFeeCents;
+		this.rowCount = rowCount;
+	}
+
+	public static FeeSummary ofCents(long baseFeeCents, long rowCount) {
+		return new FeeSummary(baseFeeCents, rowCount);
+	}
+
+	public double getBaseFee() {
+		return FixedPointFees.toUnits(baseFeeCents);
+	}
+
+	public long getBaseFeeCents() {
+		return baseFeeCents;
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+}
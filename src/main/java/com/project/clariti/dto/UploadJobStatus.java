@@ -0,0 +1,115 @@
+package com.project.clariti.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * UploadJobStatus is the state and progress of a background csv upload
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UploadJobStatus {
+
+	public enum State {
+		QUEUED, RUNNING, SUCCEEDED, FAILED
+	}
+
+	private final String id;
+	private final String fileName;
+	private final State state;
+	private final long bytes;
+	private final long rowsParsed;
+	private final long rowsStaged;
+	private final long rowsPersisted;
+	private final long rowsRejected;
+	private final List<String> errors;
+	private final Instant submittedAt;
+	private final Instant startedAt;
+	private final Instant finishedAt;
+
+	public UploadJobStatus(String id, String fileName, State state, long bytes, long rowsParsed, long rowsStaged,
+			long rowsPersisted, long rowsRejected, List<String> errors, Instant submittedAt, Instant startedAt,
+			Instant finishedAt) {
+		this.id = id;
+		this.fileName = fileName;
+		this.state = state;
+		this.bytes = bytes;
+		this.rowsParsed = rowsParsed;
+		this.rowsStaged = rowsStaged;
+		this.rowsPersisted = rowsPersisted;
+		this.rowsRejected = rowsRejected;
+		this.errors = errors;
+		this.submittedAt = submittedAt;
+		this.startedAt = startedAt;
+		this.finishedAt = finishedAt;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	public long getRowsParsed() {
+		return rowsParsed;
+	}
+
+	/**
+	 * getRowsStaged method returns the rows written to the staging table, not yet visible to fee queries
+	 */
+	public long getRowsStaged() {
+		return rowsStaged;
+	}
+
+	/**
+	 * getRowsPersisted method returns the rows published to fee_csv_tbl, 0 until the upload
+	 * is published and when publishing fails
+	 */
+	public long getRowsPersisted() {
+		return rowsPersisted;
+	}
+
+	public long getRowsRejected() {
+		return rowsRejected;
+	}
+
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	public Instant getSubmittedAt() {
+		return submittedAt;
+	}
+
+	public Instant getStartedAt() {
+		return startedAt;
+	}
+
+	public Instant getFinishedAt() {
+		return finishedAt;
+	}
+
+	/**
+	 * getRowsPerSecond method returns the staged rows per second since the job started,
+	 * up to now while it is running
+	 */
+	public double getRowsPerSecond() {
+		if (startedAt == null) {
+			return 0;
+		}
+		long millis = Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now()).toMillis();
+		return millis == 0 ? 0 : rowsStaged * 1000.0 / millis;
+	}
+}
@@ -0,0 +1,56 @@
+package com.project.clariti.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * UploadReport is the outcome of a csv upload: the rows read, loaded and rejected, the dataset
+ * generation the rejected rows are quarantined under and the errors of the first rejected rows
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UploadReport {
+
+	private final long rowsRead;
+	private final long rowsLoaded;
+	private final long rowsRejected;
+	private final Long generation;
+	private final List<CsvRowError> errors;
+
+	public UploadReport(long rowsRead, long rowsLoaded, long rowsRejected, Long generation,
+			List<CsvRowError> errors) {
+		this.rowsRead = rowsRead;
+		this.rowsLoaded = rowsLoaded;
+		this.rowsRejected = rowsRejected;
+		this.generation = generation;
+		this.errors = errors;
+	}
+
+	public long getRowsRead() {
+		return rowsRead;
+	}
+
+	public long getRowsLoaded() {
+		return rowsLoaded;
+	}
+
+	public long getRowsRejected() {
+		return rowsRejected;
+	}
+
+	public Long getGeneration() {
+		return generation;
+	}
+
+	public List<CsvRowError> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * isErrorsTruncated method tells whether more rows were rejected than errors are listed,
+	 * every rejected row is in fee_csv_quarantine_tbl
+	 */
+	public boolean isErrorsTruncated() {
+		return rowsRejected > errors.size();
+	}
+}
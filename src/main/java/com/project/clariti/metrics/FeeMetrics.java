@@ -0,0 +1,99 @@
+package com.project.clariti.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * FeeMetrics records the fee application meters: per stage timers of uploads and fee queries,
+ * rows matched per query, rows and bytes per upload and the upload rows rejected.
+ * HTTP endpoints and repository calls are timed by Spring Boot as http.server.requests
+ * and spring.data.repository.invocations
+ */
+@Component
+public class FeeMetrics {
+
+	public static final String PARSE = "parse";
+	public static final String VALIDATE = "validate";
+	public static final String MAP = "map";
+	public static final String PERSIST = "persist";
+	public static final String QUERY = "query";
+	public static final String AGGREGATE = "aggregate";
+
+	private final MeterRegistry registry;
+	private final DistributionSummary queryRows;
+	private final DistributionSummary uploadRows;
+	private final DistributionSummary uploadBytes;
+	private final Counter rejectedRows;
+
+	public FeeMetrics(MeterRegistry registry) {
+		this.registry = registry;
+		this.queryRows = DistributionSummary.builder("fee.query.rows")
+				.description("Rows matched by a fee query")
+				.register(registry);
+		this.uploadRows = DistributionSummary.builder("fee.upload.rows")
+				.description("Rows read per csv upload, rejected rows included")
+				.register(registry);
+		this.uploadBytes = DistributionSummary.builder("fee.upload.bytes")
+				.description("Size of each csv upload")
+				.baseUnit("bytes")
+				.register(registry);
+		this.rejectedRows = Counter.builder("fee.upload.rejected.rows")
+				.description("Upload rows rejected by validation and quarantined")
+				.register(registry);
+	}
+
+	/**
+	 * recordIngestStage method records the time an upload spent in one stage
+	 * (parse, validate, map or persist) for one chunk of rows
+	 */
+	public void recordIngestStage(String stage, long nanos) {
+		ingestStageTimer(stage).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void timeIngestStage(String stage, Runnable task) {
+		ingestStageTimer(stage).record(task);
+	}
+
+	/**
+	 * timeQueryStage method times one stage of a fee query: query for the database,
+	 * aggregate for in-memory aggregation
+	 */
+	public <T> T timeQueryStage(String stage, Supplier<T> task) {
+		return Timer.builder("fee.query.stage")
+				.description("Time spent in one stage of a fee query")
+				.tag("stage", stage)
+				.register(registry)
+				.record(task);
+	}
+
+	public void recordQueryRows(long rows) {
+		queryRows.record(rows);
+	}
+
+	public void recordUpload(long rows, long bytes) {
+		uploadRows.record(rows);
+		uploadBytes.record(bytes);
+	}
+
+	public void recordRejectedRows(long rows) {
+		rejectedRows.increment(rows);
+	}
+
+	public MeterRegistry getRegistry() {
+		return registry;
+	}
+
+	private Timer ingestStageTimer(String stage) {
+		return Timer.builder("fee.ingest.stage")
+				.description("Time spent in one stage of a csv upload")
+				.tag("stage", stage)
+				.register(registry);
+	}
+}
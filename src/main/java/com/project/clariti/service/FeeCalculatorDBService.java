@@ -1,8 +1,24 @@
 package com.project.clariti.service;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
@@ -14,56 +30,579 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvException;
+import com.opencsv.CSVParser;
 import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.aggregate.ColumnarFeeService;
+import com.project.clariti.aggregate.FeeCube;
+import com.project.clariti.aggregate.FeeCubeService;
+import com.project.clariti.aggregate.FeeQueryEngine;
+import com.project.clariti.cache.FeeResultCache;
+import com.project.clariti.dto.FeeBreakdown;
+import com.project.clariti.dto.CsvRowError;
+import com.project.clariti.dto.DeltaUploadResult;
+import com.project.clariti.dto.FeeCacheStats;
+import com.project.clariti.dto.FeeFilter;
+import com.project.clariti.dto.FeeGroupSummary;
+import com.project.clariti.dto.FeeResult;
+import com.project.clariti.Repo.FeeCsvBulkLoader;
 import com.project.clariti.Repo.FeeCsvRepository;
-import com.project.clariti.utils.Constants;
+import com.project.clariti.dto.FeeSummary;
+import com.project.clariti.dto.UploadReport;
+import com.project.clariti.metrics.FeeMetrics;
+import com.project.clariti.utils.CsvRowException;
+import com.project.clariti.utils.FeeCsvRowMapper;
+import com.project.clariti.utils.FeeExportWriter;
+import com.project.clariti.utils.FixedPointFees;
+import com.project.clariti.utils.MappedCsvReader;
 
 @Service
 public class FeeCalculatorDBService {
 	
 	private static final Logger logger = LogManager.getLogger(FeeCalculatorDBService.class);
 	
+	private static final List<String> BREAKDOWN_LEVELS = List.of("department", "category", "subCategory", "type");
+	private static final List<Function<FeeGroupSummary, String>> BREAKDOWN_DIMENSIONS = List.of(
+			FeeGroupSummary::getCategory, FeeGroupSummary::getSubCategory, FeeGroupSummary::getType);
+	
 	@Autowired
 	private FeeCsvRepository repo;
 	
+	@Autowired
+	private FeeCsvBulkLoader bulkLoader;
+	
+	@Autowired
+	private FeeCubeService feeCube;
+	
+	@Autowired
+	private ColumnarFeeService columnarStore;
+	
+	@Autowired
+	private FeeResultCache feeCache;
+	
+	@Autowired
+	private SurchargeService surcharges;
+	
+	// held while a staged upload is published and the query engines are swapped
+	private final Object publishLock = new Object();
+	
+	@Value("${fee.query.engine:cube}")
+	private FeeQueryEngine.Type queryEngine;
+	
+	@Autowired
+	private FeeMetrics metrics;
+	
 	@Value("${expected.csv.headers}")
 	private List<String> expectedCsvHeaders;
 	
+	@Value("${csv.ingest.chunk-size:1000}")
+	private int ingestChunkSize;
+	
+	@Value("${csv.ingest.parallel.enabled:true}")
+	private boolean parallelIngest;
+	
+	// 0 uses one worker per available processor
+	@Value("${csv.ingest.parallel.workers:0}")
+	private int ingestWorkers;
+	
+	@Value("${csv.import.dir:}")
+	private String importDir;
+	
+	@Value("${csv.ingest.report.max-errors:100}")
+	private int maxReportedErrors;
+	
 	/**
-	 * loadCsvDataIntoDatabase method loads the csv data from the file into h2 db
+	 * loadCsvDataIntoDatabase method streams the csv data from the file into h2 db,
+	 * reading one row at a time and bulk loading every {@code csv.ingest.chunk-size} rows
+	 * in its own transaction so the whole file is never held in memory.
+	 * The chunks are staged under a new dataset generation and published together when the
+	 * file has been read, so fee queries never see a partly loaded upload and a failed upload
+	 * leaves the table unchanged.
+	 * With {@code csv.ingest.parallel.enabled} the rows are parsed by a pool of workers
+	 * and written in file order, giving the same table contents as the sequential path.
+	 * Every row is validated as it is read: a row without every column, with an empty Id or
+	 * department, a bad quantity or price or an Id already loaded by the upload is quarantined
+	 * in fee_csv_quarantine_tbl and the other rows are loaded. A bad header fails the upload.
+	 * The time of each stage is recorded in the fee.ingest.stage metric
 	 * @param file 
+	 * @return UploadReport with the errors of the first {@code csv.ingest.report.max-errors} rejected rows
 	 */
-	public void loadCsvDataIntoDatabase(MultipartFile file) {
-	    try (CSVReader csvReader = new CSVReader(new InputStreamReader(file.getInputStream()))){
-	        List<String[]> records = csvReader.readAll();
-	        if(validateCsvHeaders(records.get(0))) {
-	        	//load the csv data in entity
-		        List<FeeCsvEntity> entities = 
-		        		records.stream().skip(1).map(columns -> {
-		                	FeeCsvEntity entity = new FeeCsvEntity();
-		                	entity.setId(columns[Constants.ID_INDEX]);
-		                	entity.setName(columns[Constants.NAME_INDEX]);
-		                	entity.setDescription(columns[Constants.DESC_INDEX]);
-		                    entity.setDepartment(columns[Constants.DEPARTMENT_INDEX]);
-		                    entity.setCategory(columns[Constants.CATEGORY_INDEX]);
-		                    entity.setSubCategory(columns[Constants.SUBCATEGORY_INDEX]);
-		                    entity.setType(columns[Constants.TYPE_INDEX]);
-		                    entity.setQuantity(columns[Constants.QUANTITY_INDEX]);
-		                    entity.setPrice(columns[Constants.PRICE_INDEX]);
-		                    return entity;
-		                }).collect(Collectors.toList());
-
-		        // Save entities to the database
-		        repo.saveAll(entities);
-	        }
-	    } catch (IOException | CsvException e) {
+	public UploadReport loadCsvDataIntoDatabase(MultipartFile file) {
+		try {
+			return loadCsvDataIntoDatabase(file.getInputStream(), file.getSize(), IngestProgress.NONE);
+		} catch (IOException e) {
+			logger.error("Error reading CSV file or loading data into the database: {}", e.getMessage(), e);
+			throw new RuntimeException("Error reading CSV file or loading data into the database: " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * loadCsvDataIntoDatabase method loads the csv data of the stream into h2 db as above,
+	 * reporting the rows parsed, staged and rejected to the progress as the upload goes on.
+	 * The staged rows are reported as persisted once the upload is published
+	 * @param input csv data, closed when the load ends
+	 * @param bytes size of the csv data
+	 * @param progress
+	 * @return UploadReport
+	 */
+	public UploadReport loadCsvDataIntoDatabase(InputStream input, long bytes, IngestProgress progress) {
+	    try (StagedUpload upload = new StagedUpload()) {
+	    	UploadValidator validator = new UploadValidator(chunk -> {
+	    		upload.accept(chunk);
+	    		progress.rowsStaged(chunk.size());
+	    	}, upload, progress);
+	    	long rows = ingest(input, bytes, validator, progress);
+	    	publish(upload, List.of(), progress);
+	    	return validator.report(rows);
+	    } catch (IOException e) {
 	        logger.error("Error reading CSV file or loading data into the database: {}", e.getMessage(), e);
 	        throw new RuntimeException("Error reading CSV file or loading data into the database: " + e.getMessage(), e);
 	    }
 	}
 	
+	/**
+	 * loadCsvDeltaIntoDatabase method compares every row of the upload with the stored row of
+	 * the same Id by content hash and writes only the new and changed rows, with deleteMissing
+	 * the stored rows whose Id is not in the upload are deleted. The file is still read in full
+	 * but the database writes, and the cube rebuild, scale with the number of changed rows.
+	 * Rows are validated and quarantined as for a full upload, the stored row of a rejected
+	 * row is kept even with deleteMissing.
+	 * The changed rows and the deletions are published together as one dataset generation
+	 * @param file, deleteMissing
+	 * @return counts of inserted, updated, unchanged, deleted and rejected rows
+	 */
+	public DeltaUploadResult loadCsvDeltaIntoDatabase(MultipartFile file, boolean deleteMissing) {
+		Map<String, Long> storedHashes = bulkLoader.findContentHashes();
+		try (StagedUpload upload = new StagedUpload()) {
+			DeltaWriter delta = new DeltaWriter(storedHashes, upload);
+			UploadValidator validator = new UploadValidator(delta, upload, new IngestProgress() {
+				@Override
+				public void rowRejected(CsvRowError error) {
+					if(error.getId() != null) {
+						storedHashes.remove(error.getId());
+					}
+				}
+			});
+			long rows = ingest(file.getInputStream(), file.getSize(), validator, IngestProgress.NONE);
+			// the writer removed every id of the upload, the rest are missing from it
+			int deleted = publish(upload, deleteMissing ? storedHashes.keySet() : List.of(), IngestProgress.NONE);
+			UploadReport report = validator.report(rows);
+			return new DeltaUploadResult(rows, delta.inserted, delta.updated, delta.unchanged, deleted,
+					report.getRowsRejected(), report.getErrors());
+		} catch (IOException e) {
+			logger.error("Error reading CSV file or loading data into the database: {}", e.getMessage(), e);
+			throw new RuntimeException("Error reading CSV file or loading data into the database: " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * importCsvFile method loads a csv file already on the server, read through a memory mapping
+	 * so fields are scanned in place and only the mapped columns are decoded.
+	 * The path is resolved against {@code csv.import.dir} and must stay inside it, symbolic links
+	 * included. The import is disabled when {@code csv.import.dir} is not set.
+	 * The rows are validated, quarantined and published as one dataset generation as for an upload
+	 * @param path
+	 * @return UploadReport
+	 * @throws IllegalArgumentException if the path is outside the import directory or not a file
+	 * @throws IllegalStateException if the import is disabled
+	 */
+	public UploadReport importCsvFile(String path) {
+		Path file = resolveImportFile(path);
+		try (MappedCsvReader reader = MappedCsvReader.open(file); StagedUpload upload = new StagedUpload()) {
+			UploadValidator validator = new UploadValidator(upload, upload, IngestProgress.NONE);
+			long rowNumber = 0;
+			if(reader.nextRow() && timedValidateCsvHeaders(reader.toArray())) {
+				List<FeeCsvEntity> chunk = new ArrayList<>(ingestChunkSize);
+				List<CsvRowError> rejected = new ArrayList<>();
+				long parseNanos = 0;
+				long mapNanos = 0;
+				while(true) {
+					long start = System.nanoTime();
+					boolean hasRow = reader.nextRow();
+					long parsed = System.nanoTime();
+					parseNanos += parsed - start;
+					if(!hasRow) {
+						break;
+					}
+					if(FeeCsvRowMapper.isBlankRow(reader)) {
+						continue;
+					}
+					try {
+						chunk.add(FeeCsvRowMapper.toEntity(reader, ++rowNumber));
+					} catch (CsvRowException e) {
+						rejected.add(FeeCsvRowMapper.toError(e, reader.toArray(), reader.getRecord()));
+					}
+					mapNanos += System.nanoTime() - parsed;
+					if(chunk.size() + rejected.size() >= ingestChunkSize) {
+						validator.accept(rowNumber - chunk.size() - rejected.size() + 1, chunk, rejected);
+						chunk = new ArrayList<>(ingestChunkSize);
+						rejected = new ArrayList<>();
+					}
+				}
+				if(!chunk.isEmpty() || !rejected.isEmpty()) {
+					validator.accept(rowNumber - chunk.size() - rejected.size() + 1, chunk, rejected);
+				}
+				metrics.recordIngestStage(FeeMetrics.PARSE, parseNanos);
+				metrics.recordIngestStage(FeeMetrics.MAP, mapNanos);
+			}
+			metrics.recordUpload(rowNumber, Files.size(file));
+			publish(upload, List.of(), IngestProgress.NONE);
+			return validator.report(rowNumber);
+		} catch (IOException e) {
+			logger.error("Error reading CSV file or loading data into the database: {}", e.getMessage(), e);
+			throw new RuntimeException("Error reading CSV file or loading data into the database: " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * publish method makes the staged rows and the deletions visible in one transaction and then
+	 * swaps in query engines rebuilt from the new table. Requests already running keep the table,
+	 * cube or columns they started with, which are freed once the last of them finishes.
+	 * Publishes are serialized so generations go live in the order they are published.
+	 * The staged rows are reported as persisted once the publish has committed
+	 * @param upload, deletedIds, progress
+	 * @return number of rows deleted
+	 */
+	private int publish(StagedUpload upload, Collection<String> deletedIds, IngestProgress progress) {
+		if(!upload.isStaged() && deletedIds.isEmpty()) {
+			return 0;
+		}
+		synchronized(publishLock) {
+			long generation = upload.generation();
+			int deleted = bulkLoader.publish(generation, deletedIds);
+			upload.published = true;
+			progress.rowsPersisted(upload.stagedRows);
+			refreshQueryEngines();
+			logger.info("Published dataset generation {}", generation);
+			return deleted;
+		}
+	}
+	
+	/**
+	 * refreshQueryEngines method reloads the in-memory query engines from the table
+	 * and drops the cached results, after every change of fee_csv_tbl
+	 */
+	private void refreshQueryEngines() {
+		feeCube.rebuild();
+		columnarStore.rebuild();
+		feeCache.invalidateAll();
+	}
+	
+	/**
+	 * isCsvImportEnabled method tells whether server-side csv files can be imported,
+	 * which needs a {@code csv.import.dir}
+	 */
+	public boolean isCsvImportEnabled() {
+		return importDir != null && !importDir.isBlank();
+	}
+	
+	private Path resolveImportFile(String path) {
+		if(!isCsvImportEnabled()) {
+			throw new IllegalStateException("Server-side csv import is disabled, csv.import.dir is not set");
+		}
+		try {
+			Path dir = Path.of(importDir).toRealPath();
+			Path file = dir.resolve(path).normalize();
+			if(!file.startsWith(dir) || !Files.isRegularFile(file) || !file.toRealPath().startsWith(dir)) {
+				throw new IllegalArgumentException("No csv file " + path + " in the import directory");
+			}
+			return file;
+		} catch (IOException | InvalidPathException e) {
+			throw new IllegalArgumentException("No csv file " + path + " in the import directory", e);
+		}
+	}
+	
+	/**
+	 * ingest method reads the csv data with the parallel pipeline or sequentially
+	 * and hands every chunk of mapped and rejected rows to the sink
+	 * @return number of rows read
+	 */
+	private long ingest(InputStream input, long bytes, IngestSink sink,
+			IngestProgress progress) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))){
+			long rows;
+			if(parallelIngest) {
+				rows = new ParallelCsvIngestPipeline(ingestWorkers(), ingestChunkSize, metrics)
+						.run(reader, this::timedValidateCsvHeaders, sink, progress::rowsParsed);
+			}else {
+				rows = loadSequentially(reader, sink, progress);
+			}
+			metrics.recordUpload(rows, bytes);
+			return rows;
+		}
+	}
+	
+	/**
+	 * loadSequentially method reads, maps and saves the rows on the calling thread. Records are read
+	 * and parsed, and blank rows skipped, as the parallel pipeline does, so both give the same rows
+	 * and rejected rows with the same row numbers
+	 * @return number of rows read
+	 */
+	private long loadSequentially(BufferedReader reader, IngestSink sink,
+			IngestProgress progress) throws IOException {
+		CSVParser parser = new CSVParser();
+		String header = ParallelCsvIngestPipeline.readRecord(reader);
+		long rowNumber = 0;
+		if(header != null && timedValidateCsvHeaders(parser.parseLine(header))) {
+			List<FeeCsvEntity> chunk = new ArrayList<>(ingestChunkSize);
+			List<CsvRowError> rejected = new ArrayList<>();
+			long parseNanos = 0;
+			long mapNanos = 0;
+			while(true) {
+				long start = System.nanoTime();
+				String record = ParallelCsvIngestPipeline.readRecord(reader);
+				if(record == null) {
+					break;
+				}
+				String[] columns;
+				try {
+					columns = parser.parseLine(record);
+				} catch (IOException e) {
+					columns = null;
+					rejected.add(ParallelCsvIngestPipeline.malformedRecord(++rowNumber, record, e));
+				}
+				long parsed = System.nanoTime();
+				parseNanos += parsed - start;
+				if(columns != null) {
+					if(FeeCsvRowMapper.isBlankRow(columns)) {
+						continue;
+					}
+					try {
+						chunk.add(FeeCsvRowMapper.toEntity(columns, ++rowNumber));
+					} catch (CsvRowException e) {
+						rejected.add(FeeCsvRowMapper.toError(e, columns, record));
+					}
+					mapNanos += System.nanoTime() - parsed;
+				}
+				if(chunk.size() + rejected.size() >= ingestChunkSize) {
+					progress.rowsParsed(chunk.size() + rejected.size());
+					sink.accept(rowNumber - chunk.size() - rejected.size() + 1, chunk, rejected);
+					chunk = new ArrayList<>(ingestChunkSize);
+					rejected = new ArrayList<>();
+				}
+			}
+			// Save the remaining rows of the last partial chunk
+			if(!chunk.isEmpty() || !rejected.isEmpty()) {
+				progress.rowsParsed(chunk.size() + rejected.size());
+				sink.accept(rowNumber - chunk.size() - rejected.size() + 1, chunk, rejected);
+			}
+			metrics.recordIngestStage(FeeMetrics.PARSE, parseNanos);
+			metrics.recordIngestStage(FeeMetrics.MAP, mapNanos);
+		}
+		return rowNumber;
+	}
+	
+	private boolean timedValidateCsvHeaders(String[] csvHeaders) {
+		long start = System.nanoTime();
+		try {
+			return validateCsvHeaders(csvHeaders);
+		} finally {
+			metrics.recordIngestStage(FeeMetrics.VALIDATE, System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * StagedUpload writes the chunks of one upload to the staging rows of its own generation,
+	 * allocated with the first chunk or rejected row, and the rejected rows to the quarantine under
+	 * the same generation. A generation that is not published is discarded on close,
+	 * its quarantined rows are kept
+	 */
+	private class StagedUpload implements Consumer<List<FeeCsvEntity>>, AutoCloseable {
+		private Long generation;
+		private long stagedRows;
+		private boolean published;
+		
+		@Override
+		public void accept(List<FeeCsvEntity> chunk) {
+			long staged = generation();
+			metrics.timeIngestStage(FeeMetrics.PERSIST, () -> bulkLoader.stageChunk(staged, chunk));
+			stagedRows += chunk.size();
+		}
+		
+		private void quarantine(List<CsvRowError> rejected) {
+			long staged = generation();
+			metrics.timeIngestStage(FeeMetrics.PERSIST, () -> bulkLoader.quarantine(staged, rejected));
+		}
+		
+		private long generation() {
+			if(generation == null) {
+				generation = bulkLoader.newGeneration();
+			}
+			return generation;
+		}
+		
+		private boolean isStaged() {
+			return stagedRows > 0;
+		}
+		
+		@Override
+		public void close() {
+			if(generation != null && !published) {
+				bulkLoader.discard(generation);
+			}
+		}
+	}
+	
+	/**
+	 * UploadValidator is the last validation stage of an upload, it gets the chunks in file order
+	 * and rejects the rows repeating an Id of an earlier row, the first row with an Id is loaded.
+	 * The other rows are passed on to the writer and the rejected rows of the chunk are quarantined.
+	 * Ids are kept as 64-bit hashes in an open addressing table, so a 1M row upload needs 16 MB
+	 * at most, only the first {@code csv.ingest.report.max-errors} errors are kept for the report
+	 */
+	private class UploadValidator implements IngestSink {
+		private final Consumer<List<FeeCsvEntity>> writer;
+		private final StagedUpload upload;
+		private final IngestProgress progress;
+		private final List<CsvRowError> errors = new ArrayList<>();
+		// 0 marks an empty slot
+		private long[] idHashes = new long[1024];
+		private int ids;
+		private long loaded;
+		private long rejected;
+		
+		private UploadValidator(Consumer<List<FeeCsvEntity>> writer, StagedUpload upload, IngestProgress progress) {
+			this.writer = writer;
+			this.upload = upload;
+			this.progress = progress;
+		}
+		
+		@Override
+		public void accept(long firstRowNumber, List<FeeCsvEntity> rows, List<CsvRowError> rejectedRows) {
+			List<FeeCsvEntity> valid = new ArrayList<>(rows.size());
+			List<CsvRowError> quarantined = new ArrayList<>(rejectedRows.size());
+			// the rows are the records of the chunk without the rejected ones, in order
+			long rowNumber = firstRowNumber;
+			int nextRejected = 0;
+			for(FeeCsvEntity row : rows) {
+				while(nextRejected < rejectedRows.size() && rejectedRows.get(nextRejected).getRowNumber() == rowNumber) {
+					quarantined.add(rejectedRows.get(nextRejected++));
+					rowNumber++;
+				}
+				if(addId(row.getId())) {
+					valid.add(row);
+				}else {
+					quarantined.add(duplicate(row, rowNumber));
+				}
+				rowNumber++;
+			}
+			quarantined.addAll(rejectedRows.subList(nextRejected, rejectedRows.size()));
+			if(!valid.isEmpty()) {
+				writer.accept(valid);
+				loaded += valid.size();
+			}
+			if(!quarantined.isEmpty()) {
+				upload.quarantine(quarantined);
+				for(CsvRowError error : quarantined) {
+					if(errors.size() < maxReportedErrors) {
+						errors.add(error);
+					}
+					progress.rowRejected(error);
+				}
+				rejected += quarantined.size();
+				metrics.recordRejectedRows(quarantined.size());
+			}
+		}
+		
+		private UploadReport report(long rowsRead) {
+			if(rejected > 0) {
+				logger.warn("Upload generation {} rejected {} of {} rows, first error: {}", upload.generation,
+						rejected, rowsRead, errors.isEmpty() ? "" : errors.get(0).getMessage());
+			}
+			return new UploadReport(rowsRead, loaded, rejected, upload.generation, List.copyOf(errors));
+		}
+		
+		private CsvRowError duplicate(FeeCsvEntity row, long rowNumber) {
+			String[] columns = { row.getId(), row.getName(), row.getDescription(), row.getDepartment(),
+					row.getCategory(), row.getSubCategory(), row.getType(), String.valueOf(row.getQuantity()),
+					row.getPrice().toPlainString() };
+			return new CsvRowError(rowNumber, row.getId(), "Id", "Duplicate Id '" + row.getId() + "' in row "
+					+ rowNumber + ", the first row with it is loaded", FeeCsvRowMapper.toRecord(columns));
+		}
+		
+		/**
+		 * addId method adds the hash of the id, returning false when it was already added
+		 */
+		private boolean addId(String id) {
+			long hash = FeeCsvRowMapper.idHash(id);
+			if(hash == 0) {
+				hash = 1;
+			}
+			int mask = idHashes.length - 1;
+			int slot = (int) ((hash * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+			while(idHashes[slot] != 0) {
+				if(idHashes[slot] == hash) {
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+			idHashes[slot] = hash;
+			if(++ids * 2 > idHashes.length) {
+				long[] old = idHashes;
+				idHashes = new long[old.length * 2];
+				ids = 0;
+				for(long value : old) {
+					if(value != 0) {
+						insertHash(value);
+					}
+				}
+			}
+			return true;
+		}
+		
+		private void insertHash(long hash) {
+			int mask = idHashes.length - 1;
+			int slot = (int) ((hash * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+			while(idHashes[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			idHashes[slot] = hash;
+			ids++;
+		}
+	}
+	
+	/**
+	 * DeltaWriter stages only the rows of each chunk whose content hash differs from the stored
+	 * row, removing every id it sees from the stored hashes. Chunks arrive on one thread,
+	 * after UploadValidator so each id is seen once
+	 */
+	private class DeltaWriter implements Consumer<List<FeeCsvEntity>> {
+		private final Map<String, Long> storedHashes;
+		private final Consumer<List<FeeCsvEntity>> writer;
+		private long inserted;
+		private long updated;
+		private long unchanged;
+		
+		private DeltaWriter(Map<String, Long> storedHashes, Consumer<List<FeeCsvEntity>> writer) {
+			this.storedHashes = storedHashes;
+			this.writer = writer;
+		}
+		
+		@Override
+		public void accept(List<FeeCsvEntity> chunk) {
+			List<FeeCsvEntity> changed = new ArrayList<>();
+			for(FeeCsvEntity entity : chunk) {
+				boolean stored = storedHashes.containsKey(entity.getId());
+				Long storedHash = storedHashes.remove(entity.getId());
+				if(!stored) {
+					changed.add(entity);
+					inserted++;
+				}else if(!entity.getContentHash().equals(storedHash)) {
+					changed.add(entity);
+					updated++;
+				}else {
+					unchanged++;
+				}
+			}
+			if(!changed.isEmpty()) {
+				writer.accept(changed);
+			}
+		}
+	}
+	
+	private int ingestWorkers() {
+		return ingestWorkers > 0 ? ingestWorkers : Runtime.getRuntime().availableProcessors();
+	}
+	
 	/**
 	 * validateCsvHeaders method validates the csv file headers with expected headers
 	 * if all presents returns true or throws IllegalArgumentException
@@ -103,24 +642,8 @@ public class FeeCalculatorDBService {
 				return new ResponseEntity<>("Department is empty", HttpStatus.BAD_REQUEST);
 			}else {
 				// to calculate base fee
-				Float baseFee = getBaseFee(department, category, subCategory, type);
-				
-				if(baseFee == 0) {
-					
-					String msg = "There is no data for : " +department+" "
-							+category+" "+subCategory+" "+type;
-					return new ResponseEntity<>(msg.trim(),HttpStatus.OK);
-				}else if(Constants.DEPARTMENT_SURCHARGE_MAP.containsKey(department)) {
-					
-					// to calculate fee with surcharge
-					float surcharge = Constants.DEPARTMENT_SURCHARGE_MAP.get(department);
-					int baseFeeWithSurCharge = Math.round(baseFee + (baseFee * surcharge));
-					return new ResponseEntity<>(baseFeeWithSurCharge,HttpStatus.OK);
-				}else {
-					
-					return new ResponseEntity<>("No surcharge found for department: "+department+
-							" only base fee:"+ Math.round(baseFee),HttpStatus.OK);
-				}
+				FeeSummary summary = getBaseFeeSummary(department, category, subCategory, type);
+				return departmentFeeResponse(department, category, subCategory, type, summary);
 			}
 		} catch (Exception e) {
 			// Log the exception for debugging purposes
@@ -128,29 +651,242 @@ public class FeeCalculatorDBService {
 			return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
 		}
 	}
+	
+	/**
+	 * getDepartmentFeesFromDb method calculates the fee of every filter in one pass. Each filter is
+	 * served from the result cache or the {@code fee.query.engine} as getBaseFeeSummary does, the
+	 * filters the engine cannot answer are looked up in a cube built from one grouped query over
+	 * the requested departments. Errors are reported per filter
+	 * @param filters
+	 * @return one FeeResult per filter, in request order
+	 */
+	public List<FeeResult> getDepartmentFeesFromDb(List<FeeFilter> filters) {
+		Set<String> departments = filters.stream()
+				.map(FeeFilter::getDepartment)
+				.filter(department -> department != null && !department.isBlank())
+				.collect(Collectors.toSet());
+		// built on the first filter the engine and the cache cannot answer, at most once per batch
+		FeeCube[] groupedCube = new FeeCube[1];
+		
+		// one snapshot for the whole batch, so a surcharge change never splits it
+		Map<String, Float> surchargeSnapshot = surcharges.getSurcharges();
+		List<FeeResult> results = new ArrayList<>(filters.size());
+		for(FeeFilter filter : filters) {
+			ResponseEntity<Object> response;
+			try {
+				if(filter.getDepartment() == null || filter.getDepartment().isBlank()) {
+					response = new ResponseEntity<>("Department is empty", HttpStatus.BAD_REQUEST);
+				}else {
+					FeeSummary summary = feeCache.get(filter.getDepartment(), filter.getCategory(),
+							filter.getSubCategory(), filter.getType(), () -> {
+						FeeSummary engineSummary = lookupBaseFeeSummary(filter.getDepartment(), filter.getCategory(),
+								filter.getSubCategory(), filter.getType());
+						if(engineSummary != null) {
+							return engineSummary;
+						}
+						if(groupedCube[0] == null) {
+							List<FeeGroupSummary> groups = metrics.timeQueryStage(FeeMetrics.QUERY,
+									() -> repo.getGroupedFeeSummaries(departments));
+							groupedCube[0] = metrics.timeQueryStage(FeeMetrics.AGGREGATE, () -> FeeCube.of(groups));
+						}
+						return groupedCube[0].lookup(filter.getDepartment(), filter.getCategory(),
+								filter.getSubCategory(), filter.getType());
+					});
+					metrics.recordQueryRows(summary.getRowCount());
+					response = feeResponse(filter.getDepartment(), filter.getCategory(), filter.getSubCategory(),
+							filter.getType(), summary.getBaseFeeCents(), surchargeSnapshot.get(filter.getDepartment()));
+				}
+			} catch (Exception e) {
+				logger.error("Error while calculating the fee: {}", e.getMessage(), e);
+				response = new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+			}
+			results.add(FeeResult.of(filter, response));
+		}
+		return results;
+	}
+	
+	/**
+	 * exportDepartmentDetails method writes every row matching the filters to the output stream
+	 * in the format while the rows are read from the database, so memory use stays the same
+	 * whatever the number of rows. The csv header is flushed before the query starts
+	 * @param department, category, subCategory, type, format, out
+	 * @return number of rows written
+	 */
+	public long exportDepartmentDetails(String department, String category, String subCategory, String type,
+			FeeExportWriter.Format format, OutputStream out) throws IOException {
+		try (FeeExportWriter writer = FeeExportWriter.open(format, out, expectedCsvHeaders)) {
+			writer.flush();
+			long rows = bulkLoader.queryRows(department, category, subCategory, type, row -> {
+				try {
+					writer.write(row);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			logger.info("Exported {} rows for department {}", rows, department);
+			return rows;
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+	
+	/**
+	 * getDepartmentFeeBreakdown method returns the base fee and surcharged fee of the department
+	 * and of every category, subCategory and type under it, with subtotals at each level,
+	 * from one grouped aggregation
+	 * @param department
+	 * @return ResponseEntity
+	 */
+	public ResponseEntity<Object> getDepartmentFeeBreakdown(String department) {
+		try {
+			if(department.isBlank()) {
+				return new ResponseEntity<>("Department is empty", HttpStatus.BAD_REQUEST);
+			}
+			List<FeeGroupSummary> groups = metrics.timeQueryStage(FeeMetrics.QUERY,
+					() -> repo.getGroupedFeeSummaries(List.of(department)));
+			if(groups.isEmpty()) {
+				return new ResponseEntity<>("There is no data for : " + department, HttpStatus.OK);
+			}
+			Float surcharge = surcharges.getSurcharge(department);
+			FeeBreakdown breakdown = metrics.timeQueryStage(FeeMetrics.AGGREGATE,
+					() -> toBreakdown(0, department, groups, surcharge));
+			metrics.recordQueryRows(breakdown.getRowCount());
+			return new ResponseEntity<>(breakdown, HttpStatus.OK);
+		} catch (Exception e) {
+			logger.error("Error while calculating the fee breakdown: {}", e.getMessage(), e);
+			return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+	
+	/**
+	 * toBreakdown method sums the groups into a node of the given level and recursively
+	 * splits them by the next dimension, children are ordered by name
+	 */
+	private FeeBreakdown toBreakdown(int level, String name, List<FeeGroupSummary> groups, Float surcharge) {
+		long baseFeeCents = 0;
+		long rowCount = 0;
+		for(FeeGroupSummary group : groups) {
+			baseFeeCents = Math.addExact(baseFeeCents, group.getBaseFeeCents());
+			rowCount += group.getRowCount();
+		}
+		List<FeeBreakdown> children = new ArrayList<>();
+		if(level < BREAKDOWN_DIMENSIONS.size()) {
+			Function<FeeGroupSummary, String> dimension = BREAKDOWN_DIMENSIONS.get(level);
+			Map<String, List<FeeGroupSummary>> byChild = groups.stream().collect(Collectors.groupingBy(
+					group -> Objects.toString(dimension.apply(group), ""), TreeMap::new, Collectors.toList()));
+			byChild.forEach((childName, childGroups) ->
+					children.add(toBreakdown(level + 1, childName, childGroups, surcharge)));
+		}
+		// fee rounded the same way /calculateFeeFromDB rounds the fee of the same filter
+		int fee = surcharge == null ? Math.toIntExact(FixedPointFees.roundToUnits(baseFeeCents))
+				: surchargedFee(baseFeeCents, surcharge);
+		return new FeeBreakdown(BREAKDOWN_LEVELS.get(level), name, rowCount, FixedPointFees.toUnits(baseFeeCents),
+				fee, level == 0 ? surcharge : null, children);
+	}
+	
+	/**
+	 * surchargedFee method applies the surcharge, taken to the nearest basis point, to the exact
+	 * base fee and rounds the result HALF_UP to whole units
+	 */
+	private static int surchargedFee(long baseFeeCents, float surcharge) {
+		return Math.toIntExact(FixedPointFees.surchargedFee(baseFeeCents, FixedPointFees.toBasisPoints(surcharge)));
+	}
+	
+	/**
+	 * feeResponse method applies the department surcharge to the base fee, or describes
+	 * why no surcharged fee can be returned
+	 * @param surcharge of the department, null when it has none
+	 */
+	private ResponseEntity<Object> feeResponse(String department, String category, String subCategory,
+			String type, long baseFeeCents, Float surcharge) {
+		if(baseFeeCents == 0) {
+			
+			String msg = "There is no data for : " +department+" "
+					+category+" "+subCategory+" "+type;
+			return new ResponseEntity<>(msg.trim(),HttpStatus.OK);
+		}else if(surcharge != null) {
+			
+			// to calculate fee with surcharge
+			int baseFeeWithSurCharge = surchargedFee(baseFeeCents, surcharge);
+			return new ResponseEntity<>(baseFeeWithSurCharge,HttpStatus.OK);
+		}else {
+			
+			return new ResponseEntity<>("No surcharge found for department: "+department+
+					" only base fee:"+ FixedPointFees.roundToUnits(baseFeeCents),HttpStatus.OK);
+		}
+	}
 
 	/**
 	 * getBaseFee method calculates the base fee based on the filter values 
-	 * base fee = qty * price
+	 * base fee = sum of qty * price, served from the result cache when present,
+	 * otherwise answered by the {@code fee.query.engine} (the fee cube or the in-memory columns)
+	 * when it has data loaded or aggregated by the database.
+	 * An engine lookup is timed as the aggregate stage and a database aggregation as the query stage
 	 * @param department, category, sub_category, type
 	 * @return base fee
 	 */
 	public Float getBaseFee(String department, String category, String subCategory, String type) {
-		Float baseFee = 0f;
-		List<FeeCsvEntity> feeDetails = repo.getDepartmentDetails(department,category,subCategory,type);
-
-		//to calculate the fee
-		for(FeeCsvEntity feeDetail : feeDetails){
-			try {
-				baseFee = baseFee + Float.valueOf(feeDetail.getQuantity())
-				* Float.valueOf(feeDetail.getPrice());
-			} catch (NumberFormatException ex) {
-				// Handle invalid numeric values
-				logger.error("Invalid numeric value: {}", ex.getMessage(), ex);
-				throw new RuntimeException("Invalid numeric value: " + ex.getMessage(), ex);
-			}
+		return (float) getBaseFeeSummary(department, category, subCategory, type).getBaseFee();
+	}
+	
+	/**
+	 * getBaseFeeSummary method returns the base fee in exact cents and the row count
+	 * of the filter values, found as described for getBaseFee
+	 * @param department, category, sub_category, type
+	 * @return FeeSummary
+	 */
+	public FeeSummary getBaseFeeSummary(String department, String category, String subCategory, String type) {
+		FeeSummary summary = feeCache.get(department, category, subCategory, type, () -> {
+			FeeSummary engineSummary = lookupBaseFeeSummary(department,category,subCategory,type);
+			return engineSummary != null ? engineSummary : metrics.timeQueryStage(FeeMetrics.QUERY,
+					() -> repo.getFeeSummary(department,category,subCategory,type));
+		});
+		metrics.recordQueryRows(summary.getRowCount());
+		return summary;
+	}
+	
+	/**
+	 * lookupBaseFeeSummary method returns the base fee summary of the filter values from the
+	 * in-memory {@code fee.query.engine} without going to the database,
+	 * null when the database has to answer
+	 */
+	FeeSummary lookupBaseFeeSummary(String department, String category, String subCategory, String type) {
+		FeeQueryEngine engine = queryEngine();
+		return engine == null ? null : metrics.timeQueryStage(FeeMetrics.AGGREGATE,
+				() -> engine.lookup(department,category,subCategory,type));
+	}
+	
+	/**
+	 * departmentFeeResponse method returns the getDepartmentFeeFromDb response
+	 * for a base fee summary found elsewhere
+	 */
+	ResponseEntity<Object> departmentFeeResponse(String department, String category, String subCategory,
+			String type, FeeSummary summary) {
+		return feeResponse(department, category, subCategory, type, summary.getBaseFeeCents(),
+				surcharges.getSurcharge(department));
+	}
+	
+	/**
+	 * queryEngine method returns the engine selected by {@code fee.query.engine},
+	 * null when every query goes to the database
+	 */
+	private FeeQueryEngine queryEngine() {
+		switch(queryEngine) {
+			case COLUMNAR:
+				return columnarStore;
+			case CUBE:
+				return feeCube;
+			default:
+				return null;
 		}
-		return baseFee;
+	}
+	
+	/**
+	 * getFeeCacheStats method returns the hit, miss and eviction counts of the fee result cache
+	 * @return FeeCacheStats
+	 */
+	public FeeCacheStats getFeeCacheStats() {
+		return feeCache.getStats();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.project.clariti.service;
+
+import com.project.clariti.dto.CsvRowError;
+
+/**
+ * IngestProgress receives the progress of a csv upload, rowsParsed may be called
+ * from several parse workers at once. rowsStaged is called for every chunk written to the
+ * staging table and rowsPersisted once with every staged row when the upload is published,
+ * so an upload that fails to publish persists nothing. rowRejected is called for every row
+ * that is quarantined instead of loaded, in file order
+ */
+public interface IngestProgress {
+
+	IngestProgress NONE = new IngestProgress() {
+	};
+
+	default void rowsParsed(long rows) {
+	}
+
+	default void rowsStaged(long rows) {
+	}
+
+	default void rowsPersisted(long rows) {
+	}
+
+	default void rowRejected(CsvRowError error) {
+	}
+}
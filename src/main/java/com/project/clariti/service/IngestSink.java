@@ -0,0 +1,17 @@
+package com.project.clariti.service;
+
+import java.util.List;
+
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.dto.CsvRowError;
+
+/**
+ * IngestSink receives a csv upload chunk by chunk in file order: the 1-based row number of the
+ * first record of the chunk, the rows that were mapped and the rows of the same records that
+ * were rejected, in row order. Either list may be empty
+ */
+@FunctionalInterface
+interface IngestSink {
+
+	void accept(long firstRowNumber, List<FeeCsvEntity> rows, List<CsvRowError> rejected);
+}
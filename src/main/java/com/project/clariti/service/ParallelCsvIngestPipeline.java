@@ -0,0 +1,385 @@
+package com.project.clariti.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+import com.opencsv.CSVParser;
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.dto.CsvRowError;
+import com.project.clariti.metrics.FeeMetrics;
+import com.project.clariti.utils.CsvRowException;
+import com.project.clariti.utils.FeeCsvRowMapper;
+
+/**
+ * ParallelCsvIngestPipeline loads a csv upload in three stages: the calling thread reads raw
+ * records and splits them into blocks, a pool of workers parses and maps the blocks to
+ * FeeCsvEntity and a single writer saves the blocks in file order.
+ * At most {@code workers * 4} blocks are in flight, so a slow writer holds back the reader.
+ * Blocks are written in the same order and chunks as the sequential path, so the table ends up
+ * the same. A row that fails validation is handed to the sink with the rejected rows of its block,
+ * any other error stops the upload after the blocks before it are written. Workers skip blank rows
+ * with the rule of the sequential path, so row numbers are only known in file order and the writer
+ * assigns them
+ */
+class ParallelCsvIngestPipeline {
+
+	private static final long POLL_MILLIS = 100;
+	private static final AtomicInteger PIPELINE_IDS = new AtomicInteger();
+
+	private static final Block<String> END_OF_INPUT = new Block<>(-1, List.of(), List.of());
+	private static final Block<FeeCsvEntity> END_OF_BLOCKS = new Block<>(-1, List.of(), List.of());
+
+	private final int workers;
+	private final int blockSize;
+	private final FeeMetrics metrics;
+	private LongConsumer parsedRows;
+	private final Semaphore inFlight;
+	private final BlockingQueue<Block<String>> parseQueue;
+	private final BlockingQueue<Block<FeeCsvEntity>> writeQueue = new LinkedBlockingQueue<>();
+
+	// lowest block that failed to parse or read, blocks from it on are not written
+	private long failedBlock = Long.MAX_VALUE;
+	private Exception blockFailure;
+	private volatile boolean aborted;
+
+	ParallelCsvIngestPipeline(int workers, int blockSize, FeeMetrics metrics) {
+		this.workers = workers;
+		this.blockSize = blockSize;
+		this.metrics = metrics;
+		int maxInFlight = workers * 4;
+		this.inFlight = new Semaphore(maxInFlight);
+		// room for every in-flight block plus one end marker per worker, so puts never block
+		this.parseQueue = new ArrayBlockingQueue<>(maxInFlight + workers);
+	}
+
+	/**
+	 * run method reads the header, validates it and loads the remaining records
+	 * @return number of rows read, loaded or rejected
+	 */
+	long run(BufferedReader reader, Predicate<String[]> headerValidator, IngestSink sink) throws IOException {
+		return run(reader, headerValidator, sink, rows -> { });
+	}
+
+	/**
+	 * run method loads the records as above and reports the rows of every parsed block
+	 * to parsedRows, called from the worker threads
+	 * @return number of rows read, loaded or rejected
+	 */
+	long run(BufferedReader reader, Predicate<String[]> headerValidator, IngestSink sink, LongConsumer parsedRows)
+			throws IOException {
+		this.parsedRows = parsedRows;
+		String header = readRecord(reader);
+		if (header == null || !headerValidator.test(new CSVParser().parseLine(header))) {
+			return 0;
+		}
+
+		int pipelineId = PIPELINE_IDS.incrementAndGet();
+		AtomicInteger threadIds = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(workers + 1, runnable -> {
+			Thread thread = new Thread(runnable, "csv-ingest-" + pipelineId + "-" + threadIds.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		long rowsRead;
+		try {
+			Future<Long> writer = executor.submit(() -> write(sink));
+			List<Future<?>> parsers = new ArrayList<>();
+			for (int i = 0; i < workers; i++) {
+				parsers.add(executor.submit(this::parse));
+			}
+			read(reader);
+			for (Future<?> parser : parsers) {
+				parser.get();
+			}
+			rowsRead = writer.get();
+		} catch (ExecutionException e) {
+			// the writer failed, rethrow its error as the sequential path would have
+			aborted = true;
+			throw propagate(e.getCause());
+		} catch (InterruptedException e) {
+			aborted = true;
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("CSV ingest was interrupted", e);
+		} finally {
+			executor.shutdownNow();
+		}
+		if (blockFailure != null) {
+			throw propagate(blockFailure);
+		}
+		return rowsRead;
+	}
+
+	/**
+	 * read method is the reader stage, it splits the input into blocks of raw records and
+	 * queues them for the workers, then queues one end marker per worker
+	 */
+	private void read(BufferedReader reader) throws InterruptedException {
+		long blockNumber = 0;
+		try {
+			List<String> records = new ArrayList<>(blockSize);
+			String record;
+			while (!stopped() && (record = readRecord(reader)) != null) {
+				records.add(record);
+				if (records.size() == blockSize) {
+					submit(new Block<>(blockNumber++, records, List.of()));
+					records = new ArrayList<>(blockSize);
+				}
+			}
+			if (!records.isEmpty() && !stopped()) {
+				submit(new Block<>(blockNumber, records, List.of()));
+			}
+		} catch (IOException e) {
+			failBlock(blockNumber, e);
+		} finally {
+			for (int i = 0; i < workers; i++) {
+				parseQueue.put(END_OF_INPUT);
+			}
+		}
+	}
+
+	private void submit(Block<String> block) throws InterruptedException {
+		while (!inFlight.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+			if (stopped()) {
+				return;
+			}
+		}
+		parseQueue.put(block);
+	}
+
+	/**
+	 * parse method is the worker stage, it parses and maps every record of a block, skipping blank
+	 * rows and collecting the records that fail validation by their index among the rows of the block,
+	 * and records the parse and map time of the block
+	 */
+	private Void parse() throws InterruptedException {
+		CSVParser parser = new CSVParser();
+		while (!aborted) {
+			Block<String> block = parseQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+			if (block == null) {
+				continue;
+			}
+			if (block == END_OF_INPUT) {
+				writeQueue.put(END_OF_BLOCKS);
+				break;
+			}
+			if (isAfterFailure(block.number)) {
+				inFlight.release();
+				continue;
+			}
+			try {
+				List<FeeCsvEntity> entities = new ArrayList<>(block.records.size());
+				List<Rejection> rejected = new ArrayList<>();
+				int rows = 0;
+				long parseNanos = 0;
+				long mapNanos = 0;
+				for (String record : block.records) {
+					long start = System.nanoTime();
+					String[] columns;
+					try {
+						columns = parser.parseLine(record);
+					} catch (IOException e) {
+						rejected.add(new Rejection(rows++, record, null, e));
+						continue;
+					}
+					long parsed = System.nanoTime();
+					parseNanos += parsed - start;
+					if (FeeCsvRowMapper.isBlankRow(columns)) {
+						continue;
+					}
+					try {
+						// numbered within the block, a rejected row is numbered again by the writer
+						entities.add(FeeCsvRowMapper.toEntity(columns, rows + 1));
+					} catch (CsvRowException e) {
+						rejected.add(new Rejection(rows, record, columns, null));
+					}
+					rows++;
+					mapNanos += System.nanoTime() - parsed;
+				}
+				metrics.recordIngestStage(FeeMetrics.PARSE, parseNanos);
+				metrics.recordIngestStage(FeeMetrics.MAP, mapNanos);
+				parsedRows.accept(rows);
+				writeQueue.put(new Block<>(block.number, entities, rejected));
+			} catch (RuntimeException e) {
+				failBlock(block.number, e);
+				inFlight.release();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * write method is the writer stage, it hands the mapped blocks to the sink in block order,
+	 * holding back blocks that arrive ahead of the next one to write, and numbers their rows
+	 */
+	private long write(IngestSink sink) throws InterruptedException {
+		Map<Long, Block<FeeCsvEntity>> pending = new HashMap<>();
+		long nextBlock = 0;
+		long rowsRead = 0;
+		int finishedWorkers = 0;
+		try {
+			while (finishedWorkers < workers && !aborted) {
+				Block<FeeCsvEntity> next = writeQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (next == null) {
+					continue;
+				}
+				if (next == END_OF_BLOCKS) {
+					finishedWorkers++;
+				} else {
+					pending.put(next.number, next);
+				}
+				Block<FeeCsvEntity> block;
+				while (!isAfterFailure(nextBlock) && (block = pending.remove(nextBlock)) != null) {
+					long firstRowNumber = rowsRead + 1;
+					List<CsvRowError> rejected = new ArrayList<>(block.rejected.size());
+					for (Rejection rejection : block.rejected) {
+						rejected.add(rejection.toError(firstRowNumber + rejection.index));
+					}
+					sink.accept(firstRowNumber, block.records, rejected);
+					rowsRead += block.records.size() + rejected.size();
+					nextBlock++;
+					inFlight.release();
+				}
+			}
+		} catch (RuntimeException e) {
+			aborted = true;
+			throw e;
+		}
+		return rowsRead;
+	}
+
+	private synchronized void failBlock(long blockNumber, Exception e) {
+		if (blockNumber < failedBlock) {
+			failedBlock = blockNumber;
+			blockFailure = e;
+		}
+	}
+
+	private synchronized boolean isAfterFailure(long blockNumber) {
+		return blockNumber >= failedBlock;
+	}
+
+	private synchronized boolean stopped() {
+		return aborted || failedBlock != Long.MAX_VALUE;
+	}
+
+	/**
+	 * readRecord method returns the next csv record, joining lines while a quoted field is open
+	 * the same way CSVReader does, or null at the end of the input
+	 */
+	static String readRecord(BufferedReader reader) throws IOException {
+		String line = reader.readLine();
+		if (line == null || quoteCount(line) % 2 == 0) {
+			return line;
+		}
+		StringBuilder record = new StringBuilder(line);
+		long quotes = quoteCount(line);
+		while (quotes % 2 != 0 && (line = reader.readLine()) != null) {
+			record.append('\n').append(line);
+			quotes += quoteCount(line);
+		}
+		return record.toString();
+	}
+
+	/**
+	 * quoteCount method counts the quotes of the line that are not escaped by a backslash,
+	 * the default escape character of CSVParser
+	 */
+	private static long quoteCount(String line) {
+		long quotes = 0;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '\\') {
+				i++;
+			} else if (c == '"') {
+				quotes++;
+			}
+		}
+		return quotes;
+	}
+
+	/**
+	 * malformedRecord method returns the error of a record CSVParser could not parse
+	 */
+	static CsvRowError malformedRecord(long rowNumber, String record, IOException e) {
+		return new CsvRowError(rowNumber, null, null,
+				"Malformed csv record in row " + rowNumber + ": " + e.getMessage(), record);
+	}
+
+	private static RuntimeException propagate(Throwable cause) throws IOException {
+		if (cause instanceof IOException ioException) {
+			throw ioException;
+		}
+		if (cause instanceof Error error) {
+			throw error;
+		}
+		return cause instanceof RuntimeException runtimeException
+				? runtimeException
+				: new IllegalStateException(cause.getMessage(), cause);
+	}
+
+	/**
+	 * Block is a numbered run of consecutive records, raw strings before parsing
+	 * and entities with the rejected records after
+	 */
+	private static final class Block<T> {
+		private final long number;
+		private final List<T> records;
+		private final List<Rejection> rejected;
+
+		private Block(long number, List<T> records, List<Rejection> rejected) {
+			this.number = number;
+			this.records = records;
+			this.rejected = rejected;
+		}
+	}
+
+	/**
+	 * Rejection is a record of a block that could not be parsed or mapped, kept by its index among
+	 * the rows of the block until the writer knows its row number
+	 */
+	private static final class Rejection {
+		private final int index;
+		private final String record;
+		private final String[] columns;
+		private final IOException malformed;
+
+		private Rejection(int index, String record, String[] columns, IOException malformed) {
+			this.index = index;
+			this.record = record;
+			this.columns = columns;
+			this.malformed = malformed;
+		}
+
+		/**
+		 * toError method returns the error of the record as the sequential path reports it,
+		 * mapping the columns again so the message carries the row number
+		 */
+		private CsvRowError toError(long rowNumber) {
+			if (malformed != null) {
+				return malformedRecord(rowNumber, record, malformed);
+			}
+			try {
+				FeeCsvRowMapper.toEntity(columns, rowNumber);
+			} catch (CsvRowException e) {
+				return FeeCsvRowMapper.toError(e, columns, record);
+			}
+			throw new IllegalStateException("Row " + rowNumber + " was rejected but maps without error");
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.project.clariti.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.Repo.ReactiveFeeRepository;
+import com.project.clariti.dto.FeeSummary;
+import com.project.clariti.metrics.FeeMetrics;
+import com.project.clariti.utils.FeeExportWriter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ReactiveFeeService answers the fee API of the reactive profile without blocking the event loop.
+ * A fee is looked up in the in-memory {@code fee.query.engine} when it has data loaded and is
+ * otherwise aggregated through R2DBC. The result cache is not used, its loader blocks the caller.
+ * Exported rows are read and written as the client takes them, so a slow client slows the
+ * query instead of filling memory
+ */
+@Service
+@Profile("reactive")
+public class ReactiveFeeService {
+
+	private static final Logger logger = LogManager.getLogger(ReactiveFeeService.class);
+
+	@Autowired
+	private FeeCalculatorDBService feeService;
+
+	@Autowired
+	private ReactiveFeeRepository repo;
+
+	@Autowired
+	private FeeMetrics metrics;
+
+	@Value("${expected.csv.headers}")
+	private List<String> expectedCsvHeaders;
+
+	/**
+	 * getDepartmentFeeFromDb method returns the same responses as
+	 * FeeCalculatorDBService.getDepartmentFeeFromDb
+	 * @param department, category, sub_category, type
+	 * @return Mono of ResponseEntity
+	 */
+	public Mono<ResponseEntity<Object>> getDepartmentFeeFromDb(String department, String category,
+			String subCategory, String type) {
+		if(department.isBlank()) {
+			return Mono.just(new ResponseEntity<>("Department is empty", HttpStatus.BAD_REQUEST));
+		}
+		return Mono.defer(() -> {
+			FeeSummary summary = feeService.lookupBaseFeeSummary(department, category, subCategory, type);
+			return summary != null ? Mono.just(summary) : repo.getFeeSummary(department, category, subCategory, type);
+		})
+		.map(summary -> {
+			metrics.recordQueryRows(summary.getRowCount());
+			return feeService.departmentFeeResponse(department, category, subCategory, type, summary);
+		})
+		.onErrorResume(e -> {
+			logger.error("Error while calculating the fee: {}", e.getMessage(), e);
+			return Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+		});
+	}
+
+	/**
+	 * exportDepartmentDetails method streams the rows matching the filters in the format,
+	 * one element per row after the csv header, with the same output as the servlet export
+	 * @param department, category, subCategory, type, format
+	 * @return Flux of text
+	 */
+	public Flux<String> exportDepartmentDetails(String department, String category, String subCategory,
+			String type, FeeExportWriter.Format format) {
+		return Flux.using(() -> new RowEncoder(format, expectedCsvHeaders),
+				encoder -> Flux.concat(encoder.header(),
+						repo.findRows(department, category, subCategory, type).map(encoder::encode)),
+				RowEncoder::close);
+	}
+
+	/**
+	 * RowEncoder writes one row at a time through a FeeExportWriter and returns its text,
+	 * used by one subscription at a time
+	 */
+	private static final class RowEncoder {
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private final FeeExportWriter writer;
+
+		private RowEncoder(FeeExportWriter.Format format, List<String> csvHeaders) throws IOException {
+			writer = FeeExportWriter.open(format, buffer, csvHeaders);
+		}
+
+		private Mono<String> header() {
+			return Mono.fromSupplier(this::drain).filter(header -> !header.isEmpty());
+		}
+
+		private String encode(FeeCsvEntity row) {
+			try {
+				writer.write(row);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return drain();
+		}
+
+		private String drain() {
+			try {
+				writer.flush();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			String text = buffer.toString(StandardCharsets.UTF_8);
+			buffer.reset();
+			return text;
+		}
+
+		private void close() {
+			try {
+				writer.close();
+			} catch (IOException e) {
+				logger.warn("Error closing export writer: {}", e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.project.clariti.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.project.clariti.Entity.DepartmentSurchargeEntity;
+import com.project.clariti.Repo.DepartmentSurchargeRepository;
+import com.project.clariti.utils.Constants;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * SurchargeService serves the department surcharges of department_surcharge_tbl from an immutable
+ * snapshot. Fee requests read the current snapshot without locking, changes are written to the
+ * table and then published by swapping in a new snapshot, so a request sees either the old or
+ * the new surcharges, never a mix. The table is seeded with Constants.DEPARTMENT_SURCHARGE_MAP
+ * when empty
+ */
+@Service
+public class SurchargeService {
+
+	private static final Logger logger = LogManager.getLogger(SurchargeService.class);
+
+	@Autowired
+	private DepartmentSurchargeRepository repo;
+
+	private final AtomicReference<Map<String, Float>> surcharges =
+			new AtomicReference<>(Constants.DEPARTMENT_SURCHARGE_MAP);
+
+	@PostConstruct
+	public void init() {
+		try {
+			if (repo.count() == 0) {
+				Constants.DEPARTMENT_SURCHARGE_MAP.forEach((department, surcharge) ->
+						repo.save(new DepartmentSurchargeEntity(department, surcharge)));
+			}
+			reload();
+		} catch (RuntimeException e) {
+			logger.error("Error loading the department surcharges, using the defaults: {}", e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * getSurcharge method returns the surcharge of the department, or null when it has none
+	 */
+	public Float getSurcharge(String department) {
+		return department == null ? null : surcharges.get().get(department);
+	}
+
+	/**
+	 * getSurcharges method returns the current snapshot of every department surcharge
+	 */
+	public Map<String, Float> getSurcharges() {
+		return surcharges.get();
+	}
+
+	/**
+	 * setSurcharge method saves the surcharge of the department and publishes it
+	 * @throws IllegalArgumentException if the department is blank or the surcharge is not
+	 * a number of at least -1
+	 */
+	public synchronized Map<String, Float> setSurcharge(String department, float surcharge) {
+		if (department == null || department.isBlank()) {
+			throw new IllegalArgumentException("Department is empty");
+		}
+		if (!Float.isFinite(surcharge) || surcharge < -1) {
+			throw new IllegalArgumentException("Invalid surcharge " + surcharge + ", it must be at least -1");
+		}
+		repo.save(new DepartmentSurchargeEntity(department, surcharge));
+		return reload();
+	}
+
+	/**
+	 * removeSurcharge method deletes the surcharge of the department and publishes the change
+	 * @return true if the department had a surcharge
+	 */
+	public synchronized boolean removeSurcharge(String department) {
+		if (!repo.existsById(department)) {
+			return false;
+		}
+		repo.deleteById(department);
+		reload();
+		return true;
+	}
+
+	/**
+	 * reload method reads the table into a new snapshot and swaps it in,
+	 * picking up changes made to the table directly
+	 * @return the new snapshot
+	 */
+	public synchronized Map<String, Float> reload() {
+		Map<String, Float> loaded = new HashMap<>();
+		for (DepartmentSurchargeEntity entity : repo.findAll()) {
+			if (entity.getSurcharge() != null) {
+				loaded.put(entity.getDepartment(), entity.getSurcharge());
+			}
+		}
+		Map<String, Float> snapshot = Map.copyOf(loaded);
+		surcharges.set(snapshot);
+		logger.info("Loaded {} department surcharges", snapshot.size());
+		return snapshot;
+	}
+}
@@ -0,0 +1,89 @@
+package com.project.clariti.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.project.clariti.dto.CsvRowError;
+import com.project.clariti.dto.UploadJobStatus;
+import com.project.clariti.dto.UploadJobStatus.State;
+import com.project.clariti.dto.UploadReport;
+
+/**
+ * UploadJob is the live progress of one background upload, updated by the ingest threads
+ * and read by status requests. The errors are the errors of the rejected rows listed by the
+ * upload report, or the error that failed the upload
+ */
+class UploadJob implements IngestProgress {
+
+	private final String id = UUID.randomUUID().toString();
+	private final String fileName;
+	private final long bytes;
+	private final Instant submittedAt = Instant.now();
+	private final AtomicLong rowsParsed = new AtomicLong();
+	private final AtomicLong rowsStaged = new AtomicLong();
+	private final AtomicLong rowsPersisted = new AtomicLong();
+	private final AtomicLong rowsRejected = new AtomicLong();
+	private final List<String> errors = new CopyOnWriteArrayList<>();
+
+	private volatile State state = State.QUEUED;
+	private volatile Instant startedAt;
+	private volatile Instant finishedAt;
+
+	UploadJob(String fileName, long bytes) {
+		this.fileName = fileName;
+		this.bytes = bytes;
+	}
+
+	String getId() {
+		return id;
+	}
+
+	long getBytes() {
+		return bytes;
+	}
+
+	@Override
+	public void rowsParsed(long rows) {
+		rowsParsed.addAndGet(rows);
+	}
+
+	@Override
+	public void rowsStaged(long rows) {
+		rowsStaged.addAndGet(rows);
+	}
+
+	@Override
+	public void rowsPersisted(long rows) {
+		rowsPersisted.addAndGet(rows);
+	}
+
+	@Override
+	public void rowRejected(CsvRowError error) {
+		rowsRejected.incrementAndGet();
+	}
+
+	void start() {
+		startedAt = Instant.now();
+		state = State.RUNNING;
+	}
+
+	void succeed(UploadReport report) {
+		report.getErrors().forEach(error -> errors.add(error.getMessage()));
+		finishedAt = Instant.now();
+		state = State.SUCCEEDED;
+	}
+
+	void fail(String error) {
+		errors.add(error);
+		finishedAt = Instant.now();
+		state = State.FAILED;
+	}
+
+	UploadJobStatus status() {
+		return new UploadJobStatus(id, fileName, state, bytes, rowsParsed.get(), rowsStaged.get(),
+				rowsPersisted.get(), rowsRejected.get(), List.copyOf(errors), submittedAt, startedAt, finishedAt);
+	}
+}
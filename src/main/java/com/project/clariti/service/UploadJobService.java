@@ -0,0 +1,132 @@
+package com.project.clariti.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.project.clariti.dto.UploadJobStatus;
+import com.project.clariti.dto.UploadReport;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * UploadJobService runs csv uploads in the background. An upload is copied to a temporary file
+ * so the request can return at once, then loaded by one of {@code upload.jobs.max-concurrent}
+ * job threads, at most {@code upload.jobs.queue-capacity} uploads wait for a free thread.
+ * Limiting the concurrent loads keeps threads and connections free for fee queries,
+ * the status of the last {@code upload.jobs.history-size} finished jobs is kept
+ */
+@Service
+public class UploadJobService {
+
+	private static final Logger logger = LogManager.getLogger(UploadJobService.class);
+
+	private final FeeCalculatorDBService service;
+	private final int historySize;
+	private final ThreadPoolExecutor executor;
+
+	private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+	private final Queue<String> finishedJobs = new ConcurrentLinkedQueue<>();
+
+	public UploadJobService(FeeCalculatorDBService service,
+			@Value("${upload.jobs.max-concurrent:2}") int maxConcurrent,
+			@Value("${upload.jobs.queue-capacity:10}") int queueCapacity,
+			@Value("${upload.jobs.history-size:100}") int historySize) {
+		this.service = service;
+		this.historySize = historySize;
+		AtomicInteger threadIds = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "upload-job-" + threadIds.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	/**
+	 * submit method saves the upload to a temporary file and queues it for loading
+	 * @return status of the queued job
+	 * @throws RejectedExecutionException when the queue is full
+	 */
+	public UploadJobStatus submit(MultipartFile file) throws IOException {
+		Path csvFile = Files.createTempFile("fee-upload-", ".csv");
+		UploadJob job = new UploadJob(file.getOriginalFilename(), file.getSize());
+		try {
+			file.transferTo(csvFile);
+			jobs.put(job.getId(), job);
+			executor.execute(() -> run(job, csvFile));
+		} catch (IOException | RuntimeException e) {
+			jobs.remove(job.getId());
+			Files.deleteIfExists(csvFile);
+			throw e;
+		}
+		return job.status();
+	}
+
+	/**
+	 * getStatus method returns the status of the job, or null when it is unknown
+	 */
+	public UploadJobStatus getStatus(String jobId) {
+		UploadJob job = jobs.get(jobId);
+		return job == null ? null : job.status();
+	}
+
+	/**
+	 * run method loads the upload, then retires the job before it shows as finished,
+	 * so a client that sees the job finished also sees the history trimmed
+	 */
+	private void run(UploadJob job, Path csvFile) {
+		job.start();
+		UploadReport report = null;
+		String error = null;
+		try (InputStream input = Files.newInputStream(csvFile)) {
+			report = service.loadCsvDataIntoDatabase(input, job.getBytes(), job);
+		} catch (Exception e) {
+			logger.error("Upload job {} failed: {}", job.getId(), e.getMessage(), e);
+			error = e.getMessage();
+		} finally {
+			try {
+				Files.deleteIfExists(csvFile);
+			} catch (IOException e) {
+				logger.warn("Could not delete upload file {}: {}", csvFile, e.getMessage());
+			}
+			retire(job);
+			if (report != null) {
+				job.succeed(report);
+			} else {
+				job.fail(error);
+			}
+		}
+	}
+
+	private void retire(UploadJob job) {
+		finishedJobs.add(job.getId());
+		while (finishedJobs.size() > historySize) {
+			String oldest = finishedJobs.poll();
+			if (oldest != null) {
+				jobs.remove(oldest);
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
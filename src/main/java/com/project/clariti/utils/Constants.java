@@ -1,6 +1,5 @@
 package com.project.clariti.utils;
 
-import java.util.HashMap;
 import java.util.Map;
 
 public class Constants {
@@ -14,6 +13,7 @@ public class Constants {
 	public static final int TYPE_INDEX = 6;
 	public static final int QUANTITY_INDEX = 7;
 	public static final int PRICE_INDEX = 8;
+	public static final int COLUMN_COUNT = 9;
 
 	public static final String MARKETING_DEPARTMENT = "Marketing";
 	public static final String SALES_DEPARTMENT = "Sales";
@@ -21,13 +21,11 @@ public class Constants {
 	public static final String OPERATIONS_DEPARTMENT = "Operations";
 	public static final String SUPPORT_DEPARTMENT = "Support";
 	
-	public static final Map<String, Float> DEPARTMENT_SURCHARGE_MAP = new HashMap<>();
-	
-	static {
-		DEPARTMENT_SURCHARGE_MAP.put(MARKETING_DEPARTMENT, 0.1f);
-		DEPARTMENT_SURCHARGE_MAP.put(SALES_DEPARTMENT, 0.15f);
-		DEPARTMENT_SURCHARGE_MAP.put(DEVELOPMENT_DEPARTMENT, 0.2f);
-		DEPARTMENT_SURCHARGE_MAP.put(OPERATIONS_DEPARTMENT, -0.15f);
-		DEPARTMENT_SURCHARGE_MAP.put(SUPPORT_DEPARTMENT, -0.5f);
-	}
+	// default surcharges, seeded into department_surcharge_tbl when it is empty
+	public static final Map<String, Float> DEPARTMENT_SURCHARGE_MAP = Map.of(
+			MARKETING_DEPARTMENT, 0.1f,
+			SALES_DEPARTMENT, 0.15f,
+			DEVELOPMENT_DEPARTMENT, 0.2f,
+			OPERATIONS_DEPARTMENT, -0.15f,
+			SUPPORT_DEPARTMENT, -0.5f);
 }
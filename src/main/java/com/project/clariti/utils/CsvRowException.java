@@ -0,0 +1,33 @@
+package com.project.clariti.utils;
+
+/**
+ * CsvRowException reports a csv row that cannot be loaded, with its 1-based data row number
+ * and the column holding the bad value, null when the row as a whole is malformed
+ */
+public class CsvRowException extends IllegalArgumentException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long rowNumber;
+	private final String column;
+
+	public CsvRowException(String message, long rowNumber, String column) {
+		super(message);
+		this.rowNumber = rowNumber;
+		this.column = column;
+	}
+
+	public CsvRowException(String message, long rowNumber, String column, Throwable cause) {
+		super(message, cause);
+		this.rowNumber = rowNumber;
+		this.column = column;
+	}
+
+	public long getRowNumber() {
+		return rowNumber;
+	}
+
+	public String getColumn() {
+		return column;
+	}
+}
@@ -0,0 +1,210 @@
+package com.project.clariti.utils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.opencsv.CSVWriter;
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.dto.CsvRowError;
+
+/**
+ * FeeCsvRowMapper maps a parsed csv row to FeeCsvEntity, checking the column count, the Id and
+ * department and parsing quantity and price once at ingest, so a bad row is reported with its
+ * row number at upload time and never reaches a fee query
+ */
+public class FeeCsvRowMapper {
+
+	public static final int PRICE_SCALE = 2;
+	// digits of the price column, NUMERIC(12, 2)
+	public static final int PRICE_PRECISION = 12;
+
+	private static final long MAX_UNSCALED_PRICE = BigDecimal.TEN.pow(PRICE_PRECISION).longValueExact();
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private static final String ID_COLUMN = "Id";
+	private static final String DEPARTMENT_COLUMN = "Department__c";
+	private static final String QUANTITY_COLUMN = "Quantity__c";
+	private static final String PRICE_COLUMN = "Unit_Price__c";
+
+	private FeeCsvRowMapper() {
+	}
+
+	/**
+	 * isBlankRow method returns whether the parsed row is skipped instead of read as a row:
+	 * a blank line and a line holding only "" both parse to one empty column
+	 */
+	public static boolean isBlankRow(String[] columns) {
+		return columns.length == 1 && columns[0].isEmpty();
+	}
+
+	/**
+	 * isBlankRow method returns whether the current row of the reader is skipped, as above
+	 */
+	public static boolean isBlankRow(MappedCsvReader reader) {
+		return reader.getColumnCount() == 1 && reader.getString(0).isEmpty();
+	}
+
+	/**
+	 * toEntity method maps one csv row using the column indexes in Constants
+	 * @param columns, rowNumber the 1-based data row number used in error messages
+	 * @return FeeCsvEntity
+	 * @throws CsvRowException if the row does not have every column, Id or department is empty
+	 * or quantity or price is not a valid number
+	 */
+	public static FeeCsvEntity toEntity(String[] columns, long rowNumber) {
+		checkColumnCount(columns.length, rowNumber);
+		FeeCsvEntity entity = new FeeCsvEntity();
+		entity.setId(required(columns[Constants.ID_INDEX], "Id", ID_COLUMN, rowNumber));
+		entity.setName(columns[Constants.NAME_INDEX]);
+		entity.setDescription(columns[Constants.DESC_INDEX]);
+		entity.setDepartment(required(columns[Constants.DEPARTMENT_INDEX], "Department", DEPARTMENT_COLUMN, rowNumber));
+		entity.setCategory(columns[Constants.CATEGORY_INDEX]);
+		entity.setSubCategory(columns[Constants.SUBCATEGORY_INDEX]);
+		entity.setType(columns[Constants.TYPE_INDEX]);
+		entity.setQuantity(parseQuantity(columns[Constants.QUANTITY_INDEX], rowNumber));
+		entity.setPrice(parsePrice(columns[Constants.PRICE_INDEX], rowNumber));
+		entity.setContentHash(contentHash(entity));
+		return entity;
+	}
+
+	/**
+	 * toEntity method maps the current row of a MappedCsvReader. Department, category, subCategory
+	 * and type share one String per value and plain numbers are parsed without decoding them,
+	 * anything else goes through parseQuantity and parsePrice so errors read the same
+	 * @param reader, rowNumber the 1-based data row number used in error messages
+	 * @return FeeCsvEntity
+	 * @throws CsvRowException if the row does not have every column, Id or department is empty
+	 * or quantity or price is not a valid number
+	 */
+	public static FeeCsvEntity toEntity(MappedCsvReader reader, long rowNumber) {
+		checkColumnCount(reader.getColumnCount(), rowNumber);
+		FeeCsvEntity entity = new FeeCsvEntity();
+		entity.setId(required(reader.getString(Constants.ID_INDEX), "Id", ID_COLUMN, rowNumber));
+		entity.setName(reader.getString(Constants.NAME_INDEX));
+		entity.setDescription(reader.getString(Constants.DESC_INDEX));
+		entity.setDepartment(required(reader.getSymbol(Constants.DEPARTMENT_INDEX), "Department", DEPARTMENT_COLUMN,
+				rowNumber));
+		entity.setCategory(reader.getSymbol(Constants.CATEGORY_INDEX));
+		entity.setSubCategory(reader.getSymbol(Constants.SUBCATEGORY_INDEX));
+		entity.setType(reader.getSymbol(Constants.TYPE_INDEX));
+		long quantity = reader.parseInt(Constants.QUANTITY_INDEX);
+		entity.setQuantity(quantity != MappedCsvReader.NOT_A_NUMBER && quantity == (int) quantity
+				? Integer.valueOf((int) quantity)
+				: parseQuantity(reader.getString(Constants.QUANTITY_INDEX), rowNumber));
+		long unscaledPrice = reader.parseDecimal(Constants.PRICE_INDEX, PRICE_SCALE);
+		entity.setPrice(unscaledPrice != MappedCsvReader.NOT_A_NUMBER && Math.abs(unscaledPrice) < MAX_UNSCALED_PRICE
+				? BigDecimal.valueOf(unscaledPrice, PRICE_SCALE)
+				: parsePrice(reader.getString(Constants.PRICE_INDEX), rowNumber));
+		entity.setContentHash(contentHash(entity));
+		return entity;
+	}
+
+	private static void checkColumnCount(int columnCount, long rowNumber) {
+		if (columnCount != Constants.COLUMN_COUNT) {
+			throw new CsvRowException("Row " + rowNumber + " has " + columnCount + " columns, expected "
+					+ Constants.COLUMN_COUNT, rowNumber, null);
+		}
+	}
+
+	private static String required(String value, String name, String column, long rowNumber) {
+		if (value == null || value.isBlank()) {
+			throw new CsvRowException(name + " is empty in row " + rowNumber, rowNumber, column);
+		}
+		return value;
+	}
+
+	/**
+	 * toRecord method writes the columns of a row back as one csv record, quoting only where needed,
+	 * used to keep a rejected row as it was uploaded
+	 */
+	public static String toRecord(String[] columns) {
+		StringWriter record = new StringWriter();
+		try (CSVWriter writer = new CSVWriter(record, CSVWriter.DEFAULT_SEPARATOR, CSVWriter.DEFAULT_QUOTE_CHARACTER,
+				CSVWriter.DEFAULT_ESCAPE_CHARACTER, "")) {
+			writer.writeNext(columns, false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return record.toString();
+	}
+
+	/**
+	 * toError method returns the error of a row rejected by toEntity, with the row as it was read
+	 * or, when record is null, written back from its columns
+	 */
+	public static CsvRowError toError(CsvRowException e, String[] columns, String record) {
+		String id = columns.length > Constants.ID_INDEX && !columns[Constants.ID_INDEX].isBlank()
+				? columns[Constants.ID_INDEX] : null;
+		return new CsvRowError(e.getRowNumber(), id, e.getColumn(), e.getMessage(),
+				record != null ? record : toRecord(columns));
+	}
+
+	/**
+	 * idHash method returns the 64-bit FNV-1a hash of an Id, used to find repeated Ids of an upload
+	 * without keeping every Id
+	 */
+	public static long idHash(String id) {
+		return hash(FNV_OFFSET_BASIS, id);
+	}
+
+	/**
+	 * contentHash method returns the 64-bit FNV-1a hash of every column but the id,
+	 * quantity and price hashed as parsed so "5" and "5.00" give the same hash
+	 */
+	public static long contentHash(FeeCsvEntity entity) {
+		long hash = FNV_OFFSET_BASIS;
+		hash = hash(hash, entity.getName());
+		hash = hash(hash, entity.getDescription());
+		hash = hash(hash, entity.getDepartment());
+		hash = hash(hash, entity.getCategory());
+		hash = hash(hash, entity.getSubCategory());
+		hash = hash(hash, entity.getType());
+		hash = hash(hash, String.valueOf(entity.getQuantity()));
+		return hash(hash, entity.getPrice() == null ? "null" : entity.getPrice().toPlainString());
+	}
+
+	private static long hash(long hash, String value) {
+		if (value != null) {
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+				hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+			}
+		}
+		// field separator, so moving characters between columns changes the hash
+		return (hash ^ 0x1f) * FNV_PRIME;
+	}
+
+	/**
+	 * parseQuantity method parses a whole number quantity
+	 */
+	public static Integer parseQuantity(String value, long rowNumber) {
+		try {
+			return Integer.valueOf(value.trim());
+		} catch (NumberFormatException ex) {
+			throw new CsvRowException("Invalid quantity '" + value + "' in row " + rowNumber, rowNumber,
+					QUANTITY_COLUMN, ex);
+		}
+	}
+
+	/**
+	 * parsePrice method parses a price with at most PRICE_SCALE decimal places that fits
+	 * the PRICE_PRECISION digits of the price column
+	 */
+	public static BigDecimal parsePrice(String value, long rowNumber) {
+		try {
+			BigDecimal price = new BigDecimal(value.trim()).setScale(PRICE_SCALE, RoundingMode.UNNECESSARY);
+			if (price.precision() > PRICE_PRECISION) {
+				throw new ArithmeticException("Price has more than " + PRICE_PRECISION + " digits");
+			}
+			return price;
+		} catch (NumberFormatException | ArithmeticException ex) {
+			throw new CsvRowException("Invalid price '" + value + "' in row " + rowNumber, rowNumber, PRICE_COLUMN, ex);
+		}
+	}
+}
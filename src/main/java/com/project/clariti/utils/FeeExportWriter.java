@@ -0,0 +1,155 @@
+package com.project.clariti.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.opencsv.CSVWriter;
+import com.project.clariti.Entity.FeeCsvEntity;
+
+/**
+ * FeeExportWriter writes fee rows one at a time to an output stream as csv, with the upload
+ * header so an export can be uploaded again, or as newline delimited json with one object per
+ * row. Nothing is kept per row, the output is buffered and flushed as the buffer fills
+ */
+public abstract class FeeExportWriter implements Closeable {
+
+	public enum Format {
+		CSV("text/csv", "csv"), NDJSON("application/x-ndjson", "ndjson");
+
+		private final String contentType;
+		private final String extension;
+
+		Format(String contentType, String extension) {
+			this.contentType = contentType;
+			this.extension = extension;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public String getExtension() {
+			return extension;
+		}
+
+		/**
+		 * of method returns the format with the name, ignoring case
+		 * @throws IllegalArgumentException if there is no such format
+		 */
+		public static Format of(String name) {
+			try {
+				return valueOf(name.toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Unknown export format: " + name + ", expected csv or ndjson");
+			}
+		}
+	}
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	/**
+	 * open method returns a writer of the format over the output stream,
+	 * csvHeaders is the header row written by the csv format
+	 */
+	public static FeeExportWriter open(Format format, OutputStream out, List<String> csvHeaders) throws IOException {
+		return format == Format.CSV ? new Csv(out, csvHeaders) : new NdJson(out);
+	}
+
+	/**
+	 * write method writes one row
+	 */
+	public abstract void write(FeeCsvEntity row) throws IOException;
+
+	/**
+	 * flush method sends what has been written so far to the output stream
+	 */
+	public abstract void flush() throws IOException;
+
+	private static String toString(Object value) {
+		return value == null ? null : value.toString();
+	}
+
+	private static final class Csv extends FeeExportWriter {
+		private final CSVWriter writer;
+		private final String[] values;
+
+		private Csv(OutputStream out, List<String> headers) {
+			writer = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			values = new String[headers.size()];
+			writer.writeNext(headers.toArray(String[]::new), false);
+		}
+
+		@Override
+		public void write(FeeCsvEntity row) {
+			values[Constants.ID_INDEX] = row.getId();
+			values[Constants.NAME_INDEX] = row.getName();
+			values[Constants.DESC_INDEX] = row.getDescription();
+			values[Constants.DEPARTMENT_INDEX] = row.getDepartment();
+			values[Constants.CATEGORY_INDEX] = row.getCategory();
+			values[Constants.SUBCATEGORY_INDEX] = row.getSubCategory();
+			values[Constants.TYPE_INDEX] = row.getType();
+			values[Constants.QUANTITY_INDEX] = FeeExportWriter.toString(row.getQuantity());
+			values[Constants.PRICE_INDEX] = row.getPrice() == null ? null : row.getPrice().toPlainString();
+			writer.writeNext(values, false);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			writer.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			writer.close();
+		}
+	}
+
+	private static final class NdJson extends FeeExportWriter {
+		private final JsonGenerator generator;
+
+		private NdJson(OutputStream out) throws IOException {
+			generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+			generator.setRootValueSeparator(null);
+		}
+
+		@Override
+		public void write(FeeCsvEntity row) throws IOException {
+			generator.writeStartObject();
+			generator.writeStringField("id", row.getId());
+			generator.writeStringField("name", row.getName());
+			generator.writeStringField("description", row.getDescription());
+			generator.writeStringField("department", row.getDepartment());
+			generator.writeStringField("category", row.getCategory());
+			generator.writeStringField("subCategory", row.getSubCategory());
+			generator.writeStringField("type", row.getType());
+			generator.writeFieldName("quantity");
+			if (row.getQuantity() == null) {
+				generator.writeNull();
+			} else {
+				generator.writeNumber(row.getQuantity());
+			}
+			generator.writeFieldName("price");
+			generator.writeNumber(row.getPrice());
+			generator.writeEndObject();
+			generator.writeRaw('\n');
+		}
+
+		@Override
+		public void flush() throws IOException {
+			generator.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			generator.close();
+		}
+	}
+}
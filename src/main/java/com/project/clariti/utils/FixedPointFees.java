@@ -0,0 +1,81 @@
+package com.project.clariti.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * FixedPointFees does the fee arithmetic on whole cents held in a primitive long, so a total is
+ * exact and the same in whatever order its rows are added. A surcharge is applied as whole basis
+ * points and the surcharged fee is rounded once, HALF_UP (halves away from zero), to whole units.
+ * Multiplications throw ArithmeticException on overflow instead of wrapping
+ */
+public final class FixedPointFees {
+
+	public static final long CENTS_PER_UNIT = BigDecimal.ONE.movePointRight(FeeCsvRowMapper.PRICE_SCALE).longValue();
+	public static final long BASIS_POINTS_PER_UNIT = 10_000;
+
+	private FixedPointFees() {
+	}
+
+	/**
+	 * toCents method converts a price or sum with at most PRICE_SCALE decimal places to cents
+	 * @throws ArithmeticException if it has more decimal places or does not fit in a long
+	 */
+	public static long toCents(BigDecimal amount) {
+		return amount.setScale(FeeCsvRowMapper.PRICE_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+	}
+
+	/**
+	 * toCents method converts an amount in units to the nearest cent
+	 */
+	public static long toCents(double amount) {
+		return Math.round(amount * CENTS_PER_UNIT);
+	}
+
+	/**
+	 * toUnits method returns the cents as an amount in units, for display
+	 */
+	public static double toUnits(long cents) {
+		return (double) cents / CENTS_PER_UNIT;
+	}
+
+	/**
+	 * lineCents method returns quantity * price of one row in cents
+	 */
+	public static long lineCents(int quantity, long priceCents) {
+		return Math.multiplyExact(quantity, priceCents);
+	}
+
+	/**
+	 * toBasisPoints method converts a surcharge fraction, e.g. 0.15 for 15%, to the nearest
+	 * whole basis point
+	 */
+	public static int toBasisPoints(float surcharge) {
+		return Math.toIntExact(Math.round(surcharge * (double) BASIS_POINTS_PER_UNIT));
+	}
+
+	/**
+	 * roundToUnits method rounds the cents HALF_UP to whole units
+	 */
+	public static long roundToUnits(long cents) {
+		return divideHalfUp(cents, CENTS_PER_UNIT);
+	}
+
+	/**
+	 * surchargedFee method returns base + base * surcharge rounded HALF_UP to whole units,
+	 * computed exactly from the base fee in cents and the surcharge in basis points
+	 */
+	public static long surchargedFee(long baseFeeCents, int surchargeBasisPoints) {
+		long scaled = Math.multiplyExact(baseFeeCents, BASIS_POINTS_PER_UNIT + surchargeBasisPoints);
+		return divideHalfUp(scaled, CENTS_PER_UNIT * BASIS_POINTS_PER_UNIT);
+	}
+
+	private static long divideHalfUp(long dividend, long divisor) {
+		long quotient = dividend / divisor;
+		long remainder = dividend % divisor;
+		if (Math.abs(remainder) * 2 >= divisor) {
+			quotient += Long.signum(dividend);
+		}
+		return quotient;
+	}
+}
@@ -0,0 +1,415 @@
+package com.project.clariti.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * MappedCsvReader reads a csv file through a read-only memory mapping. Row and field boundaries
+ * are found by scanning the mapped bytes, a field is only decoded when it is read, numbers are
+ * parsed straight from the bytes and repeated values such as departments share one String.
+ * Quoted fields with doubled quotes and line breaks, backslash escapes and a leading UTF-8 BOM
+ * are handled as the default CSVParser does, a line holding only "" is a row with one empty field,
+ * which FeeCsvRowMapper.isBlankRow skips like a blank line. Text after the closing quote of a field is ignored, where CSVParser keeps
+ * it, so malformed quoting may not read the same. Large files are mapped in segments, a row must
+ * fit in one segment
+ */
+public class MappedCsvReader implements Closeable {
+
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	/** returned by parseInt and parseDecimal when the field is not a plain number */
+	public static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+	private static final byte QUOTE = '"';
+	private static final byte ESCAPE = '\\';
+	private static final byte COMMA = ',';
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+
+	private final FileChannel channel;
+	private final long fileSize;
+	private final int segmentSize;
+
+	private MappedByteBuffer segment;
+	private long segmentStart;
+	private int segmentLimit;
+	private int position;
+
+	private int columnCount;
+	private int recordStart;
+	private int recordEnd;
+	private int[] fieldStarts = new int[16];
+	private int[] fieldEnds = new int[16];
+	private boolean[] fieldQuoted = new boolean[16];
+	// the field holds doubled quotes or backslash escapes and has to be unescaped
+	private boolean[] fieldEscaped = new boolean[16];
+
+	private byte[] scratch = new byte[256];
+	private final SymbolTable symbols = new SymbolTable();
+
+	private MappedCsvReader(FileChannel channel, int segmentSize) throws IOException {
+		this.channel = channel;
+		this.fileSize = channel.size();
+		this.segmentSize = segmentSize;
+		map(0);
+		if (segmentLimit >= 3 && (segment.get(0) & 0xff) == 0xEF && (segment.get(1) & 0xff) == 0xBB
+				&& (segment.get(2) & 0xff) == 0xBF) {
+			position = 3;
+		}
+	}
+
+	public static MappedCsvReader open(Path file) throws IOException {
+		return open(file, DEFAULT_SEGMENT_SIZE);
+	}
+
+	public static MappedCsvReader open(Path file, int segmentSize) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return new MappedCsvReader(channel, segmentSize);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * nextRow method moves to the next non-empty row, remapping the file from the start
+	 * of the row when it runs past the end of the current segment
+	 * @return false at the end of the file
+	 * @throws IllegalArgumentException if a row does not fit in one segment or a quote is not closed
+	 */
+	public boolean nextRow() throws IOException {
+		while (true) {
+			if (segmentStart + position >= fileSize) {
+				return false;
+			}
+			int rowStart = position;
+			if (scanRow()) {
+				if (columnCount == 1 && fieldStarts[0] == fieldEnds[0] && !fieldQuoted[0]) {
+					// blank line
+					continue;
+				}
+				return true;
+			}
+			long rowOffset = segmentStart + rowStart;
+			if (rowStart == 0 && segmentStart + segmentLimit < fileSize) {
+				throw new IllegalArgumentException("Row at byte " + rowOffset + " is longer than " + segmentSize + " bytes");
+			}
+			if (segmentStart + segmentLimit >= fileSize) {
+				throw new IllegalArgumentException("Unterminated quoted field in row at byte " + rowOffset);
+			}
+			map(rowOffset);
+		}
+	}
+
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	/**
+	 * getString method decodes the field as a new String
+	 */
+	public String getString(int column) {
+		int length = fieldEscaped[column] ? copyUnescaped(column) : copyField(column);
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * getSymbol method returns the field as a String shared by every field with the same bytes,
+	 * meant for low cardinality columns
+	 */
+	public String getSymbol(int column) {
+		if (fieldEscaped[column]) {
+			return getString(column);
+		}
+		int length = copyField(column);
+		return symbols.get(scratch, length);
+	}
+
+	/**
+	 * parseInt method parses a field of digits with an optional sign
+	 * @return the value, or NOT_A_NUMBER if the field is anything else
+	 */
+	public long parseInt(int column) {
+		return parseDecimal(column, 0);
+	}
+
+	/**
+	 * parseDecimal method parses a field of digits with an optional sign and at most scale decimals
+	 * @return the value times 10^scale, or NOT_A_NUMBER if the field is anything else
+	 * or the value times 10^scale could overflow a long
+	 */
+	public long parseDecimal(int column, int scale) {
+		int start = fieldStarts[column];
+		int end = fieldEnds[column];
+		if (start == end || fieldEscaped[column] || end - start > 18) {
+			return NOT_A_NUMBER;
+		}
+		boolean negative = false;
+		byte first = segment.get(start);
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			start++;
+		}
+		long value = 0;
+		int digits = 0;
+		int decimals = -1;
+		for (int i = start; i < end; i++) {
+			byte b = segment.get(i);
+			if (b >= '0' && b <= '9') {
+				value = value * 10 + (b - '0');
+				digits++;
+				if (decimals >= 0) {
+					decimals++;
+				}
+			} else if (b == '.' && decimals < 0 && scale > 0) {
+				decimals = 0;
+			} else {
+				return NOT_A_NUMBER;
+			}
+		}
+		// value < 10^digits, so at most 18 digits once scaled always fit in a long
+		if (digits == 0 || decimals > scale || digits + scale - Math.max(decimals, 0) > 18) {
+			return NOT_A_NUMBER;
+		}
+		for (int i = Math.max(decimals, 0); i < scale; i++) {
+			value *= 10;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * getRecord method returns the row as it is in the file, without its line break
+	 */
+	public String getRecord() {
+		byte[] bytes = new byte[recordEnd - recordStart];
+		segment.get(recordStart, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * toArray method decodes every field of the row, used for the header
+	 */
+	public String[] toArray() {
+		String[] values = new String[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			values[i] = getString(i);
+		}
+		return values;
+	}
+
+	@Override
+	public void close() throws IOException {
+		segment = null;
+		channel.close();
+	}
+
+	private void map(long offset) throws IOException {
+		segmentStart = offset;
+		segmentLimit = (int) Math.min(segmentSize, fileSize - offset);
+		segment = channel.map(FileChannel.MapMode.READ_ONLY, offset, segmentLimit);
+		position = 0;
+	}
+
+	/**
+	 * scanRow method records the field boundaries of the row at the position
+	 * @return false if the row runs past the end of the segment before the end of the file
+	 */
+	private boolean scanRow() {
+		boolean lastSegment = segmentStart + segmentLimit >= fileSize;
+		int p = position;
+		columnCount = 0;
+		while (true) {
+			int start;
+			int end;
+			boolean quoted = p < segmentLimit && segment.get(p) == QUOTE;
+			boolean escaped = false;
+			if (quoted) {
+				start = ++p;
+				while (true) {
+					if (p >= segmentLimit) {
+						return false;
+					}
+					if (segment.get(p) == ESCAPE) {
+						// the escaped byte is part of the field, a line break included
+						escaped = true;
+						p += 2;
+						continue;
+					}
+					if (segment.get(p) == QUOTE) {
+						if (p + 1 < segmentLimit && segment.get(p + 1) == QUOTE) {
+							escaped = true;
+							p += 2;
+							continue;
+						}
+						if (p + 1 >= segmentLimit && !lastSegment) {
+							return false;
+						}
+						end = p++;
+						break;
+					}
+					p++;
+				}
+				// characters after the closing quote, up to the delimiter, are ignored
+				while (p < segmentLimit && !isDelimiter(segment.get(p))) {
+					p++;
+				}
+			} else {
+				start = p;
+				while (p < segmentLimit && !isDelimiter(segment.get(p))) {
+					if (segment.get(p) == ESCAPE) {
+						escaped = true;
+						// a line break ends the row even when escaped, as CSVParser gets one line at a time
+						if (p + 1 < segmentLimit && segment.get(p + 1) != LF && segment.get(p + 1) != CR) {
+							p++;
+						}
+					}
+					p++;
+				}
+				end = p;
+			}
+			if (p >= segmentLimit && !lastSegment) {
+				return false;
+			}
+			addField(start, end, quoted, escaped);
+			if (p >= segmentLimit) {
+				recordStart = position;
+				recordEnd = p;
+				position = p;
+				return true;
+			}
+			byte delimiter = segment.get(p++);
+			if (delimiter == COMMA) {
+				continue;
+			}
+			recordStart = position;
+			recordEnd = p - 1;
+			if (delimiter == CR) {
+				if (p >= segmentLimit && !lastSegment) {
+					return false;
+				}
+				if (p < segmentLimit && segment.get(p) == LF) {
+					p++;
+				}
+			}
+			position = p;
+			return true;
+		}
+	}
+
+	private static boolean isDelimiter(byte b) {
+		return b == COMMA || b == LF || b == CR;
+	}
+
+	private void addField(int start, int end, boolean quoted, boolean escaped) {
+		if (columnCount == fieldStarts.length) {
+			fieldStarts = Arrays.copyOf(fieldStarts, columnCount * 2);
+			fieldEnds = Arrays.copyOf(fieldEnds, columnCount * 2);
+			fieldQuoted = Arrays.copyOf(fieldQuoted, columnCount * 2);
+			fieldEscaped = Arrays.copyOf(fieldEscaped, columnCount * 2);
+		}
+		fieldStarts[columnCount] = start;
+		fieldEnds[columnCount] = end;
+		fieldQuoted[columnCount] = quoted;
+		fieldEscaped[columnCount] = escaped;
+		columnCount++;
+	}
+
+	private int copyField(int column) {
+		int length = fieldEnds[column] - fieldStarts[column];
+		if (length > scratch.length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+		segment.get(fieldStarts[column], scratch, 0, length);
+		return length;
+	}
+
+	/**
+	 * copyUnescaped method copies the field dropping every backslash and keeping the byte it
+	 * escapes, and in a quoted field turning doubled quotes into one. Both are ASCII bytes,
+	 * which never occur inside a multi-byte UTF-8 character
+	 */
+	private int copyUnescaped(int column) {
+		int length = copyField(column);
+		int out = 0;
+		for (int i = 0; i < length; i++) {
+			byte b = scratch[i];
+			if (b == ESCAPE) {
+				if (++i == length) {
+					break;
+				}
+				b = scratch[i];
+			} else if (b == QUOTE && fieldQuoted[column] && i + 1 < length && scratch[i + 1] == QUOTE) {
+				i++;
+			}
+			scratch[out++] = b;
+		}
+		return out;
+	}
+
+	/**
+	 * SymbolTable maps field bytes to one shared String, by open addressing on the byte hash.
+	 * Once MAX_SIZE values are held new values are returned without being kept
+	 */
+	private static final class SymbolTable {
+		private static final int MAX_SIZE = 4096;
+
+		private byte[][] keys = new byte[64][];
+		private String[] values = new String[64];
+		private int size;
+
+		String get(byte[] bytes, int length) {
+			int hash = hash(bytes, length);
+			int mask = keys.length - 1;
+			int slot = hash & mask;
+			while (keys[slot] != null) {
+				if (Arrays.equals(keys[slot], 0, keys[slot].length, bytes, 0, length)) {
+					return values[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+			String value = new String(bytes, 0, length, StandardCharsets.UTF_8);
+			if (size == MAX_SIZE) {
+				return value;
+			}
+			keys[slot] = Arrays.copyOf(bytes, length);
+			values[slot] = value;
+			if (++size * 2 > keys.length) {
+				resize();
+			}
+			return value;
+		}
+
+		private void resize() {
+			byte[][] oldKeys = keys;
+			String[] oldValues = values;
+			keys = new byte[oldKeys.length * 2][];
+			values = new String[oldKeys.length * 2];
+			int mask = keys.length - 1;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					int slot = hash(oldKeys[i], oldKeys[i].length) & mask;
+					while (keys[slot] != null) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+
+		private static int hash(byte[] bytes, int length) {
+			int hash = 1;
+			for (int i = 0; i < length; i++) {
+				hash = 31 * hash + bytes[i];
+			}
+			return hash ^ (hash >>> 16);
+		}
+	}
+}
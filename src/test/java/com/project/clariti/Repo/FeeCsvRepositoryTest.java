@@ -0,0 +1,148 @@
+package com.project.clariti.Repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.dto.FeeGroupSummary;
+import com.project.clariti.dto.FeeSummary;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(SpringExtension.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class FeeCsvRepositoryTest {
+
+	// departments no other test writes, the rows are rolled back after each test
+	private static final String DEPARTMENT = "RepositoryTestDept";
+	private static final String OTHER_DEPARTMENT = "RepositoryTestOtherDept";
+
+	@Autowired
+	private FeeCsvRepository repo;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		repo.saveAll(List.of(
+				row("repository-test-1", DEPARTMENT, "Cat1", "Sub1", "Type1", 2, "50.00"),
+				row("repository-test-2", DEPARTMENT, "Cat1", "Sub2", "Type2", 3, "30.00"),
+				row("repository-test-3", DEPARTMENT, "Cat2", "Sub1", "Type1", 1, "10.00"),
+				row("repository-test-4", OTHER_DEPARTMENT, "Cat1", "Sub1", "Type1", 5, "1.00")));
+	}
+
+	private static FeeCsvEntity row(String id, String department, String category, String subCategory,
+			String type, int quantity, String price) {
+		FeeCsvEntity entity = new FeeCsvEntity();
+		entity.setId(id);
+		entity.setName("Item");
+		entity.setDepartment(department);
+		entity.setCategory(category);
+		entity.setSubCategory(subCategory);
+		entity.setType(type);
+		entity.setQuantity(quantity);
+		entity.setPrice(new BigDecimal(price));
+		return entity;
+	}
+
+	private static void assertSummary(long baseFeeCents, long rowCount, FeeSummary summary) {
+		assertEquals(baseFeeCents, summary.getBaseFeeCents());
+		assertEquals(rowCount, summary.getRowCount());
+	}
+
+	@Test
+	void testDepartmentOnly() {
+		assertSummary(20000, 3, repo.getFeeSummary(DEPARTMENT, "", "", ""));
+		assertEquals(3, repo.getDepartmentDetails(DEPARTMENT, "", "", "").size());
+	}
+
+	@Test
+	void testEachOptionalFilterOnItsOwn() {
+		assertSummary(19000, 2, repo.getFeeSummary(DEPARTMENT, "Cat1", "", ""));
+		assertSummary(11000, 2, repo.getFeeSummary(DEPARTMENT, "", "Sub1", ""));
+		assertSummary(9000, 1, repo.getFeeSummary(DEPARTMENT, "", "", "Type2"));
+
+		List<FeeCsvEntity> rows = repo.getDepartmentDetails(DEPARTMENT, "", "", "Type1");
+		assertEquals(2, rows.size());
+		assertTrue(rows.stream().allMatch(row -> DEPARTMENT.equals(row.getDepartment())
+				&& "Type1".equals(row.getType())));
+	}
+
+	@Test
+	void testAllFiltersCombined() {
+		assertSummary(10000, 1, repo.getFeeSummary(DEPARTMENT, "Cat1", "Sub1", "Type1"));
+
+		List<FeeCsvEntity> rows = repo.getDepartmentDetails(DEPARTMENT, "Cat1", "Sub1", "Type1");
+		assertEquals(1, rows.size());
+		assertEquals("repository-test-1", rows.get(0).getId());
+		assertEquals("Sub1", rows.get(0).getSubCategory());
+	}
+
+	@Test
+	void testValueNoRowHas() {
+		assertSummary(0, 0, repo.getFeeSummary("RepositoryTestMissingDept", "", "", ""));
+		assertSummary(0, 0, repo.getFeeSummary(DEPARTMENT, "MissingCategory", "", ""));
+		// each value exists, but not together
+		assertSummary(0, 0, repo.getFeeSummary(DEPARTMENT, "Cat2", "Sub2", ""));
+		assertTrue(repo.getDepartmentDetails(DEPARTMENT, "", "", "MissingType").isEmpty());
+	}
+
+	@Test
+	void testBlankAndAbsentFilters() {
+		// null and empty filters are absent, whitespace is a value like any other
+		assertSummary(20000, 3, repo.getFeeSummary(DEPARTMENT, null, null, null));
+		assertSummary(19000, 2, repo.getFeeSummary(DEPARTMENT, "Cat1", null, ""));
+		assertSummary(0, 0, repo.getFeeSummary(DEPARTMENT, " ", "", ""));
+		assertEquals(0, repo.getDepartmentDetails(DEPARTMENT, "", "", " ").size());
+	}
+
+	@Test
+	void testNonNumericQuantityOrPriceIsNeverSummed() {
+		repo.flush();
+
+		// quantity and price are numeric columns, a value like "jhj" fails to be written, not summed
+		for (String column : List.of("quantity", "price")) {
+			DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+					() -> jdbcTemplate.update("UPDATE fee_csv_tbl SET " + column + " = ? WHERE id = ?",
+							"jhj", "repository-test-1"));
+			assertTrue(e.getMessage().contains("Data conversion error converting \"'jhj'"), e.getMessage());
+		}
+		assertSummary(20000, 3, repo.getFeeSummary(DEPARTMENT, "", "", ""));
+	}
+
+	@Test
+	void testGroupedFeeSummariesOfDepartments() {
+		List<FeeGroupSummary> groups = repo.getGroupedFeeSummaries(List.of(DEPARTMENT, OTHER_DEPARTMENT));
+
+		assertEquals(4, groups.size());
+		assertEquals(20500, groups.stream().mapToLong(FeeGroupSummary::getBaseFeeCents).sum());
+	}
+
+	@Test
+	void testWhereClauseHasAPredicatePerPresentFilter() {
+		Map<String, String> filters = FeeCsvRepositoryImpl.filters(DEPARTMENT, "", null, "Type1");
+
+		assertEquals(List.of("department", "type"), List.copyOf(filters.keySet()));
+		assertEquals(" WHERE f.department = :department AND f.type = :type", FeeCsvRepositoryImpl.whereClause(filters));
+		assertEquals(" WHERE f.department = :department AND f.category = :category "
+				+ "AND f.subCategory = :subCategory AND f.type = :type",
+				FeeCsvRepositoryImpl.whereClause(FeeCsvRepositoryImpl.filters(DEPARTMENT, "Cat1", "Sub1", "Type1")));
+	}
+}
@@ -0,0 +1,111 @@
+package com.project.clariti.Repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.project.clariti.Repo.FeeDimensionDictionary.Dimension;
+
+public class FeeCsvSchemaMigratorTest {
+
+	private JdbcTemplate jdbcTemplate;
+
+	private FeeCsvSchemaMigrator migrator;
+
+	@BeforeEach
+	void setUp() {
+		// a database of its own, holding fee_csv_tbl as it was before dimensions were encoded
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+				"jdbc:h2:mem:schema-migrator-test;DB_CLOSE_DELAY=-1", "sa", ""));
+		migrator = new FeeCsvSchemaMigrator();
+		ReflectionTestUtils.setField(migrator, "jdbcTemplate", jdbcTemplate);
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP ALL OBJECTS");
+	}
+
+	/** fee_csv_tbl with string dimensions and the _id columns ddl-auto=update adds next to them */
+	private void createLegacyTable() {
+		jdbcTemplate.execute("CREATE TABLE fee_csv_tbl (id VARCHAR(255) PRIMARY KEY, name VARCHAR(255), "
+				+ "description VARCHAR(255), department VARCHAR(255), category VARCHAR(255), "
+				+ "sub_category VARCHAR(255), type VARCHAR(255), quantity VARCHAR(255), price VARCHAR(255), "
+				+ "content_hash BIGINT, department_id INTEGER, category_id INTEGER, sub_category_id INTEGER, "
+				+ "type_id INTEGER)");
+		jdbcTemplate.execute("CREATE INDEX idx_fee_csv_filter ON fee_csv_tbl (department, category, sub_category, type)");
+		String insert = "INSERT INTO fee_csv_tbl (id, department, category, sub_category, type, quantity, price) "
+				+ "VALUES (?, ?, ?, ?, ?, ?, ?)";
+		jdbcTemplate.update(insert, "1", "Marketing", "ABM", "Cat1", "TypeA", "2", "50.00");
+		jdbcTemplate.update(insert, "2", "Marketing", "Brand", "Cat1", "TypeB", "3", "30.5");
+		jdbcTemplate.update(insert, "3", "Sales", "ABM", null, "TypeA", "1", "10");
+	}
+
+	private String decode(FeeDimensionDictionary dictionary, Dimension dimension, String id) {
+		return dictionary.decode(dimension, jdbcTemplate.queryForObject(
+				"SELECT " + dimension.getColumn() + " FROM fee_csv_tbl WHERE id = ?", Integer.class, id));
+	}
+
+	@Test
+	void testStringDimensionsAreEncodedAndDropped() {
+		createLegacyTable();
+
+		migrator.migrate();
+
+		List<String> columns = jdbcTemplate.queryForList("SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS "
+				+ "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = 'FEE_CSV_TBL'", String.class);
+		for (String dropped : List.of("DEPARTMENT", "CATEGORY", "SUB_CATEGORY", "TYPE")) {
+			assertFalse(columns.contains(dropped), dropped + " is still a column");
+		}
+
+		FeeDimensionDictionary dictionary = new FeeDimensionDictionary();
+		ReflectionTestUtils.setField(dictionary, "jdbcTemplate", jdbcTemplate);
+		assertEquals("Marketing", decode(dictionary, Dimension.DEPARTMENT, "1"));
+		assertEquals("Marketing", decode(dictionary, Dimension.DEPARTMENT, "2"));
+		assertEquals("Sales", decode(dictionary, Dimension.DEPARTMENT, "3"));
+		assertEquals("Brand", decode(dictionary, Dimension.CATEGORY, "2"));
+		assertEquals("Cat1", decode(dictionary, Dimension.SUB_CATEGORY, "1"));
+		assertNull(decode(dictionary, Dimension.SUB_CATEGORY, "3"));
+		assertEquals("TypeB", decode(dictionary, Dimension.TYPE, "2"));
+		// one code per distinct value
+		assertEquals(dictionary.find(Dimension.CATEGORY, "ABM"), jdbcTemplate.queryForObject(
+				"SELECT category_id FROM fee_csv_tbl WHERE id = ?", Integer.class, "3"));
+		assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fee_dimension_tbl WHERE dimension = ?",
+				Integer.class, Dimension.CATEGORY.ordinal()));
+
+		Map<String, Object> row = jdbcTemplate.queryForMap("SELECT quantity, price FROM fee_csv_tbl WHERE id = ?", "2");
+		assertEquals(3, row.get("QUANTITY"));
+		assertEquals(new BigDecimal("30.50"), row.get("PRICE"));
+	}
+
+	@Test
+	void testExistingCodesAreKept() {
+		createLegacyTable();
+		jdbcTemplate.execute("CREATE TABLE fee_dimension_tbl (dimension INTEGER NOT NULL, code INTEGER NOT NULL, "
+				+ "name VARCHAR(255) NOT NULL, PRIMARY KEY (dimension, code), UNIQUE (dimension, name))");
+		jdbcTemplate.update("INSERT INTO fee_dimension_tbl (dimension, code, name) VALUES (?, ?, ?)",
+				Dimension.DEPARTMENT.ordinal(), 70_000, "Sales");
+
+		migrator.migrate();
+		// a second run finds nothing left to encode
+		migrator.migrate();
+
+		FeeDimensionDictionary dictionary = new FeeDimensionDictionary();
+		ReflectionTestUtils.setField(dictionary, "jdbcTemplate", jdbcTemplate);
+		assertEquals(70_000, dictionary.find(Dimension.DEPARTMENT, "Sales"));
+		assertEquals(70_001, dictionary.find(Dimension.DEPARTMENT, "Marketing"));
+		assertEquals("Sales", decode(dictionary, Dimension.DEPARTMENT, "3"));
+		assertEquals("Marketing", decode(dictionary, Dimension.DEPARTMENT, "1"));
+	}
+}
@@ -0,0 +1,160 @@
+package com.project.clariti.Repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.Repo.FeeDimensionDictionary.Dimension;
+import com.project.clariti.aggregate.ColumnarFeeService;
+import com.project.clariti.aggregate.FeeCube;
+import com.project.clariti.dto.FeeSummary;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class FeeDimensionDictionaryTest {
+
+	// above the 16 bit codes of the fee cube and the fee columns
+	private static final int HIGH_CODE = 70_000;
+	private static final String HIGH_CODE_VALUE = "DictionaryTestHighCode";
+	private static final String DEPARTMENT = "DictionaryTestDept";
+
+	@Autowired
+	private FeeDimensionDictionary dictionary;
+
+	@Autowired
+	private FeeCsvRepository repo;
+
+	@Autowired
+	private ColumnarFeeService columnarStore;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void setUp() {
+		// committed on its own, so every value added afterwards gets a code above HIGH_CODE
+		TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+		newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		newTransaction.executeWithoutResult(status -> {
+			for (Dimension dimension : Dimension.values()) {
+				jdbcTemplate.update("MERGE INTO fee_dimension_tbl (dimension, code, name) KEY (dimension, code) "
+						+ "VALUES (?, ?, ?)", dimension.ordinal(), HIGH_CODE, HIGH_CODE_VALUE);
+			}
+		});
+		for (Dimension dimension : Dimension.values()) {
+			// a code added by another writer is read on decode
+			assertEquals(HIGH_CODE_VALUE, dictionary.decode(dimension, HIGH_CODE));
+		}
+	}
+
+	private static FeeCsvEntity row(String id, String category, String type, int quantity, String price) {
+		FeeCsvEntity entity = new FeeCsvEntity();
+		entity.setId(id);
+		entity.setName("Item");
+		entity.setDepartment(DEPARTMENT);
+		entity.setCategory(category);
+		entity.setSubCategory("DictionaryTestSub");
+		entity.setType(type);
+		entity.setQuantity(quantity);
+		entity.setPrice(new BigDecimal(price));
+		return entity;
+	}
+
+	@Test
+	void testEncodeFindDecodeRoundTrip() {
+		assertEquals(HIGH_CODE, dictionary.find(Dimension.CATEGORY, HIGH_CODE_VALUE));
+
+		int code = dictionary.encode(Dimension.CATEGORY, "DictionaryTestRoundTrip");
+		assertTrue(code > HIGH_CODE);
+		assertEquals(code, dictionary.encode(Dimension.CATEGORY, "DictionaryTestRoundTrip"));
+		assertEquals(code, dictionary.find(Dimension.CATEGORY, "DictionaryTestRoundTrip"));
+		assertEquals("DictionaryTestRoundTrip", dictionary.decode(Dimension.CATEGORY, code));
+		// codes are per dimension
+		assertEquals(FeeDimensionDictionary.UNKNOWN, dictionary.find(Dimension.TYPE, "DictionaryTestRoundTrip"));
+
+		assertNull(dictionary.encode(Dimension.TYPE, null));
+		assertNull(dictionary.find(Dimension.TYPE, null));
+		assertNull(dictionary.decode(Dimension.TYPE, null));
+		// translated by the repository proxy
+		RuntimeException missing = assertThrows(RuntimeException.class,
+				() -> dictionary.decode(Dimension.TYPE, Integer.MAX_VALUE));
+		assertEquals("No TYPE with code " + Integer.MAX_VALUE, missing.getMessage());
+	}
+
+	@Test
+	void testConverterFindsFilterValuesWithoutAddingThem() {
+		FeeDimensionConverter converter = new FeeDimensionConverter.Type();
+		ReflectionTestUtils.setField(converter, "dictionary", dictionary);
+
+		assertEquals(HIGH_CODE, converter.convertToDatabaseColumn(HIGH_CODE_VALUE));
+		assertEquals(HIGH_CODE_VALUE, converter.convertToEntityAttribute(HIGH_CODE));
+		assertEquals(FeeDimensionDictionary.UNKNOWN, converter.convertToDatabaseColumn("DictionaryTestNeverStored"));
+		assertEquals(FeeDimensionDictionary.UNKNOWN, dictionary.find(Dimension.TYPE, "DictionaryTestNeverStored"));
+		assertNull(converter.convertToDatabaseColumn(null));
+	}
+
+	@Test
+	@Transactional
+	void testListenerEncodesTheValuesOfSavedRows() {
+		repo.saveAndFlush(row("dictionary-test-listener", "DictionaryTestListenerCat", "DictionaryTestType1", 1, "1.00"));
+
+		int code = dictionary.find(Dimension.CATEGORY, "DictionaryTestListenerCat");
+		assertTrue(code > HIGH_CODE);
+		assertEquals(code, jdbcTemplate.queryForObject("SELECT category_id FROM fee_csv_tbl WHERE id = ?",
+				Integer.class, "dictionary-test-listener"));
+		assertEquals("DictionaryTestListenerCat", repo.getDepartmentDetails(DEPARTMENT, "", "", "")
+				.stream().filter(entity -> entity.getId().equals("dictionary-test-listener"))
+				.findFirst().orElseThrow().getCategory());
+	}
+
+	@Test
+	@Transactional
+	void testUnknownFilterValueMatchesNothingInEveryEngine() {
+		repo.saveAllAndFlush(List.of(
+				row("dictionary-test-1", "DictionaryTestCat1", "DictionaryTestType1", 2, "50.00"),
+				row("dictionary-test-2", "DictionaryTestCat2", "DictionaryTestType1", 3, "30.00")));
+		assertTrue(dictionary.find(Dimension.DEPARTMENT, DEPARTMENT) > HIGH_CODE);
+
+		FeeCube cube = FeeCube.of(repo.getGroupedFeeSummaries(List.of(DEPARTMENT)));
+		FeeSummary fromColumns = columnarStore.load().lookup(DEPARTMENT, "DictionaryTestCat1", "", "");
+		assertEquals(10000, repo.getFeeSummary(DEPARTMENT, "DictionaryTestCat1", "", "").getBaseFeeCents());
+		assertEquals(10000, cube.lookup(DEPARTMENT, "DictionaryTestCat1", "", "").getBaseFeeCents());
+		assertEquals(10000, fromColumns.getBaseFeeCents());
+		assertEquals(19000, cube.lookup(DEPARTMENT, "", "", "DictionaryTestType1").getBaseFeeCents());
+
+		for (String[] filter : new String[][] {
+				{ DEPARTMENT, "DictionaryTestUnknown", "", "" },
+				{ DEPARTMENT, "", "", "DictionaryTestUnknown" },
+				{ "DictionaryTestUnknownDept", "", "", "" } }) {
+			assertEquals(0, repo.getFeeSummary(filter[0], filter[1], filter[2], filter[3]).getRowCount());
+			assertTrue(repo.getDepartmentDetails(filter[0], filter[1], filter[2], filter[3]).isEmpty());
+			assertEquals(0, cube.lookup(filter[0], filter[1], filter[2], filter[3]).getRowCount());
+			assertEquals(0, columnarStore.load().lookup(filter[0], filter[1], filter[2], filter[3]).getRowCount());
+		}
+		// filtering never adds the value
+		assertEquals(FeeDimensionDictionary.UNKNOWN, dictionary.find(Dimension.CATEGORY, "DictionaryTestUnknown"));
+	}
+}
@@ -0,0 +1,135 @@
+package com.project.clariti.aggregate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.dto.FeeSummary;
+import com.project.clariti.utils.FixedPointFees;
+
+public class FeeColumnsTest {
+
+	private static final String[] DEPARTMENTS = { "Sales", "Support", "Marketing" };
+	private static final String[] CATEGORIES = { "Pre Sales", "Tier 1", "ABM" };
+	private static final String[] SUB_CATEGORIES = { "Cat1", "Cat2", "Cat3" };
+	private static final String[] TYPES = { "TypeA", "TypeB" };
+
+	@Test
+	void testLookupMatchesDepartmentDetailsSum() {
+		Random random = new Random(7);
+		List<FeeCsvEntity> rows = new ArrayList<>();
+		FeeColumns.Builder builder = new FeeColumns.Builder();
+		for (int i = 0; i < 3000; i++) {
+			FeeCsvEntity row = new FeeCsvEntity();
+			row.setDepartment(DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+			row.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+			row.setSubCategory(SUB_CATEGORIES[random.nextInt(SUB_CATEGORIES.length)]);
+			row.setType(TYPES[random.nextInt(TYPES.length)]);
+			row.setQuantity(random.nextInt(10) + 1);
+			row.setPrice(BigDecimal.valueOf(random.nextInt(10000), 2));
+			rows.add(row);
+			builder.add(row.getDepartment(), row.getCategory(), row.getSubCategory(), row.getType(),
+					row.getQuantity(), row.getPrice());
+		}
+		FeeColumns columns = builder.build();
+
+		for (String department : new String[] { "Sales", "Support", "Marketing", "IT" }) {
+			for (String category : new String[] { "", "Pre Sales", "ABM", "Unknown" }) {
+				for (String subCategory : new String[] { "", "Cat1", "Cat3" }) {
+					for (String type : new String[] { "", "TypeA", "TypeB" }) {
+						FeeSummary expected = sumDepartmentDetails(rows, department, category, subCategory, type);
+						FeeSummary actual = columns.lookup(department, category, subCategory, type);
+						String filters = department + "/" + category + "/" + subCategory + "/" + type;
+						assertEquals(expected.getBaseFee(), actual.getBaseFee(), filters);
+						assertEquals(expected.getRowCount(), actual.getRowCount(), filters);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void testMissingQuantityOrPriceIsCountedWithoutFee() {
+		FeeColumns columns = new FeeColumns.Builder()
+				.add("Sales", "Pre Sales", "Cat1", "TypeA", 2, new BigDecimal("10.25"))
+				.add("Sales", "Pre Sales", "Cat1", "TypeA", null, new BigDecimal("3.00"))
+				.add("Sales", "Pre Sales", "Cat1", "TypeA", 4, null)
+				.build();
+
+		FeeSummary summary = columns.lookup("Sales", "", "", "");
+
+		assertEquals(20.5, summary.getBaseFee());
+		assertEquals(3, summary.getRowCount());
+	}
+
+	@Test
+	void testLookupUnknownOrMissingDepartment() {
+		FeeColumns columns = new FeeColumns.Builder()
+				.add("Sales", "Pre Sales", "Cat1", "TypeA", 1, BigDecimal.ONE)
+				.build();
+
+		assertSame(FeeSummary.EMPTY, columns.lookup("IT", "", "", ""));
+		assertSame(FeeSummary.EMPTY, columns.lookup(null, "", "", ""));
+		assertSame(FeeSummary.EMPTY, columns.lookup("", "", "", ""));
+		assertSame(FeeSummary.EMPTY, columns.lookup("Sales", "", "Cat2", ""));
+		assertEquals(1, columns.size());
+	}
+
+	@Test
+	void testOverflowThrowsLikeTheCube() {
+		// 9 rows of 1e18 cents and one row making the total exactly Long.MAX_VALUE
+		long lastRowCents = Long.MAX_VALUE - 9 * 1_000_000_000_000_000_000L;
+		FeeColumns.Builder columns = new FeeColumns.Builder();
+		FeeCube.Builder cube = new FeeCube.Builder();
+		for (int i = 0; i < 9; i++) {
+			columns.add("Sales", "Pre Sales", "Cat1", "TypeA", 1_000_000, new BigDecimal("10000000000.00"));
+			cube.addCents("Sales", "Pre Sales", "Cat1", "TypeA",
+					FixedPointFees.lineCents(1_000_000, 1_000_000_000_000L), 1);
+		}
+		columns.add("Sales", "Tier 1", "Cat1", "TypeA", 1, BigDecimal.valueOf(lastRowCents, 2));
+		cube.addCents("Sales", "Tier 1", "Cat1", "TypeA", lastRowCents, 1);
+
+		FeeSummary fromColumns = columns.build().lookup("Sales", "", "", "");
+		assertEquals(Long.MAX_VALUE, fromColumns.getBaseFeeCents());
+		assertEquals(cube.build().lookup("Sales", "", "", "").getBaseFeeCents(), fromColumns.getBaseFeeCents());
+
+		// one more cent overflows both engines instead of wrapping
+		columns.add("Sales", "Tier 1", "Cat2", "TypeA", 1, new BigDecimal("0.01"));
+		FeeColumns overflowing = columns.build();
+		assertThrows(ArithmeticException.class, () -> overflowing.lookup("Sales", "", "", ""));
+		assertThrows(ArithmeticException.class, () -> cube.addCents("Sales", "Tier 1", "Cat2", "TypeA", 1, 1));
+		// a single row above the long range
+		FeeColumns line = new FeeColumns.Builder()
+				.add("Sales", "Pre Sales", "Cat1", "TypeA", Integer.MAX_VALUE, new BigDecimal("9999999999.99"))
+				.build();
+		assertThrows(ArithmeticException.class, () -> line.lookup("Sales", "", "", ""));
+	}
+
+	/**
+	 * sumDepartmentDetails method filters the rows the way getDepartmentDetails does,
+	 * department always and the other filters only when not empty, and sums quantity * price
+	 */
+	private static FeeSummary sumDepartmentDetails(List<FeeCsvEntity> rows, String department, String category,
+			String subCategory, String type) {
+		BigDecimal sum = BigDecimal.ZERO;
+		long count = 0;
+		for (FeeCsvEntity row : rows) {
+			if (row.getDepartment().equals(department)
+					&& (category.isEmpty() || row.getCategory().equals(category))
+					&& (subCategory.isEmpty() || row.getSubCategory().equals(subCategory))
+					&& (type.isEmpty() || row.getType().equals(type))) {
+				sum = sum.add(row.getPrice().multiply(BigDecimal.valueOf(row.getQuantity())));
+				count++;
+			}
+		}
+		return new FeeSummary(sum.doubleValue(), count);
+	}
+}
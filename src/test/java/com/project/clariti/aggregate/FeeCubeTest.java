@@ -0,0 +1,66 @@
+package com.project.clariti.aggregate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.project.clariti.dto.FeeSummary;
+
+public class FeeCubeTest {
+
+	private FeeCube cube;
+
+	@BeforeEach
+	void setUp() {
+		cube = new FeeCube.Builder()
+				.add("Sales", "Pre Sales", "Cat1", "TypeA", 100, 2)
+				.add("Sales", "Pre Sales", "Cat2", "TypeA", 50, 1)
+				.add("Sales", "Sales Engineering", "Cat1", "TypeB", 25, 3)
+				.add("Support", "Tier 1", "Cat1", "TypeA", 10, 1)
+				.build();
+	}
+
+	@Test
+	void testLookupAllFilters() {
+		FeeSummary summary = cube.lookup("Sales", "Pre Sales", "Cat1", "TypeA");
+
+		assertEquals(100, summary.getBaseFee());
+		assertEquals(2, summary.getRowCount());
+	}
+
+	@Test
+	void testLookupDepartmentOnly() {
+		FeeSummary summary = cube.lookup("Sales", "", "", "");
+
+		assertEquals(175, summary.getBaseFee());
+		assertEquals(6, summary.getRowCount());
+	}
+
+	@Test
+	void testLookupWithWildcardBetweenFilters() {
+		assertEquals(125, cube.lookup("Sales", "", "Cat1", "").getBaseFee());
+		assertEquals(150, cube.lookup("Sales", "Pre Sales", "", "TypeA").getBaseFee());
+		assertEquals(10, cube.lookup("Support", "", "", "TypeA").getBaseFee());
+	}
+
+	@Test
+	void testLookupUnknownValue() {
+		assertSame(FeeSummary.EMPTY, cube.lookup("IT", "", "", ""));
+		assertSame(FeeSummary.EMPTY, cube.lookup("Sales", "Tier 1", "", ""));
+		assertSame(FeeSummary.EMPTY, cube.lookup("Support", "Pre Sales", "", ""));
+	}
+
+	@Test
+	void testBuilderGrowsPastInitialCapacity() {
+		FeeCube.Builder builder = new FeeCube.Builder();
+		for (int i = 0; i < 500; i++) {
+			builder.add("Dept" + (i % 5), "Category" + i, "Cat1", "TypeA", 1, 1);
+		}
+		FeeCube large = builder.build();
+
+		assertEquals(100, large.lookup("Dept0", "", "", "").getRowCount());
+		assertEquals(1, large.lookup("Dept3", "Category498", "", "").getRowCount());
+	}
+}
@@ -0,0 +1,121 @@
+package com.project.clariti.aggregate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.project.clariti.aggregate.FeeSnapshotStore.Fingerprint;
+import com.project.clariti.aggregate.FeeSnapshotStore.Kind;
+import com.project.clariti.dto.FeeSummary;
+
+public class FeeSnapshotStoreTest {
+
+	private static final Fingerprint FINGERPRINT = new Fingerprint(1, 7, 4);
+
+	@TempDir
+	Path tempDir;
+
+	private FeeCube cube;
+
+	@BeforeEach
+	void setUp() {
+		cube = new FeeCube.Builder()
+				.add("Sales", "Pre Sales", "Cat1", "TypeA", 100, 2)
+				.add("Sales", "Pre Sales", "Cat2", "TypeA", 50, 1)
+				.add("Sales", null, "Cat1", "TypeB", 25.5, 3)
+				.add("Süpport", "Tier 1", "Cat1", "TypeA", 10, 1)
+				.build();
+	}
+
+	@Test
+	void testCubeRoundTrip() throws Exception {
+		Path file = tempDir.resolve(Kind.CUBE.getFileName());
+		FeeSnapshotStore.write(file, Kind.CUBE, FINGERPRINT, cube::writeTo);
+
+		FeeCube loaded = FeeSnapshotStore.read(file, Kind.CUBE, FINGERPRINT, FeeCube::readFrom);
+
+		assertEquals(cube.size(), loaded.size());
+		assertEquals(175.5, loaded.lookup("Sales", "", "", "").getBaseFee());
+		assertEquals(6, loaded.lookup("Sales", "", "", "").getRowCount());
+		assertEquals(150, loaded.lookup("Sales", "Pre Sales", "", "TypeA").getBaseFee());
+		assertEquals(10, loaded.lookup("Süpport", "", "Cat1", "").getBaseFee());
+		assertSame(FeeSummary.EMPTY, loaded.lookup("IT", "", "", ""));
+		try (var files = Files.list(tempDir)) {
+			assertEquals(1, files.count());
+		}
+	}
+
+	@Test
+	void testColumnsRoundTrip() throws Exception {
+		FeeColumns columns = new FeeColumns.Builder()
+				.add("Sales", "Pre Sales", "Cat1", "TypeA", 2, new BigDecimal("50.25"))
+				.add("Support", "Tier 1", "Cat1", "TypeA", 1, new BigDecimal("10"))
+				.add("Sales", "Pre Sales", "Cat2", "TypeB", 3, new BigDecimal("30"))
+				.add("Sales", null, "Cat2", "TypeB", null, null)
+				.build();
+		Path file = tempDir.resolve(Kind.COLUMNS.getFileName());
+		FeeSnapshotStore.write(file, Kind.COLUMNS, FINGERPRINT, columns::writeTo);
+
+		FeeColumns loaded = FeeSnapshotStore.read(file, Kind.COLUMNS, FINGERPRINT, FeeColumns::readFrom);
+
+		assertEquals(4, loaded.size());
+		assertEquals(190.5, loaded.lookup("Sales", "", "", "").getBaseFee());
+		assertEquals(3, loaded.lookup("Sales", "", "", "").getRowCount());
+		assertEquals(90, loaded.lookup("Sales", "Pre Sales", "Cat2", "").getBaseFee());
+		assertEquals(10, loaded.lookup("Support", "", "", "").getBaseFee());
+	}
+
+	@Test
+	void testRejectsStaleSnapshot() throws Exception {
+		Path file = tempDir.resolve(Kind.CUBE.getFileName());
+		FeeSnapshotStore.write(file, Kind.CUBE, FINGERPRINT, cube::writeTo);
+
+		IOException newerGeneration = assertThrows(IOException.class,
+				() -> FeeSnapshotStore.read(file, Kind.CUBE, new Fingerprint(1, 8, 4), FeeCube::readFrom));
+		assertTrue(newerGeneration.getMessage().contains("stale"));
+		assertThrows(IOException.class,
+				() -> FeeSnapshotStore.read(file, Kind.CUBE, new Fingerprint(1, 7, 5), FeeCube::readFrom));
+		assertThrows(IOException.class,
+				() -> FeeSnapshotStore.read(file, Kind.CUBE, new Fingerprint(2, 7, 4), FeeCube::readFrom));
+		assertThrows(IOException.class,
+				() -> FeeSnapshotStore.read(file, Kind.COLUMNS, FINGERPRINT, FeeColumns::readFrom));
+	}
+
+	@Test
+	void testRejectsCorruptSnapshot() throws Exception {
+		Path file = tempDir.resolve(Kind.CUBE.getFileName());
+		FeeSnapshotStore.write(file, Kind.CUBE, FINGERPRINT, cube::writeTo);
+		byte[] bytes = Files.readAllBytes(file);
+
+		byte[] flipped = bytes.clone();
+		flipped[FeeSnapshotStore.HEADER_SIZE + 20] ^= 1;
+		Files.write(file, flipped);
+		IOException checksum = assertThrows(IOException.class,
+				() -> FeeSnapshotStore.read(file, Kind.CUBE, FINGERPRINT, FeeCube::readFrom));
+		assertTrue(checksum.getMessage().contains("checksum"));
+
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+		assertThrows(IOException.class, () -> FeeSnapshotStore.read(file, Kind.CUBE, FINGERPRINT, FeeCube::readFrom));
+
+		byte[] version = bytes.clone();
+		version[7] = 2;
+		Files.write(file, version);
+		IOException unsupported = assertThrows(IOException.class,
+				() -> FeeSnapshotStore.read(file, Kind.CUBE, FINGERPRINT, FeeCube::readFrom));
+		assertTrue(unsupported.getMessage().contains("version"));
+
+		Files.write(file, new byte[10]);
+		assertThrows(IOException.class, () -> FeeSnapshotStore.read(file, Kind.CUBE, FINGERPRINT, FeeCube::readFrom));
+	}
+}
@@ -0,0 +1,43 @@
+package com.project.clariti.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.project.clariti.SpringBootProjectWithDbApplication;
+import com.project.clariti.service.FeeCalculatorDBService;
+
+/**
+ * BenchmarkContext starts the application without a web server against its own
+ * in-memory H2 database for the JMH benchmarks
+ */
+final class BenchmarkContext {
+
+	static final Path RAW_FEES = Path.of("raw_fees.csv");
+
+	private BenchmarkContext() {
+	}
+
+	static ConfigurableApplicationContext start(String databaseName, String... properties) {
+		List<String> allProperties = new ArrayList<>(List.of(
+				"spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+				"spring.jpa.show-sql=false",
+				"logging.level.root=WARN"));
+		allProperties.addAll(List.of(properties));
+		// passed as command line arguments, default properties lose to application.properties
+		return new SpringApplicationBuilder(SpringBootProjectWithDbApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(allProperties.stream().map(property -> "--" + property).toArray(String[]::new));
+	}
+
+	static void loadRawFees(ConfigurableApplicationContext context) throws Exception {
+		context.getBean(FeeCalculatorDBService.class).loadCsvDataIntoDatabase(
+				new MockMultipartFile("file", "raw_fees.csv", "text/csv", Files.readAllBytes(RAW_FEES)));
+	}
+}
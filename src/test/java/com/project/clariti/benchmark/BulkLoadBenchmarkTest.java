@@ -0,0 +1,109 @@
+package com.project.clariti.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import com.opencsv.CSVReader;
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.Repo.FeeCsvBulkLoader;
+import com.project.clariti.Repo.FeeCsvRepository;
+import com.project.clariti.utils.FeeCsvRowMapper;
+
+/**
+ * Compares the JPA saveAll path with the JDBC batch bulk loader on raw_fees.csv.
+ * Excluded from the default build, run with: mvn -Pbenchmark test
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:bulkloadbench;DB_CLOSE_DELAY=-1",
+		"spring.jpa.show-sql=false" })
+public class BulkLoadBenchmarkTest {
+
+	private static final int CHUNK_SIZE = 1000;
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int MEASURED_ROUNDS = 5;
+
+	@Autowired
+	private FeeCsvRepository repo;
+
+	@Autowired
+	private FeeCsvBulkLoader bulkLoader;
+
+	private List<List<FeeCsvEntity>> chunks;
+	private int rowCount;
+
+	@BeforeAll
+	void readRawFees() throws Exception {
+		chunks = new ArrayList<>();
+		try (CSVReader csvReader = new CSVReader(new FileReader("raw_fees.csv"))) {
+			csvReader.readNext();
+			List<FeeCsvEntity> chunk = new ArrayList<>();
+			String[] columns;
+			while ((columns = csvReader.readNext()) != null) {
+				chunk.add(FeeCsvRowMapper.toEntity(columns, ++rowCount));
+				if (chunk.size() == CHUNK_SIZE) {
+					chunks.add(chunk);
+					chunk = new ArrayList<>();
+				}
+			}
+			if (!chunk.isEmpty()) {
+				chunks.add(chunk);
+			}
+		}
+	}
+
+	@Test
+	void compareSaveAllWithBulkLoader() {
+		double saveAllMillis = measure("JPA saveAll", () -> chunks.forEach(repo::saveAll));
+		double bulkLoadMillis = measure("JDBC bulk loader", this::stageAndPublish);
+
+		System.out.printf("Bulk loader speedup over saveAll: %.1fx%n", saveAllMillis / bulkLoadMillis);
+	}
+
+	/**
+	 * stageAndPublish method loads the chunks the way an upload does, staged under a new
+	 * generation and published in one transaction
+	 */
+	private void stageAndPublish() {
+		long generation = bulkLoader.newGeneration();
+		chunks.forEach(chunk -> bulkLoader.stageChunk(generation, chunk));
+		bulkLoader.publish(generation, List.of());
+	}
+
+	/**
+	 * measure method times a full load of raw_fees.csv into an empty table
+	 * and returns the average milliseconds of the measured rounds
+	 */
+	private double measure(String label, Runnable load) {
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			repo.deleteAllInBatch();
+			load.run();
+		}
+		long totalNanos = 0;
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			repo.deleteAllInBatch();
+			long start = System.nanoTime();
+			load.run();
+			totalNanos += System.nanoTime() - start;
+			assertEquals(rowCount, repo.count());
+		}
+		double avgMillis = totalNanos / 1_000_000.0 / MEASURED_ROUNDS;
+		System.out.printf("%-18s %,d rows: %8.1f ms/load, %,10.0f rows/s%n",
+				label, rowCount, avgMillis, rowCount / (avgMillis / 1000));
+		return avgMillis;
+	}
+
+}
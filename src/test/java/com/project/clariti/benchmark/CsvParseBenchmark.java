@@ -0,0 +1,101 @@
+package com.project.clariti.benchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.opencsv.CSVReader;
+import com.project.clariti.utils.FeeCsvRowMapper;
+import com.project.clariti.utils.MappedCsvReader;
+
+/**
+ * CsvParseBenchmark measures csv parsing plus mapping to FeeCsvEntity, without the database,
+ * on raw_fees.csv and on a synthetic 1M row file with the same columns, with CSVReader
+ * and with the memory-mapped reader of /importCsv
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class CsvParseBenchmark {
+
+	private static final List<String> DEPARTMENTS = List.of("Marketing", "Sales", "Development", "Operations", "Support");
+	private static final List<String> CATEGORIES = List.of("ABM", "Pre Sales", "Coding", "Tier 1", "Tier 2");
+
+	@Param({ "raw_fees", "synthetic_1m" })
+	public String file;
+
+	private Path path;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		if ("raw_fees".equals(file)) {
+			path = BenchmarkContext.RAW_FEES;
+			return;
+		}
+		path = Files.createTempFile("fees-1m", ".csv");
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writer.write("Id,Name,Description__c,Department__c,Category__c,Sub_Category__c,Type__c,Quantity__c,Unit_Price__c\n");
+			for (int i = 0; i < 1_000_000; i++) {
+				writer.write("a00P" + i + ",\"Item, " + i + "\",lorem ipsum dolor sit amet consectetur adipiscing elit,"
+						+ DEPARTMENTS.get(i % DEPARTMENTS.size()) + "," + CATEGORIES.get(i % CATEGORIES.size())
+						+ ",Cat" + (i % 3 + 1) + ",Type" + (char) ('A' + i % 3) + "," + (i % 10 + 1) + ","
+						+ (i % 9000 + 100) / 100 + "." + String.format("%02d", i % 100) + "\n");
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		if (!path.equals(BenchmarkContext.RAW_FEES)) {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	@Benchmark
+	public long parseAndMap(Blackhole blackhole) throws Exception {
+		long rows = 0;
+		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+				CSVReader csvReader = new CSVReader(reader)) {
+			csvReader.readNext();
+			String[] columns;
+			while ((columns = csvReader.readNext()) != null) {
+				blackhole.consume(FeeCsvRowMapper.toEntity(columns, ++rows));
+			}
+		}
+		return rows;
+	}
+
+	@Benchmark
+	public long mappedParseAndMap(Blackhole blackhole) throws Exception {
+		long rows = 0;
+		try (MappedCsvReader reader = MappedCsvReader.open(path)) {
+			reader.nextRow();
+			while (reader.nextRow()) {
+				blackhole.consume(FeeCsvRowMapper.toEntity(reader, ++rows));
+			}
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,204 @@
+package com.project.clariti.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.project.clariti.SpringBootProjectWithDbApplication;
+import com.project.clariti.config.VirtualThreadConfig;
+
+/**
+ * Drives /calculateFeeFromDB at high concurrency and prints throughput and p50/p99 latency:
+ * comparePlatformAndVirtualThreads runs the Tomcat thread pool against virtual threads and is
+ * skipped on a runtime without virtual threads (before Java 21),
+ * compareServletAndReactive keeps load.connections requests open at once against the servlet
+ * stack and the reactive profile and also prints the request threads each server used.
+ * The cube and the result cache are disabled so every request runs its H2 query.
+ * Excluded from the default build, run with: mvn -Pbenchmark test -Dtest=FeeApiLoadTest
+ * (-Dload.concurrency, -Dload.connections and -Dload.requests change the load)
+ */
+@Tag("benchmark")
+public class FeeApiLoadTest {
+
+	private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 400);
+	private static final int CONNECTIONS = Integer.getInteger("load.connections", 5_000);
+	private static final int REQUESTS = Integer.getInteger("load.requests", 20_000);
+	private static final int WARMUP_REQUESTS = 2_000;
+	private static final String[] DEPARTMENTS = { "Marketing", "Sales", "Development", "Operations", "Support" };
+	private static final String[] SUB_CATEGORIES = { "", "Cat1", "Cat2", "Cat3" };
+
+	@Test
+	void comparePlatformAndVirtualThreads() throws Exception {
+		assumeTrue(VirtualThreadConfig.isAvailable(), "virtual threads need Java 21, this runtime is Java "
+				+ Runtime.version().feature());
+		Result platform = run("platform threads", "fee.web.virtual-threads.enabled=false");
+		Result virtual = run("virtual threads", "fee.web.virtual-threads.enabled=true");
+		System.out.printf("Virtual threads throughput: %.2fx, p99: %.2fx of platform threads%n",
+				virtual.throughput / platform.throughput, virtual.p99Millis / platform.p99Millis);
+	}
+
+	@Test
+	void compareServletAndReactive() throws Exception {
+		String[] servletProfiles = {};
+		String[] reactiveProfiles = { "reactive" };
+		for (String engine : new String[] { "database", "fee cube" }) {
+			String cube = "fee.cube.enabled=" + engine.equals("fee cube");
+			Result servlet = runOpenConnections("servlet, " + engine, WebApplicationType.SERVLET, servletProfiles, cube);
+			Result reactive = runOpenConnections("reactive, " + engine, WebApplicationType.REACTIVE, reactiveProfiles, cube);
+			System.out.printf("Reactive throughput from the %s: %.2fx, p99: %.2fx of servlet%n",
+					engine, reactive.throughput / servlet.throughput, reactive.p99Millis / servlet.p99Millis);
+		}
+	}
+
+	private Result run(String label, String mode) throws Exception {
+		try (ConfigurableApplicationContext context = start(WebApplicationType.SERVLET, new String[0], mode)) {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			HttpClient client = HttpClient.newBuilder().build();
+			send(client, port, WARMUP_REQUESTS);
+			long start = System.nanoTime();
+			long[] latencies = send(client, port, REQUESTS);
+			return result(label, CONCURRENCY + " clients", latencies, System.nanoTime() - start);
+		}
+	}
+
+	private Result runOpenConnections(String label, WebApplicationType type, String[] profiles, String... properties)
+			throws Exception {
+		try (ConfigurableApplicationContext context = start(type, profiles, properties)) {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			HttpClient client = HttpClient.newBuilder().build();
+			sendAsync(client, port, WARMUP_REQUESTS);
+			long start = System.nanoTime();
+			long[] latencies = sendAsync(client, port, REQUESTS);
+			long nanos = System.nanoTime() - start;
+			long serverThreads = Thread.getAllStackTraces().keySet().stream()
+					.map(Thread::getName)
+					.filter(name -> type == WebApplicationType.REACTIVE ? name.startsWith("reactor-http-")
+							: name.startsWith("http-nio-") && name.contains("-exec-"))
+					.count();
+			System.out.printf("%-25s %d server request threads%n", label, serverThreads);
+			return result(label, CONNECTIONS + " connections", latencies, nanos);
+		}
+	}
+
+	private ConfigurableApplicationContext start(WebApplicationType type, String[] profiles, String... properties)
+			throws Exception {
+		Map<String, String> all = new LinkedHashMap<>();
+		for (String property : List.of("server.port=0",
+				"spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+				"spring.jpa.show-sql=false",
+				"logging.level.root=WARN",
+				"fee.cube.enabled=false",
+				"fee.cache.enabled=false")) {
+			all.put(property.substring(0, property.indexOf('=')), property);
+		}
+		for (String property : properties) {
+			all.put(property.substring(0, property.indexOf('=')), property);
+		}
+		// passed as command line arguments, default properties lose to application.properties
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootProjectWithDbApplication.class)
+				.web(type)
+				.profiles(profiles)
+				.run(all.values().stream().map(property -> "--" + property).toArray(String[]::new));
+		BenchmarkContext.loadRawFees(context);
+		return context;
+	}
+
+	private static Result result(String label, String load, long[] latencies, long nanos) {
+		Arrays.sort(latencies);
+		Result result = new Result(latencies.length / (nanos / 1e9), percentile(latencies, 0.50),
+				percentile(latencies, 0.99));
+		System.out.printf("%-25s %s, %,d requests: %,8.0f req/s, p50 %6.2f ms, p99 %7.2f ms%n",
+				label, load, latencies.length, result.throughput, result.p50Millis, result.p99Millis);
+		return result;
+	}
+
+	/**
+	 * send method issues the requests from CONCURRENCY clients, each waiting for its response
+	 * before sending the next one, and returns the latency of every request in nanoseconds
+	 */
+	private long[] send(HttpClient client, int port, int requests) throws Exception {
+		long[] latencies = new long[requests];
+		AtomicInteger next = new AtomicInteger();
+		ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int c = 0; c < CONCURRENCY; c++) {
+				futures.add(clients.submit(() -> {
+					int i;
+					while ((i = next.getAndIncrement()) < requests) {
+						HttpRequest request = request(port, i);
+						long start = System.nanoTime();
+						HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+						latencies[i] = System.nanoTime() - start;
+						assertEquals(200, response.statusCode());
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			clients.shutdownNow();
+		}
+		return latencies;
+	}
+
+	/**
+	 * sendAsync method issues the requests without a thread per client, keeping up to CONNECTIONS
+	 * of them open at once, and returns the latency of every request in nanoseconds
+	 */
+	private long[] sendAsync(HttpClient client, int port, int requests) throws Exception {
+		long[] latencies = new long[requests];
+		Semaphore open = new Semaphore(CONNECTIONS);
+		List<CompletableFuture<?>> responses = new ArrayList<>(requests);
+		for (int i = 0; i < requests; i++) {
+			open.acquire();
+			int index = i;
+			long start = System.nanoTime();
+			responses.add(client.sendAsync(request(port, i), HttpResponse.BodyHandlers.ofString())
+					.whenComplete((response, error) -> {
+						latencies[index] = System.nanoTime() - start;
+						open.release();
+					})
+					.thenAccept(response -> assertEquals(200, response.statusCode())));
+		}
+		CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get();
+		return latencies;
+	}
+
+	private static HttpRequest request(int port, int i) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port
+				+ "/calculateFeeFromDB?department=" + DEPARTMENTS[i % DEPARTMENTS.length]
+				+ "&category=&subCategory=" + SUB_CATEGORIES[i % SUB_CATEGORIES.length] + "&type=")).build();
+	}
+
+	private static double percentile(long[] sortedNanos, double percentile) {
+		return sortedNanos[(int) Math.ceil(percentile * sortedNanos.length) - 1] / 1e6;
+	}
+
+	private record Result(double throughput, double p50Millis, double p99Millis) {
+	}
+}
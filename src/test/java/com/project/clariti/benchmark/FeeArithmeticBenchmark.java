@@ -0,0 +1,91 @@
+package com.project.clariti.benchmark;
+
+import java.io.FileReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opencsv.CSVReader;
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.utils.FeeCsvRowMapper;
+import com.project.clariti.utils.FixedPointFees;
+
+/**
+ * FeeArithmeticBenchmark measures summing quantity * price of every raw_fees.csv row and applying
+ * a 15% surcharge, with the boxed Float accumulation getBaseFee used before, with BigDecimal and
+ * with the long cents of FixedPointFees
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class FeeArithmeticBenchmark {
+
+	private static final float SURCHARGE = 0.15f;
+
+	private List<FeeCsvEntity> rows;
+	private int[] quantities;
+	private long[] priceCents;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		rows = new ArrayList<>();
+		try (CSVReader csvReader = new CSVReader(new FileReader(BenchmarkContext.RAW_FEES.toFile()))) {
+			csvReader.readNext();
+			String[] columns;
+			while ((columns = csvReader.readNext()) != null) {
+				rows.add(FeeCsvRowMapper.toEntity(columns, rows.size() + 1));
+			}
+		}
+		quantities = new int[rows.size()];
+		priceCents = new long[rows.size()];
+		for (int i = 0; i < rows.size(); i++) {
+			quantities[i] = rows.get(i).getQuantity();
+			priceCents[i] = FixedPointFees.toCents(rows.get(i).getPrice());
+		}
+	}
+
+	@Benchmark
+	public int floatAccumulation() {
+		Float baseFee = 0f;
+		for (FeeCsvEntity row : rows) {
+			baseFee = baseFee + Float.valueOf(row.getQuantity()) * Float.valueOf(row.getPrice().floatValue());
+		}
+		return Math.round(baseFee + (baseFee * SURCHARGE));
+	}
+
+	@Benchmark
+	public long bigDecimalAccumulation() {
+		BigDecimal baseFee = BigDecimal.ZERO;
+		for (FeeCsvEntity row : rows) {
+			baseFee = baseFee.add(row.getPrice().multiply(BigDecimal.valueOf(row.getQuantity())));
+		}
+		return baseFee.multiply(BigDecimal.valueOf(1.15)).setScale(0, RoundingMode.HALF_UP)
+				.longValue();
+	}
+
+	@Benchmark
+	public long fixedPointAccumulation() {
+		long cents = 0;
+		for (int i = 0; i < quantities.length; i++) {
+			cents += FixedPointFees.lineCents(quantities[i], priceCents[i]);
+		}
+		return FixedPointFees.surchargedFee(cents, FixedPointFees.toBasisPoints(SURCHARGE));
+	}
+}
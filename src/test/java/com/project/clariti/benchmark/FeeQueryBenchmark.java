@@ -0,0 +1,104 @@
+package com.project.clariti.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.Repo.FeeCsvRepository;
+import com.project.clariti.aggregate.ColumnarFeeService;
+import com.project.clariti.aggregate.FeeColumns;
+import com.project.clariti.aggregate.FeeCubeService;
+import com.project.clariti.dto.FeeSummary;
+import com.project.clariti.service.FeeCalculatorDBService;
+
+/**
+ * FeeQueryBenchmark measures the filter query, the database aggregate, the fee cube lookup,
+ * the columnar store scan and the full fee calculation with surcharge on raw_fees.csv, at a broad
+ * (department only), a medium and a narrow (all four filters) selectivity.
+ * The result cache is disabled so every call computes the fee
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class FeeQueryBenchmark {
+
+	@Param({ "department", "department_category", "all_filters" })
+	public String selectivity;
+
+	private ConfigurableApplicationContext context;
+	private FeeCsvRepository repo;
+	private FeeCubeService feeCube;
+	private FeeColumns columns;
+	private FeeCalculatorDBService service;
+
+	private String department = "Sales";
+	private String category = "";
+	private String subCategory = "";
+	private String type = "";
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		context = BenchmarkContext.start("querybench", "fee.cache.enabled=false");
+		BenchmarkContext.loadRawFees(context);
+		repo = context.getBean(FeeCsvRepository.class);
+		feeCube = context.getBean(FeeCubeService.class);
+		columns = context.getBean(ColumnarFeeService.class).load();
+		service = context.getBean(FeeCalculatorDBService.class);
+		if (!"department".equals(selectivity)) {
+			category = "Pre Sales";
+		}
+		if ("all_filters".equals(selectivity)) {
+			subCategory = "Cat1";
+			type = "TypeA";
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<FeeCsvEntity> repositoryDetails() {
+		return repo.getDepartmentDetails(department, category, subCategory, type);
+	}
+
+	@Benchmark
+	public FeeSummary repositorySummary() {
+		return repo.getFeeSummary(department, category, subCategory, type);
+	}
+
+	@Benchmark
+	public FeeSummary cubeLookup() {
+		return feeCube.lookup(department, category, subCategory, type);
+	}
+
+	@Benchmark
+	public FeeSummary columnarLookup() {
+		return columns.lookup(department, category, subCategory, type);
+	}
+
+	@Benchmark
+	public ResponseEntity<Object> feeWithSurcharge() {
+		return service.getDepartmentFeeFromDb(department, category, subCategory, type);
+	}
+}
@@ -0,0 +1,30 @@
+package com.project.clariti.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of this package with the GC profiler for allocation rates,
+ * writing the results to target/jmh-result.json.
+ * Excluded from the default build, run with: mvn -Pbenchmark test
+ * and select benchmarks with -Djmh.include=regex, e.g. -Djmh.include=FeeQueryBenchmark
+ */
+@Tag("benchmark")
+public class JmhBenchmarksTest {
+
+	@Test
+	void runBenchmarks() throws Exception {
+		Options options = new OptionsBuilder()
+				.include(System.getProperty("jmh.include", getClass().getPackageName() + ".*Benchmark"))
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result("target/jmh-result.json")
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,95 @@
+package com.project.clariti.benchmark;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.opencsv.CSVReader;
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.Repo.FeeCsvBulkLoader;
+import com.project.clariti.Repo.FeeCsvRepository;
+import com.project.clariti.utils.FeeCsvRowMapper;
+
+/**
+ * PersistBenchmark measures writing the parsed raw_fees.csv rows into an empty H2 table
+ * with JPA saveAll and with the JDBC bulk loader, in chunks of 1000 rows
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PersistBenchmark {
+
+	private static final int CHUNK_SIZE = 1000;
+
+	private ConfigurableApplicationContext context;
+	private FeeCsvRepository repo;
+	private FeeCsvBulkLoader bulkLoader;
+	private List<List<FeeCsvEntity>> chunks;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		context = BenchmarkContext.start("persistbench", "fee.cube.enabled=false");
+		repo = context.getBean(FeeCsvRepository.class);
+		bulkLoader = context.getBean(FeeCsvBulkLoader.class);
+		chunks = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(BenchmarkContext.RAW_FEES, StandardCharsets.UTF_8);
+				CSVReader csvReader = new CSVReader(reader)) {
+			csvReader.readNext();
+			List<FeeCsvEntity> chunk = new ArrayList<>();
+			String[] columns;
+			long rowNumber = 0;
+			while ((columns = csvReader.readNext()) != null) {
+				chunk.add(FeeCsvRowMapper.toEntity(columns, ++rowNumber));
+				if (chunk.size() == CHUNK_SIZE) {
+					chunks.add(chunk);
+					chunk = new ArrayList<>();
+				}
+			}
+			if (!chunk.isEmpty()) {
+				chunks.add(chunk);
+			}
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void emptyTable() {
+		repo.deleteAllInBatch();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public void jpaSaveAll() {
+		chunks.forEach(repo::saveAll);
+	}
+
+	@Benchmark
+	public void jdbcBulkLoader() {
+		long generation = bulkLoader.newGeneration();
+		chunks.forEach(chunk -> bulkLoader.stageChunk(generation, chunk));
+		bulkLoader.publish(generation, List.of());
+	}
+}
@@ -0,0 +1,129 @@
+package com.project.clariti.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.project.clariti.dto.FeeCacheStats;
+import com.project.clariti.dto.FeeSummary;
+
+public class FeeResultCacheTest {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private FeeSummary load() {
+		loads.incrementAndGet();
+		return new FeeSummary(10, 1);
+	}
+
+	@Test
+	void testHitAfterMiss() {
+		FeeResultCache cache = new FeeResultCache(true, 10, Duration.ofMinutes(10));
+
+		FeeSummary first = cache.get("Sales", "", "", "", this::load);
+		FeeSummary second = cache.get("Sales", null, "", "", this::load);
+
+		assertSame(first, second);
+		assertEquals(1, loads.get());
+		FeeCacheStats stats = cache.getStats();
+		assertEquals(1, stats.getHits());
+		assertEquals(1, stats.getMisses());
+		assertEquals(0.5, stats.getHitRate());
+	}
+
+	@Test
+	void testSizeEviction() {
+		FeeResultCache cache = new FeeResultCache(true, 2, Duration.ofMinutes(10));
+
+		cache.get("Sales", "", "", "", this::load);
+		cache.get("Support", "", "", "", this::load);
+		cache.get("Sales", "", "", "", this::load);
+		cache.get("Marketing", "", "", "", this::load);
+		// Support was the least recently used entry
+		cache.get("Sales", "", "", "", this::load);
+		cache.get("Support", "", "", "", this::load);
+
+		assertEquals(4, loads.get());
+		assertEquals(2, cache.getStats().getEvictions());
+		assertEquals(2, cache.getStats().getSize());
+	}
+
+	@Test
+	void testTimeEviction() {
+		FeeResultCache cache = new FeeResultCache(true, 10, Duration.ZERO);
+
+		cache.get("Sales", "", "", "", this::load);
+		cache.get("Sales", "", "", "", this::load);
+
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.getStats().getEvictions());
+	}
+
+	@Test
+	void testInvalidateAll() {
+		FeeResultCache cache = new FeeResultCache(true, 10, Duration.ofMinutes(10));
+
+		cache.get("Sales", "", "", "", this::load);
+		cache.invalidateAll();
+		cache.get("Sales", "", "", "", this::load);
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void testValueLoadedBeforeInvalidationIsNotCached() {
+		FeeResultCache cache = new FeeResultCache(true, 10, Duration.ofMinutes(10));
+
+		cache.get("Sales", "", "", "", () -> {
+			// an upload commits while this value is computed from the old data
+			cache.invalidateAll();
+			return load();
+		});
+
+		assertEquals(0, cache.getStats().getSize());
+	}
+
+	@Test
+	void testStripedCacheStaysBoundedUnderConcurrentLookups() throws Exception {
+		FeeResultCache cache = new FeeResultCache(true, 4096, Duration.ofMinutes(10));
+		int threads = 8;
+		int lookups = 20_000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int seed = t;
+				futures.add(executor.submit(() -> {
+					Random random = new Random(seed);
+					for (int i = 0; i < lookups; i++) {
+						String department = "Dept" + random.nextInt(6000);
+						assertEquals(10, cache.get(department, "", "", "", this::load).getBaseFee());
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		FeeCacheStats stats = cache.getStats();
+		assertEquals(threads * lookups, stats.getHits() + stats.getMisses());
+		assertEquals(loads.get(), stats.getMisses());
+		assertTrue(stats.getSize() <= 4096);
+		// two threads missing the same key both load it, the second put evicts nothing
+		assertTrue(stats.getEvictions() <= stats.getMisses() - stats.getSize());
+	}
+}
@@ -0,0 +1,83 @@
+package com.project.clariti.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+
+import com.project.clariti.SpringBootProjectWithDbApplication;
+import com.zaxxer.hikari.HikariDataSource;
+
+public class VirtualThreadConfigTest {
+
+	private static final boolean VIRTUAL_THREADS = Runtime.version().feature() >= 21;
+
+	@Test
+	void testAvailableFromJava21() {
+		assertEquals(VIRTUAL_THREADS, VirtualThreadConfig.isAvailable());
+	}
+
+	@Test
+	void testRequestsRunOnVirtualThreadsOrStartupFails() {
+		VirtualThreadConfig config = new VirtualThreadConfig();
+		if (VIRTUAL_THREADS) {
+			ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+			config.virtualThreadProtocolHandlerCustomizer().customize(protocolHandler);
+			verify(protocolHandler).setExecutor(any(Executor.class));
+
+			ExecutorService executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+			assertNotNull(executor);
+			executor.shutdown();
+		} else {
+			// never a silent fallback to the Tomcat pool
+			IllegalStateException e = assertThrows(IllegalStateException.class,
+					config::virtualThreadProtocolHandlerCustomizer);
+			assertEquals("fee.web.virtual-threads.enabled needs Java 21 or later, this runtime is Java "
+					+ Runtime.version().feature(), e.getMessage());
+			assertThrows(IllegalStateException.class, VirtualThreadConfig::newVirtualThreadPerTaskExecutor);
+		}
+	}
+
+	@Test
+	void testApplicationDoesNotStartWithoutVirtualThreads() {
+		if (VIRTUAL_THREADS) {
+			return;
+		}
+		SpringApplication application = new SpringApplication(SpringBootProjectWithDbApplication.class);
+		Exception e = assertThrows(Exception.class, () -> application.run(
+				"--spring.config.location=classpath:application-test.properties",
+				"--spring.datasource.url=jdbc:h2:mem:virtualthreadtest;DB_CLOSE_DELAY=-1",
+				"--server.port=0",
+				"--fee.web.virtual-threads.enabled=true"));
+		Throwable cause = e;
+		while (cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		assertEquals(IllegalStateException.class, cause.getClass());
+	}
+
+	@Test
+	void testHikariPoolResizedToDbPoolSize() {
+		BeanPostProcessor sizer = VirtualThreadConfig.virtualThreadPoolSizer(7);
+		try (HikariDataSource dataSource = new HikariDataSource()) {
+			assertSame(dataSource, sizer.postProcessBeforeInitialization(dataSource, "dataSource"));
+
+			assertEquals(7, dataSource.getMaximumPoolSize());
+			assertEquals(7, dataSource.getMinimumIdle());
+		}
+
+		Object other = new Object();
+		assertSame(other, sizer.postProcessBeforeInitialization(other, "other"));
+	}
+}
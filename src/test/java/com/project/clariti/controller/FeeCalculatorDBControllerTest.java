@@ -1,7 +1,9 @@
 package com.project.clariti.controller;
 
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.doNothing;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -10,6 +12,7 @@ import static org.mockito.Mockito.when;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +20,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
@@ -26,14 +30,19 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.jayway.jsonpath.JsonPath;
+import com.project.clariti.dto.CsvRowError;
+import com.project.clariti.dto.UploadReport;
 import com.project.clariti.service.FeeCalculatorDBService;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@AutoConfigureObservability
 @ExtendWith({SpringExtension.class, MockitoExtension.class})
 @TestPropertySource(locations = "classpath:application-test.properties")
 public class FeeCalculatorDBControllerTest {
@@ -63,6 +72,108 @@ public class FeeCalculatorDBControllerTest {
 	}
 
 
+	@Test
+	public void testCalculateFeeBatch() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/calculateFeeFromDB/batch")
+				.content("[{\"department\":\"IT\"},{\"department\":\"\",\"category\":\"cat1\"}]")
+				.contentType(MediaType.APPLICATION_JSON))
+		.andExpect(MockMvcResultMatchers.status().is2xxSuccessful())
+		.andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value(200))
+		.andExpect(MockMvcResultMatchers.jsonPath("$[0].message").value("There is no data for : IT"))
+		.andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value(400))
+		.andExpect(MockMvcResultMatchers.jsonPath("$[1].message").value("Department is empty"));
+
+	}
+
+	@Test
+	public void testPrometheusMetrics() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/calculateFeeFromDB")
+				.param("department", "IT"))
+		.andExpect(MockMvcResultMatchers.status().is2xxSuccessful());
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+		.andExpect(MockMvcResultMatchers.status().is2xxSuccessful())
+		.andExpect(MockMvcResultMatchers.content().string(allOf(
+				containsString("http_server_requests_seconds_bucket"),
+				containsString("fee_query_stage_seconds_count"),
+				containsString("fee_query_rows_count"),
+				containsString("fee_cache_requests_total"))));
+
+	}
+
+	@Test
+	public void testUploadJob() throws Exception {
+
+		MockMultipartFile file = new MockMultipartFile("file", "header_only.csv", "text/csv",
+				"Id,Name,Description__c,Department__c,Category__c,Sub_Category__c,Type__c,Quantity__c,Unit_Price__c\n"
+						.getBytes());
+		String body = mockMvc.perform(MockMvcRequestBuilders.multipart("/uploadJobs").file(file))
+		.andExpect(MockMvcResultMatchers.status().isAccepted())
+		.andExpect(MockMvcResultMatchers.jsonPath("$.fileName").value("header_only.csv"))
+		.andReturn().getResponse().getContentAsString();
+		String jobId = JsonPath.read(body, "$.id");
+
+		String state = "QUEUED";
+		for(int i = 0; i < 100 && !state.equals("SUCCEEDED"); i++) {
+			Thread.sleep(50);
+			state = JsonPath.read(mockMvc.perform(MockMvcRequestBuilders.get("/uploadJobs/" + jobId))
+					.andExpect(MockMvcResultMatchers.status().isOk())
+					.andReturn().getResponse().getContentAsString(), "$.state");
+		}
+		assertEquals("SUCCEEDED", state);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/uploadJobs/unknown"))
+		.andExpect(MockMvcResultMatchers.status().isNotFound());
+
+	}
+
+	@Test
+	public void testExportFees() throws Exception {
+
+		MvcResult export = mockMvc.perform(MockMvcRequestBuilders.get("/exportFees")
+				.param("department", "NoSuchDepartment")
+				.param("format", "csv"))
+		.andExpect(MockMvcResultMatchers.request().asyncStarted())
+		.andReturn();
+		mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(export))
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.content().contentType("text/csv"))
+		.andExpect(MockMvcResultMatchers.header().string("Content-Disposition", containsString("fees.csv")))
+		.andExpect(MockMvcResultMatchers.content().string(
+				"Id,Name,Description__c,Department__c,Category__c,Sub_Category__c,Type__c,Quantity__c,Unit_Price__c\n"));
+
+		MvcResult badFormat = mockMvc.perform(MockMvcRequestBuilders.get("/exportFees")
+				.param("department", "Marketing")
+				.param("format", "xml"))
+		.andReturn();
+		mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(badFormat))
+		.andExpect(MockMvcResultMatchers.status().isBadRequest())
+		.andExpect(MockMvcResultMatchers.content().string(containsString("Unknown export format: xml")));
+
+	}
+
+	@Test
+	public void testSurchargeAdminApi() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.put("/surcharges/LoadTest").param("surcharge", "0.25"))
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.jsonPath("$.LoadTest").value(0.25))
+		.andExpect(MockMvcResultMatchers.jsonPath("$.Marketing").value(0.1));
+
+		mockMvc.perform(MockMvcRequestBuilders.put("/surcharges/LoadTest").param("surcharge", "-2"))
+		.andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+		mockMvc.perform(MockMvcRequestBuilders.delete("/surcharges/LoadTest"))
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.jsonPath("$.LoadTest").doesNotExist());
+
+		mockMvc.perform(MockMvcRequestBuilders.delete("/surcharges/LoadTest"))
+		.andExpect(MockMvcResultMatchers.status().isNotFound());
+
+	}
+
 	@Test
 	void testGetDepartmentFeeFromDb() {
 		String department = "TestDepartment";
@@ -84,14 +195,14 @@ public class FeeCalculatorDBControllerTest {
 	void testUploadCsv() throws IOException {
 		InputStream inputStream = new ByteArrayInputStream("test,csv,data".getBytes());
 		MultipartFile file = new MockMultipartFile("file", "test.csv", "text/csv", inputStream);
-		ResponseEntity<String> expectedResponse = ResponseEntity.status(HttpStatus.OK)
-				.body("CSV file uploaded and data processed successfully.");
-
-		doNothing().when(service).loadCsvDataIntoDatabase(file);
+		UploadReport report = new UploadReport(3, 2, 1, 4L, List.of(
+				new CsvRowError(2, "r2", "Quantity__c", "Invalid quantity 'ten' in row 2", "r2,Item,Desc,Sales,ABM,Cat1,TypeA,ten,1")));
+		when(service.loadCsvDataIntoDatabase(file)).thenReturn(report);
 
-		ResponseEntity<String> actualResponse = controller.uploadCsv(file);
+		ResponseEntity<Object> actualResponse = controller.uploadCsv(file);
 
-		assertEquals(expectedResponse, actualResponse);
+		assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+		assertSame(report, actualResponse.getBody());
 		verify(service).loadCsvDataIntoDatabase(file);
 	}
 	
@@ -102,12 +213,20 @@ public class FeeCalculatorDBControllerTest {
 
         doThrow(new RuntimeException("check csv exception")).when(service).loadCsvDataIntoDatabase(file);
 
-        ResponseEntity<String> response = controller.uploadCsv(file);
+        ResponseEntity<Object> response = controller.uploadCsv(file);
 
         verify(service, times(1)).loadCsvDataIntoDatabase(file);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertEquals("Error processing CSV file: check csv exception", response.getBody());
     }
-	
-}
\ No newline at end of file
+
+	@Test
+	public void testImportCsvDisabled() {
+		ResponseEntity<Object> response = controller.importCsv("fees.csv");
+
+		assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+		assertEquals("Server-side csv import is disabled", response.getBody());
+		verify(service, times(0)).importCsvFile("fees.csv");
+	}
+}
@@ -0,0 +1,126 @@
+package com.project.clariti.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.project.clariti.Repo.FeeDimensionDictionary;
+import com.project.clariti.Repo.FeeDimensionDictionary.Dimension;
+import com.project.clariti.service.FeeCalculatorDBService;
+import com.project.clariti.service.IngestProgress;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:reactivetest;DB_CLOSE_DELAY=-1",
+		"fee.query.engine=jpa",
+		"fee.cache.enabled=false" })
+public class ReactiveFeeControllerTest {
+
+	private static final String CSV = "Id,Name,Description__c,Department__c,Category__c,Sub_Category__c,Type__c,Quantity__c,Unit_Price__c\n"
+			+ "r1,Item1,Desc1,Marketing,ABM,Cat1,TypeA,2,50\n"
+			+ "r2,Item2,Desc2,Marketing,ABM,Cat2,TypeB,3,30\n"
+			+ "r3,Item3,Desc3,Sales,Field,Cat1,TypeA,1,10\n";
+
+	@Autowired
+	private WebTestClient webClient;
+
+	@Autowired
+	private FeeCalculatorDBService feeService;
+
+	@Autowired
+	private FeeDimensionDictionary dictionary;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void loadRows() {
+		byte[] bytes = CSV.getBytes(StandardCharsets.UTF_8);
+		feeService.loadCsvDataIntoDatabase(new ByteArrayInputStream(bytes), bytes.length, IngestProgress.NONE);
+	}
+
+	@Test
+	public void testCalculateFee() {
+
+		// (2 * 50 + 3 * 30) * 1.1 aggregated through R2DBC
+		webClient.get().uri("/calculateFeeFromDB?department=Marketing&category=ABM").exchange()
+		.expectStatus().isOk()
+		.expectBody(String.class).isEqualTo("209");
+
+		webClient.get().uri("/calculateFeeFromDB?department=Marketing&category=Unknown").exchange()
+		.expectStatus().isOk()
+		.expectBody(String.class).isEqualTo("There is no data for : Marketing Unknown");
+
+		webClient.get().uri("/calculateFeeFromDB?department= ").exchange()
+		.expectStatus().isBadRequest();
+
+	}
+
+	@Test
+	public void testExportFees() {
+
+		List<String> rows = webClient.get().uri("/exportFees?department=Marketing&subCategory=Cat2&format=ndjson")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType("application/x-ndjson")
+				.returnResult(String.class).getResponseBody().collectList().block();
+		assertEquals(List.of("{\"id\":\"r2\",\"name\":\"Item2\",\"description\":\"Desc2\",\"department\":\"Marketing\","
+				+ "\"category\":\"ABM\",\"subCategory\":\"Cat2\",\"type\":\"TypeB\",\"quantity\":3,\"price\":30.00}"), rows);
+
+		webClient.get().uri("/exportFees?department=Marketing").exchange()
+		.expectStatus().isOk()
+		.expectHeader().contentType("text/csv")
+		.expectBody(String.class).isEqualTo(
+				"Id,Name,Description__c,Department__c,Category__c,Sub_Category__c,Type__c,Quantity__c,Unit_Price__c\n"
+				+ "r1,Item1,Desc1,Marketing,ABM,Cat1,TypeA,2,50.00\n"
+				+ "r2,Item2,Desc2,Marketing,ABM,Cat2,TypeB,3,30.00\n");
+
+		webClient.get().uri("/exportFees?department=Marketing&format=xml").exchange()
+		.expectStatus().isBadRequest();
+
+	}
+
+	@Test
+	public void testExportFeesWithCodesAddedByAnotherWriter() {
+
+		// a type the dictionary has not read yet, decoded off the event loop
+		int type = jdbcTemplate.queryForObject("SELECT MAX(code) + 1 FROM fee_dimension_tbl WHERE dimension = ?",
+				Integer.class, Dimension.TYPE.ordinal());
+		jdbcTemplate.update("INSERT INTO fee_dimension_tbl (dimension, code, name) VALUES (?, ?, ?)",
+				Dimension.TYPE.ordinal(), type, "TypeZ");
+		jdbcTemplate.update("MERGE INTO fee_csv_tbl (id, name, description, department_id, category_id, "
+				+ "sub_category_id, type_id, quantity, price) KEY (id) VALUES ('r4', 'Item4', 'Desc4', ?, ?, ?, ?, 4, 2.50)",
+				dictionary.find(Dimension.DEPARTMENT, "Marketing"), dictionary.find(Dimension.CATEGORY, "ABM"),
+				dictionary.find(Dimension.SUB_CATEGORY, "Cat1"), type);
+		assertFalse(dictionary.isKnown(Dimension.TYPE, type));
+		// a filter value the dictionary does not have matches nothing, without reading the table
+		assertEquals(FeeDimensionDictionary.UNKNOWN, dictionary.find(Dimension.TYPE, "TypeZ"));
+
+		try {
+			webClient.get().uri("/exportFees?department=Marketing&category=ABM&subCategory=Cat1").exchange()
+			.expectStatus().isOk()
+			.expectBody(String.class).isEqualTo(
+					"Id,Name,Description__c,Department__c,Category__c,Sub_Category__c,Type__c,Quantity__c,Unit_Price__c\n"
+					+ "r1,Item1,Desc1,Marketing,ABM,Cat1,TypeA,2,50.00\n"
+					+ "r4,Item4,Desc4,Marketing,ABM,Cat1,TypeZ,4,2.50\n");
+		} finally {
+			jdbcTemplate.update("DELETE FROM fee_csv_tbl WHERE id = 'r4'");
+		}
+
+	}
+}
@@ -1,38 +1,80 @@
 package com.project.clariti.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
-import java.util.ArrayList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.Repo.FeeCsvBulkLoader;
+import com.project.clariti.aggregate.ColumnarFeeService;
+import com.project.clariti.aggregate.FeeCubeService;
+import com.project.clariti.aggregate.FeeQueryEngine;
+import com.project.clariti.cache.FeeResultCache;
 import com.project.clariti.Repo.FeeCsvRepository;
+import com.project.clariti.dto.CsvRowError;
+import com.project.clariti.dto.DeltaUploadResult;
+import com.project.clariti.dto.FeeBreakdown;
+import com.project.clariti.dto.FeeFilter;
+import com.project.clariti.dto.FeeGroupSummary;
+import com.project.clariti.dto.FeeResult;
+import com.project.clariti.dto.FeeSummary;
+import com.project.clariti.dto.UploadReport;
 import com.project.clariti.utils.Constants;
+import com.project.clariti.utils.FeeCsvRowMapper;
+import com.project.clariti.utils.FeeExportWriter;
 
 
 @SpringBootTest
@@ -43,38 +85,32 @@ public class FeeCalculatorDBServiceTest {
     @Mock
     private FeeCsvRepository mockRepo;
     
+    @Mock
+    private FeeCsvBulkLoader mockBulkLoader;
+    
+    @Mock
+    private FeeCubeService mockFeeCube;
+    
+    @Mock
+    private ColumnarFeeService mockColumnarStore;
+    
     @Autowired
     @InjectMocks
     private FeeCalculatorDBService feeCalculatorDBService;
 
+    @Autowired
+    private FeeResultCache feeResultCache;
+
     @Value("${expected.csv.headers}")
     private List<String> expectedCsvHeaders;
 
-    private List<FeeCsvEntity> mockFeeDetails;
+    private FeeSummary mockFeeSummary;
 
     @BeforeEach
     void setUp() {
-        // Create mock data
-        mockFeeDetails = Arrays.asList(
-            createMockFeeCsvEntity("1", "Fee1", "Description1", "Department1", "Category1", "SubCategory1", "Type1", "2", "50"),
-            createMockFeeCsvEntity("2", "Fee2", "Description2", "Department1", "Category1", "SubCategory1", "Type1", "3", "30")
-        );
-    }
-    
- // Helper method to create a mock FeeCsvEntity
-    private FeeCsvEntity createMockFeeCsvEntity(String id, String name, String description, String department,
-            String category, String subCategory, String type, String quantity, String price) {
-        FeeCsvEntity entity = new FeeCsvEntity();
-        entity.setId(id);
-        entity.setName(name);
-        entity.setDescription(description);
-        entity.setDepartment(department);
-        entity.setCategory(category);
-        entity.setSubCategory(subCategory);
-        entity.setType(type);
-        entity.setQuantity(quantity);
-        entity.setPrice(price);
-        return entity;
+        // Create mock data: 2 * 50 + 3 * 30
+        mockFeeSummary = new FeeSummary(190, 2);
+        feeResultCache.invalidateAll();
     }
     
     @Test
@@ -87,11 +123,335 @@ public class FeeCalculatorDBServiceTest {
 
         MockMultipartFile csvFile = new MockMultipartFile("file.csv", "file.csv", "text/csv", csvData.toString().getBytes());
         
-        when(mockRepo.saveAll(anyList())).thenReturn(mockFeeDetails);
+        when(mockBulkLoader.newGeneration()).thenReturn(7L);
 
         feeCalculatorDBService.loadCsvDataIntoDatabase(csvFile);
 
-        verify(mockRepo, times(1)).saveAll(anyList());
+        InOrder publishOrder = inOrder(mockBulkLoader, mockFeeCube);
+        publishOrder.verify(mockBulkLoader, times(1)).stageChunk(eq(7L), anyList());
+        publishOrder.verify(mockBulkLoader).publish(7L, List.of());
+        publishOrder.verify(mockFeeCube, times(1)).rebuild();
+        verify(mockBulkLoader, times(0)).discard(anyLong());
+        verify(mockRepo, times(0)).saveAll(anyList());
+        assertEquals(0, feeResultCache.getStats().getSize());
+    }
+    
+    @Test
+    void testLoadCsvDataIntoDatabaseInChunks() throws Exception {
+        StringBuilder csvData = new StringBuilder(String.join(",", expectedCsvHeaders)).append("\n");
+        for (int i = 1; i <= 5; i++) {
+            csvData.append(i).append(",Item,Description,Dept1,Category1,SubCategory1,Type1,10,20.0\n");
+        }
+        MockMultipartFile csvFile = new MockMultipartFile("file.csv", "file.csv", "text/csv", csvData.toString().getBytes());
+
+        ReflectionTestUtils.setField(feeCalculatorDBService, "ingestChunkSize", 2);
+        try {
+            feeCalculatorDBService.loadCsvDataIntoDatabase(csvFile);
+        } finally {
+            ReflectionTestUtils.setField(feeCalculatorDBService, "ingestChunkSize", 1000);
+        }
+
+        // 5 rows with chunk size 2 are staged as 2 + 2 + 1 under one generation
+        verify(mockBulkLoader, times(1)).newGeneration();
+        verify(mockBulkLoader, times(3)).stageChunk(anyLong(), anyList());
+        verify(mockBulkLoader, times(1)).publish(anyLong(), anyCollection());
+    }
+    
+    @Test
+    void testLoadCsvDeltaIntoDatabase() {
+        String unchangedRow = "1,Item1,Description1,Dept1,Category1,SubCategory1,Type1,10,20.0";
+        String csvData = String.join(",", expectedCsvHeaders) + "\n"
+                + unchangedRow + "\n"
+                + "2,Item2,Description2,Dept1,Category1,SubCategory1,Type1,10,25.50\n"
+                + "3,Item3,Description3,Dept1,Category1,SubCategory1,Type1,1,5\n";
+        MockMultipartFile csvFile = new MockMultipartFile("file.csv", "file.csv", "text/csv", csvData.getBytes());
+        long unchangedHash = FeeCsvRowMapper.toEntity(unchangedRow.split(","), 1).getContentHash();
+        Map<String, Long> storedHashes = new HashMap<>(Map.of("1", unchangedHash, "2", unchangedHash, "4", 7L));
+        when(mockBulkLoader.findContentHashes()).thenReturn(storedHashes);
+        when(mockBulkLoader.publish(anyLong(), eq(Set.of("4")))).thenReturn(1);
+
+        DeltaUploadResult result = feeCalculatorDBService.loadCsvDeltaIntoDatabase(csvFile, true);
+
+        assertEquals(3, result.getRowsRead());
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(1, result.getDeleted());
+        ArgumentCaptor<List<FeeCsvEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(mockBulkLoader).stageChunk(anyLong(), saved.capture());
+        assertEquals(List.of("2", "3"), saved.getValue().stream().map(FeeCsvEntity::getId).toList());
+        verify(mockFeeCube, times(1)).rebuild();
+    }
+    
+    @Test
+    void testLoadCsvDeltaIntoDatabaseWithoutChanges() {
+        String row = "1,Item1,Description1,Dept1,Category1,SubCategory1,Type1,10,20.0";
+        MockMultipartFile csvFile = new MockMultipartFile("file.csv", "file.csv", "text/csv",
+                (String.join(",", expectedCsvHeaders) + "\n" + row + "\n").getBytes());
+        when(mockBulkLoader.findContentHashes()).thenReturn(
+                new HashMap<>(Map.of("1", FeeCsvRowMapper.toEntity(row.split(","), 1).getContentHash())));
+
+        DeltaUploadResult result = feeCalculatorDBService.loadCsvDeltaIntoDatabase(csvFile, false);
+
+        assertEquals(1, result.getUnchanged());
+        assertEquals(0, result.getInserted() + result.getUpdated() + result.getDeleted());
+        verify(mockBulkLoader, times(0)).stageChunk(anyLong(), anyList());
+        verify(mockBulkLoader, times(0)).publish(anyLong(), anyCollection());
+        verify(mockFeeCube, times(0)).rebuild();
+    }
+    
+    @Test
+    void testFailedUploadIsDiscardedWithoutPublishing() {
+        StringBuilder csvData = new StringBuilder(String.join(",", expectedCsvHeaders)).append("\n");
+        csvData.append("1,Item1,Description1,Dept1,Category1,SubCategory1,Type1,10,20.0\n");
+        csvData.append("2,Item2,Description2,Dept1,Category1,SubCategory1,Type1,5,20.0\n");
+        MockMultipartFile csvFile = new MockMultipartFile("file.csv", "file.csv", "text/csv", csvData.toString().getBytes());
+        when(mockBulkLoader.newGeneration()).thenReturn(9L);
+        doNothing().doThrow(new DataIntegrityViolationException("Value too long for column"))
+                .when(mockBulkLoader).stageChunk(eq(9L), anyList());
+
+        ReflectionTestUtils.setField(feeCalculatorDBService, "ingestChunkSize", 1);
+        try {
+            assertThrows(DataIntegrityViolationException.class, () -> feeCalculatorDBService.loadCsvDataIntoDatabase(csvFile));
+        } finally {
+            ReflectionTestUtils.setField(feeCalculatorDBService, "ingestChunkSize", 1000);
+        }
+
+        // the first row was staged, but the table and the cube keep the previous generation
+        verify(mockBulkLoader, times(2)).stageChunk(eq(9L), anyList());
+        verify(mockBulkLoader).discard(9L);
+        verify(mockBulkLoader, times(0)).publish(anyLong(), anyCollection());
+        verify(mockFeeCube, times(0)).rebuild();
+    }
+    
+    @Test
+    void testRowsArePersistedOnlyOncePublished() {
+        StringBuilder csvData = new StringBuilder(String.join(",", expectedCsvHeaders)).append("\n");
+        for (int i = 1; i <= 3; i++) {
+            csvData.append(i).append(",Item,Description,Dept1,Category1,SubCategory1,Type1,10,20.0\n");
+        }
+        byte[] csv = csvData.toString().getBytes(StandardCharsets.UTF_8);
+        AtomicLong staged = new AtomicLong();
+        AtomicLong persisted = new AtomicLong();
+        IngestProgress progress = new IngestProgress() {
+            @Override
+            public void rowsStaged(long rows) {
+                staged.addAndGet(rows);
+            }
+
+            @Override
+            public void rowsPersisted(long rows) {
+                persisted.addAndGet(rows);
+            }
+        };
+        when(mockBulkLoader.newGeneration()).thenReturn(9L, 10L);
+        when(mockBulkLoader.publish(anyLong(), anyCollection()))
+                .thenThrow(new DataIntegrityViolationException("Unique index or primary key violation"))
+                .thenReturn(0);
+
+        ReflectionTestUtils.setField(feeCalculatorDBService, "ingestChunkSize", 2);
+        try {
+            assertThrows(DataIntegrityViolationException.class, () -> feeCalculatorDBService
+                    .loadCsvDataIntoDatabase(new ByteArrayInputStream(csv), csv.length, progress));
+            // every row reached the staging table, none of them fee_csv_tbl
+            assertEquals(3, staged.get());
+            assertEquals(0, persisted.get());
+            verify(mockBulkLoader).discard(9L);
+
+            staged.set(0);
+            feeCalculatorDBService.loadCsvDataIntoDatabase(new ByteArrayInputStream(csv), csv.length, progress);
+            assertEquals(3, staged.get());
+            assertEquals(3, persisted.get());
+        } finally {
+            ReflectionTestUtils.setField(feeCalculatorDBService, "ingestChunkSize", 1000);
+        }
+    }
+    
+    @Test
+    void testImportCsvFileOutsideImportDirectory(@TempDir Path tempDir) throws Exception {
+        Path importDir = Files.createDirectories(tempDir.resolve("import/sub"));
+        Path outside = Files.writeString(tempDir.resolve("outside.csv"), String.join(",", expectedCsvHeaders) + "\n");
+        Files.createSymbolicLink(importDir.resolve("link.csv"), outside);
+        Files.createSymbolicLink(importDir.resolve("parent"), tempDir);
+
+        ReflectionTestUtils.setField(feeCalculatorDBService, "importDir", importDir.toString());
+        try {
+            for (String path : List.of("../../outside.csv", "../sub/../../outside.csv", outside.toString(),
+                    "link.csv", "parent/outside.csv", "parent/import/sub/link.csv")) {
+                IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                        () -> feeCalculatorDBService.importCsvFile(path));
+                assertEquals("No csv file " + path + " in the import directory", ex.getMessage());
+            }
+
+            ReflectionTestUtils.setField(feeCalculatorDBService, "importDir", "");
+            assertFalse(feeCalculatorDBService.isCsvImportEnabled());
+            assertThrows(IllegalStateException.class, () -> feeCalculatorDBService.importCsvFile("outside.csv"));
+        } finally {
+            ReflectionTestUtils.setField(feeCalculatorDBService, "importDir", "target/test-import");
+        }
+        verifyNoInteractions(mockBulkLoader);
+    }
+    
+    @Test
+    void testImportCsvFileReadsTheSameRowsAsUpload(@TempDir Path importDir) throws Exception {
+        String csv = String.join(",", expectedCsvHeaders) + "\r\n"
+                + "1,\"Item, one\",\"multi\nline \"\"quoted\"\"\",Dept1,Category1,SubCategory1,Type1,\"10\", 3.5 \r\n"
+                + "2,12\\\" pipe,\"a \\\"b\\\" c\",Dept1,Category1,SubCategory1,Type1,1,20\n"
+                + "\n"
+                + "3,Item3,back\\\\slash,Dept1,Category1,,Type1,2,99999999999999999\n"
+                + "\"\"\n"
+                + "4,Item4,Description4,Dept1,Category1,SubCategory1,Type1,ten,1\n"
+                + "5,Item5,Description5,Dept1,Category1,SubCategory1,Type1,1,1.234\n"
+                + "1,Item1 again,Description1,Dept1,Category1,SubCategory1,Type1,1,5\n"
+                + "6,Item6,Description6,Dept1\n"
+                + "7,Item7,Description7,Dept1,Category1,SubCategory1,Type1,3,9999999999.99";
+        Files.writeString(importDir.resolve("fees.csv"), csv);
+        MockMultipartFile csvFile = new MockMultipartFile("file.csv", "file.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8));
+        when(mockBulkLoader.newGeneration()).thenReturn(9L);
+
+        UploadReport uploaded = feeCalculatorDBService.loadCsvDataIntoDatabase(csvFile);
+        ArgumentCaptor<List<FeeCsvEntity>> uploadedRows = ArgumentCaptor.forClass(List.class);
+        verify(mockBulkLoader).stageChunk(eq(9L), uploadedRows.capture());
+        clearInvocations(mockBulkLoader);
+        ReflectionTestUtils.setField(feeCalculatorDBService, "importDir", importDir.toString());
+        UploadReport imported;
+        try {
+            imported = feeCalculatorDBService.importCsvFile("fees.csv");
+        } finally {
+            ReflectionTestUtils.setField(feeCalculatorDBService, "importDir", "target/test-import");
+        }
+        ArgumentCaptor<List<FeeCsvEntity>> importedRows = ArgumentCaptor.forClass(List.class);
+        verify(mockBulkLoader).stageChunk(eq(9L), importedRows.capture());
+
+        // the blank line and the "" line are skipped
+        assertEquals(8, uploaded.getRowsRead());
+        assertEquals(List.of("1", "2", "7"), uploadedRows.getValue().stream().map(FeeCsvEntity::getId).toList());
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L),
+                uploaded.getErrors().stream().map(CsvRowError::getRowNumber).toList());
+        assertEquals(uploaded.getRowsRead(), imported.getRowsRead());
+        assertEquals(uploaded.getRowsLoaded(), imported.getRowsLoaded());
+        assertEquals(uploadedRows.getValue().stream().map(this::columns).toList(),
+                importedRows.getValue().stream().map(this::columns).toList());
+        assertEquals(uploaded.getErrors().stream().map(this::columns).toList(),
+                imported.getErrors().stream().map(this::columns).toList());
+    }
+    
+    @Test
+    void testSequentialAndParallelUploadsReadTheSameRows() {
+        StringBuilder csv = new StringBuilder(String.join(",", expectedCsvHeaders)).append("\n");
+        for (int i = 1; i <= 30; i++) {
+            if (i % 7 == 0) {
+                csv.append("\"\"\n");
+            } else if (i % 9 == 0) {
+                csv.append("\n");
+            }
+            if (i == 12) {
+                csv.append(i).append(",Item,\"bad \"\"price\"\"\",Dept1,Category1,SubCategory1,Type1,1,abc\n");
+            } else if (i == 25) {
+                csv.append(i).append(",Item,Desc,Dept1\n");
+            } else {
+                csv.append(i).append(",\"Item, ").append(i).append("\",\"multi\nline\",Dept1,Category1,SubCategory1,Type1,")
+                        .append(i).append(",2.5\n");
+            }
+        }
+        csv.append("31,Item31,\"not closed,Dept1,Category1,SubCategory1,Type1,1,1\n");
+        MockMultipartFile csvFile = new MockMultipartFile("file.csv", "file.csv", "text/csv",
+                csv.toString().getBytes(StandardCharsets.UTF_8));
+        when(mockBulkLoader.newGeneration()).thenReturn(9L);
+
+        ReflectionTestUtils.setField(feeCalculatorDBService, "ingestChunkSize", 4);
+        ReflectionTestUtils.setField(feeCalculatorDBService, "parallelIngest", false);
+        UploadReport sequential;
+        UploadReport parallel;
+        ArgumentCaptor<List<FeeCsvEntity>> sequentialRows = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<FeeCsvEntity>> parallelRows = ArgumentCaptor.forClass(List.class);
+        try {
+            sequential = feeCalculatorDBService.loadCsvDataIntoDatabase(csvFile);
+            verify(mockBulkLoader, atLeastOnce()).stageChunk(eq(9L), sequentialRows.capture());
+            clearInvocations(mockBulkLoader);
+            ReflectionTestUtils.setField(feeCalculatorDBService, "parallelIngest", true);
+            parallel = feeCalculatorDBService.loadCsvDataIntoDatabase(csvFile);
+            verify(mockBulkLoader, atLeastOnce()).stageChunk(eq(9L), parallelRows.capture());
+        } finally {
+            ReflectionTestUtils.setField(feeCalculatorDBService, "parallelIngest", true);
+            ReflectionTestUtils.setField(feeCalculatorDBService, "ingestChunkSize", 1000);
+        }
+
+        assertEquals(31, sequential.getRowsRead());
+        assertEquals(28, sequential.getRowsLoaded());
+        assertEquals(List.of(12L, 25L, 31L), sequential.getErrors().stream().map(CsvRowError::getRowNumber).toList());
+        assertEquals(sequential.getRowsRead(), parallel.getRowsRead());
+        assertEquals(sequential.getRowsLoaded(), parallel.getRowsLoaded());
+        assertEquals(sequentialRows.getAllValues().stream().flatMap(List::stream).map(this::columns).toList(),
+                parallelRows.getAllValues().stream().flatMap(List::stream).map(this::columns).toList());
+        assertEquals(sequential.getErrors().stream().map(this::columns).toList(),
+                parallel.getErrors().stream().map(this::columns).toList());
+    }
+    
+    @Test
+    void testLoadCsvDataIntoDatabaseWithInvalidPrice() {
+        String csvData = String.join(",", expectedCsvHeaders) + "\n"
+                + "1,Item1,Description1,Dept1,Category1,SubCategory1,Type1,10,20.0\n"
+                + "2,Item2,Description2,Dept1,Category1,SubCategory1,Type1,10,abc\n";
+        MockMultipartFile csvFile = new MockMultipartFile("file.csv", "file.csv", "text/csv", csvData.getBytes());
+        when(mockBulkLoader.newGeneration()).thenReturn(9L);
+
+        UploadReport report = feeCalculatorDBService.loadCsvDataIntoDatabase(csvFile);
+
+        assertEquals(2, report.getRowsRead());
+        assertEquals(1, report.getRowsLoaded());
+        assertEquals(1, report.getRowsRejected());
+        assertEquals(9L, report.getGeneration());
+        CsvRowError error = report.getErrors().get(0);
+        assertEquals("Invalid price 'abc' in row 2", error.getMessage());
+        assertEquals("Unit_Price__c", error.getColumn());
+        assertEquals("2", error.getId());
+        assertEquals("2,Item2,Description2,Dept1,Category1,SubCategory1,Type1,10,abc", error.getRecord());
+        ArgumentCaptor<List<FeeCsvEntity>> staged = ArgumentCaptor.forClass(List.class);
+        verify(mockBulkLoader).stageChunk(eq(9L), staged.capture());
+        assertEquals(List.of("1"), staged.getValue().stream().map(FeeCsvEntity::getId).toList());
+        verify(mockBulkLoader).quarantine(9L, List.of(error));
+        verify(mockBulkLoader).publish(9L, List.of());
+        verify(mockFeeCube, times(1)).rebuild();
+    }
+    
+    @Test
+    void testUploadRejectsDuplicateIdsAndIncompleteRows() {
+        String csvData = String.join(",", expectedCsvHeaders) + "\n"
+                + "1,Item1,Description1,Dept1,Category1,SubCategory1,Type1,10,20.0\n"
+                + "2,Item2,Description2,Dept1,Category1\n"
+                + "\n"
+                + "3,Item3,Description3,,Category1,SubCategory1,Type1,1,5\n"
+                + "1,Item1 again,Description1,Dept1,Category1,SubCategory1,Type1,1,5\n"
+                + "4,Item4,Description4,Dept1,Category1,SubCategory1,Type1,1,5\n";
+        MockMultipartFile csvFile = new MockMultipartFile("file.csv", "file.csv", "text/csv", csvData.getBytes());
+        when(mockBulkLoader.newGeneration()).thenReturn(9L);
+
+        ReflectionTestUtils.setField(feeCalculatorDBService, "maxReportedErrors", 2);
+        UploadReport report;
+        try {
+            report = feeCalculatorDBService.loadCsvDataIntoDatabase(csvFile);
+        } finally {
+            ReflectionTestUtils.setField(feeCalculatorDBService, "maxReportedErrors", 100);
+        }
+
+        // the blank line is skipped and not counted
+        assertEquals(5, report.getRowsRead());
+        assertEquals(2, report.getRowsLoaded());
+        assertEquals(3, report.getRowsRejected());
+        assertTrue(report.isErrorsTruncated());
+        assertEquals(List.of("Row 2 has 5 columns, expected 9", "Department is empty in row 3"),
+                report.getErrors().stream().map(CsvRowError::getMessage).toList());
+        ArgumentCaptor<List<CsvRowError>> quarantined = ArgumentCaptor.forClass(List.class);
+        verify(mockBulkLoader).quarantine(eq(9L), quarantined.capture());
+        CsvRowError duplicate = quarantined.getValue().get(2);
+        assertEquals(4, duplicate.getRowNumber());
+        assertEquals("Id", duplicate.getColumn());
+        assertEquals("Duplicate Id '1' in row 4, the first row with it is loaded", duplicate.getMessage());
+        ArgumentCaptor<List<FeeCsvEntity>> staged = ArgumentCaptor.forClass(List.class);
+        verify(mockBulkLoader).stageChunk(eq(9L), staged.capture());
+        assertEquals(List.of("Item1", "Item4"), staged.getValue().stream().map(FeeCsvEntity::getName).toList());
     }
     
     @Test
@@ -119,7 +479,7 @@ public class FeeCalculatorDBServiceTest {
         String subCategory = "TestSubCategory";
         String type = "TestType";
 
-        when(mockRepo.getDepartmentDetails(department, category, subCategory, type)).thenReturn(new ArrayList<>());
+        when(mockRepo.getFeeSummary(department, category, subCategory, type)).thenReturn(FeeSummary.EMPTY);
 
         ResponseEntity<Object> responseEntity = feeCalculatorDBService.getDepartmentFeeFromDb(department, category, subCategory, type);
 
@@ -130,26 +490,26 @@ public class FeeCalculatorDBServiceTest {
     
     @Test
     void testGetDepartmentFeeFromDbNoSurcharge() {
-        when(mockRepo.getDepartmentDetails(anyString(), anyString(), anyString(), anyString())).thenReturn(mockFeeDetails);
+        when(mockRepo.getFeeSummary(anyString(), anyString(), anyString(), anyString())).thenReturn(mockFeeSummary);
 
         ResponseEntity<Object> response = feeCalculatorDBService.getDepartmentFeeFromDb("Department1", "Category1", "SubCategory1", "Type1");
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("No surcharge found for department: Department1 only base fee:190", response.getBody()); // Assuming the calculation is correct
 
-        verify(mockRepo, times(1)).getDepartmentDetails("Department1", "Category1", "SubCategory1", "Type1");
+        verify(mockRepo, times(1)).getFeeSummary("Department1", "Category1", "SubCategory1", "Type1");
     }
     
     @Test
     void testGetDepartmentFeeFromDbWithSurcharge() {
-        when(mockRepo.getDepartmentDetails(anyString(), anyString(), anyString(), anyString())).thenReturn(mockFeeDetails);
+        when(mockRepo.getFeeSummary(anyString(), anyString(), anyString(), anyString())).thenReturn(mockFeeSummary);
 
         ResponseEntity<Object> response = feeCalculatorDBService.getDepartmentFeeFromDb(Constants.MARKETING_DEPARTMENT, "Category1", "SubCategory1", "Type1");
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(209, response.getBody()); 
 
-        verify(mockRepo, times(1)).getDepartmentDetails(Constants.MARKETING_DEPARTMENT, "Category1", "SubCategory1", "Type1");
+        verify(mockRepo, times(1)).getFeeSummary(Constants.MARKETING_DEPARTMENT, "Category1", "SubCategory1", "Type1");
     }
 
     @Test
@@ -164,13 +524,13 @@ public class FeeCalculatorDBServiceTest {
     
     @Test
     void testGetDepartmentFeeFromDbException() {
-    	mockFeeDetails = Arrays.asList(createMockFeeCsvEntity("3", "Fee3", "Description3",
-				"Department3", "Category3", "SubCategory3", "Type3", "jhj", "50"));
-    	when(mockRepo.getDepartmentDetails(anyString(), anyString(), anyString(), anyString())).thenReturn(mockFeeDetails);
+    	// non-numeric quantities and prices are rejected at ingest, see FeeCsvRepositoryTest, a failing query is not
+    	when(mockRepo.getFeeSummary(anyString(), anyString(), anyString(), anyString()))
+    		.thenThrow(new DataAccessResourceFailureException("Connection is not available, request timed out"));
     	ResponseEntity<Object> response = feeCalculatorDBService.getDepartmentFeeFromDb("Department1", "Category1", "SubCategory1", "Type1");
     	
     	assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
-        assertEquals("Invalid numeric value: For input string: \"jhj\"", response.getBody());
+        assertEquals("Connection is not available, request timed out", response.getBody());
 
     }
 
@@ -182,7 +542,7 @@ public class FeeCalculatorDBServiceTest {
         String subCategory = "TestSubCategory";
         String type = "TestType";
         
-        when(mockRepo.getDepartmentDetails(department, category, subCategory, type)).thenReturn(mockFeeDetails);
+        when(mockRepo.getFeeSummary(department, category, subCategory, type)).thenReturn(mockFeeSummary);
 
         Float baseFee = feeCalculatorDBService.getBaseFee(department, category, subCategory, type);
 
@@ -196,12 +556,198 @@ public class FeeCalculatorDBServiceTest {
         String subCategory = "TestSubCategory";
         String type = "TestType";
         
-        mockFeeDetails = Arrays.asList(createMockFeeCsvEntity("3", "Fee3", "Description3",
-        				"Department3", "Category3", "SubCategory3", "Type3", "jhj", "50"));
-        when(mockRepo.getDepartmentDetails(department, category, subCategory, type)).thenReturn(mockFeeDetails);
+        when(mockRepo.getFeeSummary(department, category, subCategory, type))
+        	.thenThrow(new DataAccessResourceFailureException("Connection is not available, request timed out"));
 
         assertThrows(RuntimeException.class, () ->
         	feeCalculatorDBService.getBaseFee(department, category, subCategory, type)
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetBaseFeeFromFeeCube() {
+        when(mockFeeCube.lookup("Department1", "", "", "Type1")).thenReturn(mockFeeSummary);
+
+        Float baseFee = feeCalculatorDBService.getBaseFee("Department1", "", "", "Type1");
+
+        assertEquals(190.0f, baseFee);
+        verifyNoInteractions(mockRepo);
+    }
+
+    @Test
+    void testGetBaseFeeFromColumnarEngine() {
+        when(mockColumnarStore.lookup("Department1", "Category1", "", "")).thenReturn(mockFeeSummary);
+
+        ReflectionTestUtils.setField(feeCalculatorDBService, "queryEngine", FeeQueryEngine.Type.COLUMNAR);
+        try {
+            assertEquals(190f, feeCalculatorDBService.getBaseFee("Department1", "Category1", "", ""));
+        } finally {
+            ReflectionTestUtils.setField(feeCalculatorDBService, "queryEngine", FeeQueryEngine.Type.CUBE);
+        }
+
+        verifyNoInteractions(mockRepo, mockFeeCube);
+    }
+    
+    @Test
+    void testGetBaseFeeFromJpaEngine() {
+        when(mockRepo.getFeeSummary("Department1", "", "", "")).thenReturn(mockFeeSummary);
+
+        ReflectionTestUtils.setField(feeCalculatorDBService, "queryEngine", FeeQueryEngine.Type.JPA);
+        try {
+            assertEquals(190f, feeCalculatorDBService.getBaseFee("Department1", "", "", ""));
+        } finally {
+            ReflectionTestUtils.setField(feeCalculatorDBService, "queryEngine", FeeQueryEngine.Type.CUBE);
+        }
+
+        verifyNoInteractions(mockFeeCube, mockColumnarStore);
+    }
+    
+    @Test
+    void testGetBaseFeeServedFromResultCache() {
+        when(mockRepo.getFeeSummary("Department1", "Category1", "", "")).thenReturn(mockFeeSummary);
+
+        feeCalculatorDBService.getBaseFee("Department1", "Category1", "", "");
+        Float baseFee = feeCalculatorDBService.getBaseFee("Department1", "Category1", "", "");
+
+        assertEquals(190.0f, baseFee);
+        verify(mockRepo, times(1)).getFeeSummary("Department1", "Category1", "", "");
+    }
+
+    @Test
+    void testGetDepartmentFeesFromDbWithOneGroupedQuery() {
+        when(mockRepo.getGroupedFeeSummaries(anyCollection())).thenReturn(List.of(
+                new FeeGroupSummary(Constants.MARKETING_DEPARTMENT, "Category1", "SubCategory1", "Type1", 100, 1),
+                new FeeGroupSummary(Constants.MARKETING_DEPARTMENT, "Category2", "SubCategory1", "Type1", 90, 1),
+                new FeeGroupSummary("Department1", "Category1", "SubCategory1", "Type1", 190, 2)));
+
+        List<FeeResult> results = feeCalculatorDBService.getDepartmentFeesFromDb(List.of(
+                new FeeFilter(Constants.MARKETING_DEPARTMENT, "", "", ""),
+                new FeeFilter(Constants.MARKETING_DEPARTMENT, "Category2", "", ""),
+                new FeeFilter("", "Category1", "", ""),
+                new FeeFilter("Department1", "", "", "Type1"),
+                new FeeFilter("Department2", "", "", "")));
+
+        assertEquals(5, results.size());
+        assertEquals(209, results.get(0).getFee());
+        assertEquals(99, results.get(1).getFee());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), results.get(2).getStatus());
+        assertEquals("Department is empty", results.get(2).getMessage());
+        assertEquals("No surcharge found for department: Department1 only base fee:190", results.get(3).getMessage());
+        assertEquals("There is no data for : Department2", results.get(4).getMessage());
+
+        verify(mockRepo, times(1)).getGroupedFeeSummaries(anyCollection());
+    }
+
+    @Test
+    void testGetDepartmentFeesFromDbUsesColumnarEngine() {
+        when(mockColumnarStore.lookup("Department1", "Category1", "", "")).thenReturn(mockFeeSummary);
+        when(mockColumnarStore.lookup("Department1", "", "", "Type1")).thenReturn(new FeeSummary(90, 1));
+
+        ReflectionTestUtils.setField(feeCalculatorDBService, "queryEngine", FeeQueryEngine.Type.COLUMNAR);
+        try {
+            List<FeeResult> results = feeCalculatorDBService.getDepartmentFeesFromDb(List.of(
+                    new FeeFilter("Department1", "Category1", "", ""),
+                    new FeeFilter("Department1", "", "", "Type1")));
+
+            assertEquals("No surcharge found for department: Department1 only base fee:190", results.get(0).getMessage());
+            assertEquals("No surcharge found for department: Department1 only base fee:90", results.get(1).getMessage());
+        } finally {
+            ReflectionTestUtils.setField(feeCalculatorDBService, "queryEngine", FeeQueryEngine.Type.CUBE);
+        }
+
+        verifyNoInteractions(mockRepo, mockFeeCube);
+    }
+
+    @Test
+    void testGetDepartmentFeesFromDbMatchesSingleLookupsWithJpaEngine() {
+        when(mockRepo.getFeeSummary("Department1", "Category1", "", "")).thenReturn(mockFeeSummary);
+        when(mockRepo.getGroupedFeeSummaries(anyCollection())).thenReturn(List.of(
+                new FeeGroupSummary("Department1", "Category1", "SubCategory1", "Type1", 190, 2),
+                new FeeGroupSummary("Department1", "Category2", "SubCategory1", "Type2", 90, 1)));
+
+        ReflectionTestUtils.setField(feeCalculatorDBService, "queryEngine", FeeQueryEngine.Type.JPA);
+        try {
+            ResponseEntity<Object> single = feeCalculatorDBService.getDepartmentFeeFromDb("Department1", "Category1", "", "");
+            List<FeeResult> results = feeCalculatorDBService.getDepartmentFeesFromDb(List.of(
+                    new FeeFilter("Department1", "Category1", "", ""),
+                    new FeeFilter("Department1", "", "", "Type2")));
+
+            assertEquals(single.getBody(), results.get(0).getMessage());
+            assertEquals("No surcharge found for department: Department1 only base fee:90", results.get(1).getMessage());
+        } finally {
+            ReflectionTestUtils.setField(feeCalculatorDBService, "queryEngine", FeeQueryEngine.Type.CUBE);
+        }
+
+        // the first filter is served from the result cache, only the second goes to the grouped query
+        verify(mockRepo, times(1)).getFeeSummary("Department1", "Category1", "", "");
+        verify(mockRepo, times(1)).getGroupedFeeSummaries(anyCollection());
+        verifyNoInteractions(mockFeeCube, mockColumnarStore);
+        assertEquals(90f, feeCalculatorDBService.getBaseFee("Department1", "", "", "Type2"));
+        verify(mockRepo, never()).getFeeSummary("Department1", "", "", "Type2");
+    }
+
+    @Test
+    void testGetDepartmentFeeBreakdown() {
+        when(mockRepo.getGroupedFeeSummaries(List.of(Constants.MARKETING_DEPARTMENT))).thenReturn(List.of(
+                new FeeGroupSummary(Constants.MARKETING_DEPARTMENT, "ABM", "Cat1", "TypeA", 100, 1),
+                new FeeGroupSummary(Constants.MARKETING_DEPARTMENT, "ABM", "Cat1", "TypeB", 50, 2),
+                new FeeGroupSummary(Constants.MARKETING_DEPARTMENT, "ABM", "Cat2", "TypeA", 40, 1),
+                new FeeGroupSummary(Constants.MARKETING_DEPARTMENT, "Brand", "Cat1", "TypeA", 10, 1)));
+
+        ResponseEntity<Object> response = feeCalculatorDBService.getDepartmentFeeBreakdown(Constants.MARKETING_DEPARTMENT);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        FeeBreakdown department = (FeeBreakdown) response.getBody();
+        assertEquals(200.0, department.getBaseFee());
+        assertEquals(220, department.getFee());
+        assertEquals(5, department.getRowCount());
+        assertEquals(0.1f, department.getSurcharge());
+
+        FeeBreakdown abm = department.getChildren().get(0);
+        assertEquals("ABM", abm.getName());
+        assertEquals(209, abm.getFee());
+        FeeBreakdown cat1 = abm.getChildren().get(0);
+        assertEquals(165, cat1.getFee());
+        assertEquals(List.of("TypeA", "TypeB"), cat1.getChildren().stream().map(FeeBreakdown::getName).toList());
+        assertEquals(55, cat1.getChildren().get(1).getFee());
+        assertEquals(11, department.getChildren().get(1).getFee());
+    }
+
+    @Test
+    void testExportDepartmentDetails() throws Exception {
+        FeeCsvEntity quoted = FeeCsvRowMapper.toEntity(new String[] {"1", "Item, \"one\"", "Desc", "Marketing", "ABM",
+                "Cat1", "TypeA", "2", "50.5"}, 1);
+        FeeCsvEntity plain = FeeCsvRowMapper.toEntity(new String[] {"2", "Item2", "", "Marketing", "ABM",
+                "Cat1", "TypeB", "3", "30"}, 2);
+        doAnswer(invocation -> {
+            Consumer<FeeCsvEntity> consumer = invocation.getArgument(4);
+            consumer.accept(quoted);
+            consumer.accept(plain);
+            return 2L;
+        }).when(mockBulkLoader).queryRows(eq(Constants.MARKETING_DEPARTMENT), eq("ABM"), eq(""), eq(""), any());
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        assertEquals(2, feeCalculatorDBService.exportDepartmentDetails(Constants.MARKETING_DEPARTMENT, "ABM", "", "",
+                FeeExportWriter.Format.CSV, csv));
+        assertEquals(String.join(",", expectedCsvHeaders) + "\n"
+                + "1,\"Item, \"\"one\"\"\",Desc,Marketing,ABM,Cat1,TypeA,2,50.50\n"
+                + "2,Item2,,Marketing,ABM,Cat1,TypeB,3,30.00\n", csv.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        feeCalculatorDBService.exportDepartmentDetails(Constants.MARKETING_DEPARTMENT, "ABM", "", "",
+                FeeExportWriter.Format.NDJSON, ndjson);
+        String[] lines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":\"1\",\"name\":\"Item, \\\"one\\\"\",\"description\":\"Desc\",\"department\":\"Marketing\","
+                + "\"category\":\"ABM\",\"subCategory\":\"Cat1\",\"type\":\"TypeA\",\"quantity\":2,\"price\":50.50}", lines[0]);
+    }
+
+    private List<Object> columns(FeeCsvEntity row) {
+        return Arrays.asList(row.getId(), row.getName(), row.getDescription(), row.getDepartment(), row.getCategory(),
+                row.getSubCategory(), row.getType(), row.getQuantity(), row.getPrice(), row.getContentHash());
+    }
+
+    private List<Object> columns(CsvRowError error) {
+        return Arrays.asList(error.getRowNumber(), error.getId(), error.getColumn(), error.getMessage(), error.getRecord());
+    }
+}
@@ -0,0 +1,166 @@
+package com.project.clariti.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.opencsv.CSVReader;
+import com.project.clariti.Entity.FeeCsvEntity;
+import com.project.clariti.dto.CsvRowError;
+import com.project.clariti.metrics.FeeMetrics;
+import com.project.clariti.utils.FeeCsvRowMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ParallelCsvIngestPipelineTest {
+
+	private static final String HEADER = "Id,Name,Description__c,Department__c,Category__c,Sub_Category__c,Type__c,Quantity__c,Unit_Price__c\n";
+
+	private static final FeeMetrics METRICS = new FeeMetrics(new SimpleMeterRegistry());
+
+	private final List<List<FeeCsvEntity>> chunks = Collections.synchronizedList(new ArrayList<>());
+	private final List<CsvRowError> rejected = new ArrayList<>();
+	private final IngestSink sink = (firstRowNumber, rows, rejectedRows) -> {
+		chunks.add(rows);
+		rejected.addAll(rejectedRows);
+	};
+
+	@Test
+	void testSameRowsAndChunksAsSequentialRead() throws Exception {
+		StringBuilder csv = new StringBuilder(HEADER);
+		for (int i = 1; i <= 50; i++) {
+			csv.append(i).append(",\"Item, ").append(i).append("\",\"multi\nline \"\"quoted\"\"\",Sales,ABM,Cat1,TypeA,")
+					.append(i % 10).append(",").append(i).append(".25\n");
+		}
+
+		long rows = new ParallelCsvIngestPipeline(4, 7, METRICS)
+				.run(new BufferedReader(new StringReader(csv.toString())), headers -> true, sink);
+
+		assertEquals(50, rows);
+		assertEquals(List.of(7, 7, 7, 7, 7, 7, 7, 1), chunks.stream().map(List::size).toList());
+		assertSameRows(readSequentially(new StringReader(csv.toString())), written());
+	}
+
+	@Test
+	void testBackslashEscapedQuotesMatchSequentialRead() throws Exception {
+		String csv = HEADER
+				+ "1,12\\\" pipe,\"a \\\"quoted\\\" word\",Sales,ABM,Cat1,TypeA,1,10\n"
+				+ "2,Item2,\"back\\\\slash\",Sales,ABM,Cat1,TypeA,2,20\n"
+				+ "3,Item3,Desc3,Sales,ABM,Cat1,TypeA,3,30\n";
+
+		long rows = new ParallelCsvIngestPipeline(2, 2, METRICS)
+				.run(new BufferedReader(new StringReader(csv)), headers -> true, sink);
+
+		assertEquals(3, rows);
+		assertEquals(List.of(), rejected);
+		assertEquals("12\" pipe", written().get(0).getName());
+		assertSameRows(readSequentially(new StringReader(csv)), written());
+	}
+
+	@Test
+	void testRawFeesMatchSequentialRead() throws Exception {
+		try (BufferedReader reader = Files.newBufferedReader(Path.of("raw_fees.csv"),
+				StandardCharsets.UTF_8)) {
+			new ParallelCsvIngestPipeline(8, 100, METRICS).run(reader, headers -> true, sink);
+		}
+
+		assertSameRows(readSequentially(new FileReader("raw_fees.csv", StandardCharsets.UTF_8)), written());
+	}
+
+	@Test
+	void testBadRowsAreRejectedAndTheOthersWritten() throws Exception {
+		StringBuilder csv = new StringBuilder(HEADER);
+		for (int i = 1; i <= 40; i++) {
+			if (i == 7) {
+				csv.append("7,Item,Desc,Sales,ABM\n");
+			} else if (i == 31) {
+				csv.append("31,Item,Desc, ,ABM,Cat1,TypeA,1,2.5\n\n");
+			} else {
+				csv.append(i).append(",Item,Desc,Sales,ABM,Cat1,TypeA,1,").append(i == 23 ? "abc" : "2.5").append("\n");
+			}
+		}
+
+		long rows = new ParallelCsvIngestPipeline(4, 5, METRICS)
+				.run(new BufferedReader(new StringReader(csv.toString())), headers -> true, sink);
+
+		// the blank line after row 31 is skipped
+		assertEquals(40, rows);
+		assertEquals(37, written().size());
+		assertEquals(List.of(7L, 23L, 31L), rejected.stream().map(CsvRowError::getRowNumber).toList());
+		assertEquals("Row 7 has 5 columns, expected 9", rejected.get(0).getMessage());
+		assertEquals("7,Item,Desc,Sales,ABM", rejected.get(0).getRecord());
+		assertEquals("Invalid price 'abc' in row 23", rejected.get(1).getMessage());
+		assertEquals("Unit_Price__c", rejected.get(1).getColumn());
+		assertEquals("23", rejected.get(1).getId());
+		assertEquals("Department is empty in row 31", rejected.get(2).getMessage());
+	}
+
+	@Test
+	void testWriterFailureFailsTheIngest() {
+		StringBuilder csv = new StringBuilder(HEADER);
+		for (int i = 1; i <= 40; i++) {
+			csv.append(i).append(",Item,Desc,Sales,ABM,Cat1,TypeA,1,2.5\n");
+		}
+
+		IllegalStateException ex = assertThrows(IllegalStateException.class, () -> new ParallelCsvIngestPipeline(4, 5, METRICS)
+				.run(new BufferedReader(new StringReader(csv.toString())), headers -> true, (first, chunk, bad) -> {
+					throw new IllegalStateException("database is down");
+				}));
+
+		assertEquals("database is down", ex.getMessage());
+	}
+
+	@Test
+	void testInvalidHeaderLoadsNothing() throws Exception {
+		long rows = new ParallelCsvIngestPipeline(2, 5, METRICS)
+				.run(new BufferedReader(new StringReader(HEADER + "1,Item,Desc,Sales,ABM,Cat1,TypeA,1,2.5\n")),
+						headers -> false, sink);
+
+		assertEquals(0, rows);
+		assertEquals(0, chunks.size());
+	}
+
+	private List<FeeCsvEntity> written() {
+		List<FeeCsvEntity> rows = new ArrayList<>();
+		chunks.forEach(rows::addAll);
+		return rows;
+	}
+
+	private static List<FeeCsvEntity> readSequentially(Reader input) throws Exception {
+		List<FeeCsvEntity> rows = new ArrayList<>();
+		try (CSVReader csvReader = new CSVReader(input)) {
+			csvReader.readNext();
+			String[] columns;
+			while ((columns = csvReader.readNext()) != null) {
+				rows.add(FeeCsvRowMapper.toEntity(columns, rows.size() + 1));
+			}
+		}
+		return rows;
+	}
+
+	private static void assertSameRows(List<FeeCsvEntity> expected, List<FeeCsvEntity> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			FeeCsvEntity e = expected.get(i);
+			FeeCsvEntity a = actual.get(i);
+			assertEquals(List.of(e.getId(), e.getName(), e.getDescription(), e.getDepartment(), e.getCategory(),
+					e.getSubCategory(), e.getType()),
+					List.of(a.getId(), a.getName(), a.getDescription(), a.getDepartment(), a.getCategory(),
+							a.getSubCategory(), a.getType()));
+			assertEquals(e.getQuantity(), a.getQuantity());
+			assertEquals(e.getPrice(), a.getPrice());
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.project.clariti.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.project.clariti.Entity.DepartmentSurchargeEntity;
+import com.project.clariti.Repo.DepartmentSurchargeRepository;
+import com.project.clariti.utils.Constants;
+
+@ExtendWith(MockitoExtension.class)
+public class SurchargeServiceTest {
+
+	@Mock
+	private DepartmentSurchargeRepository repo;
+
+	@InjectMocks
+	private SurchargeService service;
+
+	private final List<DepartmentSurchargeEntity> table = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		lenient().when(repo.findAll()).thenReturn(table);
+	}
+
+	@Test
+	void testEmptyTableIsSeededWithDefaults() {
+		when(repo.count()).thenReturn(0L);
+		when(repo.save(any())).thenAnswer(invocation -> {
+			table.add(invocation.getArgument(0));
+			return invocation.getArgument(0);
+		});
+
+		service.init();
+
+		verify(repo, times(Constants.DEPARTMENT_SURCHARGE_MAP.size())).save(any());
+		assertEquals(Constants.DEPARTMENT_SURCHARGE_MAP, service.getSurcharges());
+	}
+
+	@Test
+	void testStoredSurchargesReplaceDefaults() {
+		when(repo.count()).thenReturn(1L);
+		table.add(new DepartmentSurchargeEntity("Sales", 0.3f));
+
+		service.init();
+
+		verify(repo, never()).save(any());
+		assertEquals(0.3f, service.getSurcharge("Sales"));
+		assertNull(service.getSurcharge("Marketing"));
+		assertNull(service.getSurcharge(null));
+	}
+
+	@Test
+	void testSetSurchargePublishesNewSnapshot() {
+		when(repo.save(any())).thenAnswer(invocation -> {
+			table.add(invocation.getArgument(0));
+			return invocation.getArgument(0);
+		});
+		service.reload();
+		Map<String, Float> before = service.getSurcharges();
+
+		service.setSurcharge("IT", 0.05f);
+
+		assertEquals(0.05f, service.getSurcharge("IT"));
+		// a reader holding the old snapshot keeps seeing it unchanged
+		assertTrue(before.isEmpty());
+		assertThrows(UnsupportedOperationException.class, () -> service.getSurcharges().put("HR", 1f));
+	}
+
+	@Test
+	void testInvalidSurchargeIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> service.setSurcharge("IT", -1.5f));
+		assertThrows(IllegalArgumentException.class, () -> service.setSurcharge("IT", Float.NaN));
+		assertThrows(IllegalArgumentException.class, () -> service.setSurcharge(" ", 0.1f));
+		verify(repo, never()).save(any());
+	}
+
+	@Test
+	void testRemoveSurcharge() {
+		table.add(new DepartmentSurchargeEntity("Sales", 0.15f));
+		service.reload();
+		when(repo.existsById("Sales")).thenReturn(true);
+		when(repo.existsById("IT")).thenReturn(false);
+
+		assertFalse(service.removeSurcharge("IT"));
+		table.clear();
+		assertTrue(service.removeSurcharge("Sales"));
+
+		verify(repo).deleteById("Sales");
+		assertNull(service.getSurcharge("Sales"));
+	}
+}
@@ -0,0 +1,148 @@
+package com.project.clariti.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.project.clariti.dto.CsvRowError;
+import com.project.clariti.dto.UploadJobStatus;
+import com.project.clariti.dto.UploadJobStatus.State;
+import com.project.clariti.dto.UploadReport;
+
+public class UploadJobServiceTest {
+
+	private static final UploadReport EMPTY_REPORT = new UploadReport(0, 0, 0, null, List.of());
+
+	private final FeeCalculatorDBService feeService = mock(FeeCalculatorDBService.class);
+	private UploadJobService jobService;
+
+	@AfterEach
+	void shutdown() {
+		jobService.shutdown();
+	}
+
+	@Test
+	void testJobReportsProgressAndSucceeds() throws Exception {
+		jobService = new UploadJobService(feeService, 2, 10, 100);
+		when(feeService.loadCsvDataIntoDatabase(any(InputStream.class), anyLong(), any(IngestProgress.class)))
+				.thenAnswer(invocation -> {
+					String csv = new String(invocation.getArgument(0, InputStream.class).readAllBytes(),
+							StandardCharsets.UTF_8);
+					assertEquals("Id\n1\n\n", csv);
+					CsvRowError error = new CsvRowError(2, null, null, "Row 2 has 1 columns, expected 9", "");
+					IngestProgress progress = invocation.getArgument(2);
+					progress.rowsParsed(2);
+					progress.rowsStaged(1);
+					progress.rowsPersisted(1);
+					progress.rowRejected(error);
+					return new UploadReport(2, 1, 1, 3L, List.of(error));
+				});
+
+		UploadJobStatus submitted = jobService.submit(csvFile("Id\n1\n\n"));
+
+		UploadJobStatus status = awaitFinished(submitted.getId());
+		assertEquals(State.SUCCEEDED, status.getState());
+		assertEquals("fees.csv", status.getFileName());
+		assertEquals(2, status.getRowsParsed());
+		assertEquals(1, status.getRowsStaged());
+		assertEquals(1, status.getRowsPersisted());
+		assertEquals(1, status.getRowsRejected());
+		assertEquals(List.of("Row 2 has 1 columns, expected 9"), status.getErrors());
+	}
+
+	@Test
+	void testFailedJobReportsError() throws Exception {
+		jobService = new UploadJobService(feeService, 2, 10, 100);
+		when(feeService.loadCsvDataIntoDatabase(any(InputStream.class), anyLong(), any(IngestProgress.class)))
+				.thenThrow(new IllegalArgumentException("Unexpected header found in CSV: Code"));
+
+		UploadJobStatus status = awaitFinished(jobService.submit(csvFile("Code\n")).getId());
+
+		assertEquals(State.FAILED, status.getState());
+		assertEquals(List.of("Unexpected header found in CSV: Code"), status.getErrors());
+	}
+
+	@Test
+	void testJobFailingToPublishPersistsNoRows() throws Exception {
+		jobService = new UploadJobService(feeService, 2, 10, 100);
+		when(feeService.loadCsvDataIntoDatabase(any(InputStream.class), anyLong(), any(IngestProgress.class)))
+				.thenAnswer(invocation -> {
+					IngestProgress progress = invocation.getArgument(2);
+					progress.rowsParsed(2);
+					progress.rowsStaged(2);
+					throw new IllegalStateException("Publishing dataset generation 3 failed");
+				});
+
+		UploadJobStatus status = awaitFinished(jobService.submit(csvFile("Id\n1\n2\n")).getId());
+
+		assertEquals(State.FAILED, status.getState());
+		assertEquals(2, status.getRowsStaged());
+		assertEquals(0, status.getRowsPersisted());
+	}
+
+	@Test
+	void testFullQueueRejectsUpload() throws Exception {
+		jobService = new UploadJobService(feeService, 1, 1, 100);
+		CountDownLatch release = new CountDownLatch(1);
+		when(feeService.loadCsvDataIntoDatabase(any(InputStream.class), anyLong(), any(IngestProgress.class)))
+				.thenAnswer(invocation -> {
+					release.await(10, TimeUnit.SECONDS);
+					return EMPTY_REPORT;
+				});
+
+		UploadJobStatus running = jobService.submit(csvFile("Id\n"));
+		UploadJobStatus queued = jobService.submit(csvFile("Id\n"));
+		assertThrows(RejectedExecutionException.class, () -> jobService.submit(csvFile("Id\n")));
+
+		release.countDown();
+		assertEquals(State.SUCCEEDED, awaitFinished(running.getId()).getState());
+		assertEquals(State.SUCCEEDED, awaitFinished(queued.getId()).getState());
+	}
+
+	@Test
+	void testOnlyHistorySizeFinishedJobsAreKept() throws Exception {
+		jobService = new UploadJobService(feeService, 1, 10, 1);
+		when(feeService.loadCsvDataIntoDatabase(any(InputStream.class), anyLong(), any(IngestProgress.class)))
+				.thenReturn(EMPTY_REPORT);
+
+		UploadJobStatus previous = jobService.submit(csvFile("Id\n"));
+		awaitFinished(previous.getId());
+		for (int i = 0; i < 20; i++) {
+			UploadJobStatus next = jobService.submit(csvFile("Id\n"));
+			// a job is retired before it shows as finished, so the previous job is already dropped
+			assertEquals(State.SUCCEEDED, awaitFinished(next.getId()).getState());
+			assertNull(jobService.getStatus(previous.getId()));
+			previous = next;
+		}
+	}
+
+	private static MockMultipartFile csvFile(String content) {
+		return new MockMultipartFile("file", "fees.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private UploadJobStatus awaitFinished(String jobId) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		UploadJobStatus status = jobService.getStatus(jobId);
+		while (status.getState() != State.SUCCEEDED && status.getState() != State.FAILED
+				&& System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			status = jobService.getStatus(jobId);
+		}
+		return status;
+	}
+}
@@ -0,0 +1,89 @@
+package com.project.clariti.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.FileReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.opencsv.CSVReader;
+import com.project.clariti.Entity.FeeCsvEntity;
+
+public class FixedPointFeesTest {
+
+	@Test
+	void testRoundsHalfUpAwayFromZero() {
+		assertEquals(3, FixedPointFees.roundToUnits(250));
+		assertEquals(2, FixedPointFees.roundToUnits(249));
+		assertEquals(-3, FixedPointFees.roundToUnits(-250));
+		// 190.00 + 10% and 1.01 - 50% = 0.505
+		assertEquals(209, FixedPointFees.surchargedFee(19000, 1000));
+		assertEquals(1, FixedPointFees.surchargedFee(101, -5000));
+		assertEquals(0, FixedPointFees.surchargedFee(99, -5000));
+	}
+
+	@Test
+	void testDefaultSurchargesAreWholeBasisPoints() {
+		Map<String, Integer> basisPoints = new HashMap<>();
+		Constants.DEPARTMENT_SURCHARGE_MAP.forEach((department, surcharge) ->
+				basisPoints.put(department, FixedPointFees.toBasisPoints(surcharge)));
+
+		assertEquals(Map.of(Constants.MARKETING_DEPARTMENT, 1000, Constants.SALES_DEPARTMENT, 1500,
+				Constants.DEVELOPMENT_DEPARTMENT, 2000, Constants.OPERATIONS_DEPARTMENT, -1500,
+				Constants.SUPPORT_DEPARTMENT, -5000), basisPoints);
+	}
+
+	@Test
+	void testOverflowIsReported() {
+		assertThrows(ArithmeticException.class, () -> FixedPointFees.lineCents(Integer.MAX_VALUE, Long.MAX_VALUE / 2));
+		assertThrows(ArithmeticException.class, () -> FixedPointFees.surchargedFee(Long.MAX_VALUE / 100, 1000));
+		assertThrows(ArithmeticException.class, () -> FixedPointFees.toCents(new BigDecimal("1.001")));
+	}
+
+	@Test
+	void testRawFeesMatchDecimalArithmeticExactly() throws Exception {
+		Map<String, Long> cents = new HashMap<>();
+		Map<String, BigDecimal> decimals = new HashMap<>();
+		Map<String, Float> floats = new HashMap<>();
+		try (CSVReader csvReader = new CSVReader(new FileReader("raw_fees.csv"))) {
+			csvReader.readNext();
+			String[] columns;
+			long rowNumber = 0;
+			while ((columns = csvReader.readNext()) != null) {
+				FeeCsvEntity row = FeeCsvRowMapper.toEntity(columns, ++rowNumber);
+				cents.merge(row.getDepartment(),
+						FixedPointFees.lineCents(row.getQuantity(), FixedPointFees.toCents(row.getPrice())), Math::addExact);
+				decimals.merge(row.getDepartment(),
+						row.getPrice().multiply(BigDecimal.valueOf(row.getQuantity())), BigDecimal::add);
+				// the float accumulation getBaseFee used before
+				floats.merge(row.getDepartment(),
+						Float.valueOf(row.getQuantity()) * Float.valueOf(row.getPrice().floatValue()), Float::sum);
+			}
+		}
+
+		assertEquals(Constants.DEPARTMENT_SURCHARGE_MAP.keySet(), cents.keySet());
+		int floatMismatches = 0;
+		for (Map.Entry<String, Float> surcharge : Constants.DEPARTMENT_SURCHARGE_MAP.entrySet()) {
+			String department = surcharge.getKey();
+			BigDecimal exact = decimals.get(department);
+			assertEquals(exact, BigDecimal.valueOf(cents.get(department), FeeCsvRowMapper.PRICE_SCALE), department);
+
+			int basisPoints = FixedPointFees.toBasisPoints(surcharge.getValue());
+			BigDecimal exactFee = exact.multiply(BigDecimal.valueOf(basisPoints).movePointLeft(4).add(BigDecimal.ONE))
+					.setScale(0, RoundingMode.HALF_UP);
+			assertEquals(exactFee.longValueExact(), FixedPointFees.surchargedFee(cents.get(department), basisPoints),
+					department);
+			if (BigDecimal.valueOf(floats.get(department)).compareTo(exact) != 0) {
+				floatMismatches++;
+			}
+		}
+		// the float totals of these department sizes already drift from the exact totals
+		assertNotEquals(0, floatMismatches);
+	}
+}
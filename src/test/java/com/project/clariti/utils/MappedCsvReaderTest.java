@@ -0,0 +1,190 @@
+package com.project.clariti.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.opencsv.CSVReader;
+import com.project.clariti.Entity.FeeCsvEntity;
+
+public class MappedCsvReaderTest {
+
+	private static final String CSV = "﻿Id,Name,Price\r\n"
+			+ "1,\"Item, one\",1.5\r\n"
+			+ "2,\"multi\nline \"\"quoted\"\"\",20\r\n"
+			+ "\r\n"
+			+ "3,,-0.05\n"
+			+ "4,last,abc";
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void testSameFieldsAsCsvReaderAcrossSegments() throws Exception {
+		Path file = write(CSV);
+		List<String[]> expected = new CSVReader(new StringReader(CSV.substring(1))).readAll();
+		expected.removeIf(row -> row.length == 1 && row[0].isEmpty());
+
+		// segments smaller than the file force rows to be remapped
+		for (int segmentSize : new int[] { 32, 40, 64, MappedCsvReader.DEFAULT_SEGMENT_SIZE }) {
+			List<String[]> rows = new ArrayList<>();
+			try (MappedCsvReader reader = MappedCsvReader.open(file, segmentSize)) {
+				while (reader.nextRow()) {
+					rows.add(reader.toArray());
+				}
+			}
+			assertEquals(expected.size(), rows.size());
+			for (int i = 0; i < rows.size(); i++) {
+				assertArrayEquals(expected.get(i), rows.get(i), "segment size " + segmentSize + " row " + i);
+			}
+		}
+	}
+
+	@Test
+	void testParseNumbersAndSymbols() throws Exception {
+		try (MappedCsvReader reader = MappedCsvReader.open(write(CSV))) {
+			reader.nextRow();
+			reader.nextRow();
+			assertEquals(150, reader.parseDecimal(2, 2));
+			assertEquals(1, reader.parseInt(0));
+			assertEquals(MappedCsvReader.NOT_A_NUMBER, reader.parseInt(2));
+			String first = reader.getSymbol(0);
+			reader.nextRow();
+			assertEquals(2000, reader.parseDecimal(2, 2));
+			reader.nextRow();
+			assertEquals(-5, reader.parseDecimal(2, 2));
+			assertEquals(MappedCsvReader.NOT_A_NUMBER, reader.parseDecimal(2, 1));
+			reader.nextRow();
+			assertEquals(MappedCsvReader.NOT_A_NUMBER, reader.parseDecimal(2, 2));
+			assertFalse(reader.nextRow());
+			assertEquals("1", first);
+		}
+		try (MappedCsvReader reader = MappedCsvReader.open(write("a,b\na,b\n"))) {
+			reader.nextRow();
+			String symbol = reader.getSymbol(0);
+			reader.nextRow();
+			assertSame(symbol, reader.getSymbol(0));
+		}
+	}
+
+	@Test
+	void testBackslashEscapesAndQuotedEmptyLine() throws Exception {
+		String csv = "1,12\\\" pipe,\"a \\\"b\\\" c\",\"back\\\\slash\",comma\\,kept,\"dropped\\ escape\"\n"
+				+ "\"\"\n"
+				+ "\n"
+				+ "2,line end\\\n"
+				+ "3\n";
+		List<String[]> expected = new CSVReader(new StringReader(csv)).readAll();
+		for (int segmentSize : new int[] { 72, 80, MappedCsvReader.DEFAULT_SEGMENT_SIZE }) {
+			List<String[]> rows = new ArrayList<>();
+			List<String> records = new ArrayList<>();
+			try (MappedCsvReader reader = MappedCsvReader.open(write(csv), segmentSize)) {
+				while (reader.nextRow()) {
+					rows.add(reader.toArray());
+					records.add(reader.getRecord());
+				}
+			}
+			assertEquals(4, rows.size());
+			assertEquals(List.of(csv.split("\n")[0], "\"\"", "2,line end\\", "3"), records);
+			assertArrayEquals(new String[] { "1", "12\" pipe", "a \"b\" c", "back\\slash", "comma,kept", "dropped escape" },
+					rows.get(0));
+			assertArrayEquals(expected.get(0), rows.get(0));
+			// CSVReader reads "" and the blank line alike, here "" is a row of one empty field
+			assertArrayEquals(new String[] { "" }, rows.get(1));
+			assertArrayEquals(expected.get(3), rows.get(2));
+			assertArrayEquals(expected.get(4), rows.get(3));
+		}
+	}
+
+	@Test
+	void testParseDecimalDoesNotOverflow() throws Exception {
+		try (MappedCsvReader reader = MappedCsvReader.open(write("9999999999999999,99999999999999999,99999999999999999.9\n"))) {
+			reader.nextRow();
+			assertEquals(999999999999999900L, reader.parseDecimal(0, 2));
+			assertEquals(MappedCsvReader.NOT_A_NUMBER, reader.parseDecimal(1, 2));
+			assertEquals(MappedCsvReader.NOT_A_NUMBER, reader.parseDecimal(2, 2));
+			assertEquals(99999999999999999L, reader.parseInt(1));
+		}
+		String row = "1,n,d,Dept,Cat,Sub,Type,2,";
+		for (String price : new String[] { "100000000000", "99999999999999999", "92233720368547758.07" }) {
+			try (MappedCsvReader reader = MappedCsvReader.open(write(row + price + "\n"))) {
+				reader.nextRow();
+				CsvRowException ex = assertThrows(CsvRowException.class, () -> FeeCsvRowMapper.toEntity(reader, 1));
+				assertEquals("Invalid price '" + price + "' in row 1", ex.getMessage());
+				assertThrows(CsvRowException.class, () -> FeeCsvRowMapper.toEntity((row + price).split(","), 1));
+			}
+		}
+		try (MappedCsvReader reader = MappedCsvReader.open(write(row + "9999999999.99\n"))) {
+			reader.nextRow();
+			assertEquals(new BigDecimal("9999999999.99"), FeeCsvRowMapper.toEntity(reader, 1).getPrice());
+		}
+	}
+
+	@Test
+	void testUnterminatedQuote() throws Exception {
+		try (MappedCsvReader reader = MappedCsvReader.open(write("Id\n\"open"))) {
+			assertTrue(reader.nextRow());
+			assertThrows(IllegalArgumentException.class, reader::nextRow);
+		}
+	}
+
+	@Test
+	void testRawFeesMapLikeCsvReader() throws Exception {
+		List<FeeCsvEntity> expected = new ArrayList<>();
+		try (CSVReader csvReader = new CSVReader(Files.newBufferedReader(Path.of("raw_fees.csv"), StandardCharsets.UTF_8))) {
+			csvReader.readNext();
+			String[] columns;
+			while ((columns = csvReader.readNext()) != null) {
+				expected.add(FeeCsvRowMapper.toEntity(columns, expected.size() + 1));
+			}
+		}
+		try (MappedCsvReader reader = MappedCsvReader.open(Path.of("raw_fees.csv"), 64 * 1024)) {
+			assertTrue(reader.nextRow());
+			assertEquals("Id", reader.getString(0));
+			for (FeeCsvEntity entity : expected) {
+				assertTrue(reader.nextRow());
+				FeeCsvEntity mapped = FeeCsvRowMapper.toEntity(reader, 1);
+				assertEquals(entity.getId(), mapped.getId());
+				assertEquals(entity.getName(), mapped.getName());
+				assertEquals(entity.getDescription(), mapped.getDescription());
+				assertEquals(entity.getType(), mapped.getType());
+				assertEquals(entity.getQuantity(), mapped.getQuantity());
+				assertEquals(entity.getPrice(), mapped.getPrice());
+				assertEquals(entity.getContentHash(), mapped.getContentHash());
+			}
+			assertFalse(reader.nextRow());
+		}
+	}
+
+	@Test
+	void testInvalidPriceReportsRow() throws Exception {
+		try (MappedCsvReader reader = MappedCsvReader.open(write("1,n,d,Dept,Cat,Sub,Type,2, 3.5 \n1,n,d,Dept,Cat,Sub,Type,2,1.234\n"))) {
+			reader.nextRow();
+			assertEquals(new BigDecimal("3.50"), FeeCsvRowMapper.toEntity(reader, 1).getPrice());
+			reader.nextRow();
+			IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+					() -> FeeCsvRowMapper.toEntity(reader, 2));
+			assertEquals("Invalid price '1.234' in row 2", ex.getMessage());
+		}
+	}
+
+	private Path write(String content) throws Exception {
+		Path file = Files.createTempFile(tempDir, "fees", ".csv");
+		Files.writeString(file, content, StandardCharsets.UTF_8);
+		return file;
+	}
+}